@@ -0,0 +1,110 @@
+package frc.team1891.common.led;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures copying a {@link Mat} onto an {@link LEDMatrix}, compared to reading it one pixel at a time, and writing
+ * every pixel of a frame directly and through an {@link LEDMatrixSegment}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LEDMatrixBenchmark {
+    /** rows x cols */
+    @Param({"8x32", "64x64"})
+    private String size;
+
+    @Param({"false", "true"})
+    private boolean serpentine;
+
+    private int rows, cols;
+    private LEDMatrix matrix;
+    private LEDMatrixSegment segment;
+    private int frameNumber = 0;
+    private Mat frame;
+    private Mat submat;
+
+    @Setup
+    public void setup() {
+        String[] dimensions = size.split("x");
+        rows = Integer.parseInt(dimensions[0]);
+        cols = Integer.parseInt(dimensions[1]);
+
+        matrix = new LEDMatrix(new LEDStrip(null, rows * cols, LEDStrip.LEDMode.GRB), 0, rows, cols, serpentine);
+        segment = new LEDMatrixSegment(matrix, 0, cols, rows);
+        frame = LEDMatrix.createEmptyMatrix(rows, cols);
+        byte[] data = new byte[rows * cols * 3];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        frame.put(0, 0, data);
+
+        // A view into a larger Mat, which isn't continuous in memory
+        Mat larger = LEDMatrix.createEmptyMatrix(rows + 2, cols + 2);
+        submat = larger.submat(1, rows + 1, 1, cols + 1);
+    }
+
+    @Benchmark
+    public LEDMatrix setMatrixRGB() {
+        matrix.setMatrixRGB(frame);
+        return matrix;
+    }
+
+    @Benchmark
+    public LEDMatrix setMatrixHSV() {
+        matrix.setMatrixHSV(frame);
+        return matrix;
+    }
+
+    @Benchmark
+    public LEDMatrix setMatrixRGBSubmat() {
+        matrix.setMatrixRGB(submat);
+        return matrix;
+    }
+
+    /** The previous implementation, reading each pixel with {@link Mat#get(int, int)}. */
+    @Benchmark
+    public LEDMatrix perPixelGet() {
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < cols; ++j) {
+                double[] element = frame.get(i, j);
+                matrix.setRGB(j, i, (int) element[0], (int) element[1], (int) element[2]);
+            }
+        }
+        return matrix;
+    }
+
+    @Benchmark
+    public LEDMatrix setRGBFrame() {
+        frameNumber++;
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                matrix.setRGB(x, y, (x + frameNumber) & 0xFF, (y * 8) & 0xFF, 128);
+            }
+        }
+        matrix.update();
+        return matrix;
+    }
+
+    @Benchmark
+    public LEDMatrixSegment segmentSetRGBFrame() {
+        frameNumber++;
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                segment.setRGB(x, y, (x + frameNumber) & 0xFF, (y * 8) & 0xFF, 128);
+            }
+        }
+        segment.update();
+        return segment;
+    }
+}
@@ -0,0 +1,91 @@
+package frc.team1891.common.led;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one frame of each built-in {@link LEDMatrixPatterns} pattern and {@link LEDMatrixEffects} effect on
+ * matrices of different sizes and wirings, drawn directly and through an {@link LEDMatrixSegment}.
+ *
+ * <p>Each operation is one frame on a manual {@link LEDFrameClock} stepped by 20ms, see
+ * {@link LEDStripPatternBenchmark}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LEDMatrixPatternBenchmark {
+    /** rows x cols */
+    @Param({"8x32", "16x16", "64x64"})
+    private String size;
+
+    @Param({"false", "true"})
+    private boolean serpentine;
+
+    @Param({"RAINBOW", "ERROR", "WARNING", "SNAKE", "LIFE", "FIRE", "RAIN", "PLASMA", "MARQUEE"})
+    private String pattern;
+
+    /**
+     * How the pattern reaches the matrix: directly, through a {@link LEDMatrixSegment} covering all of it, or through a
+     * flipped segment nested in another, which should cost the same as a plain segment.
+     */
+    @Param({"matrix", "segment", "nested"})
+    private String target;
+
+    private LEDFrameClock clock;
+    private LEDMatrixInterface leds;
+    private LEDMatrixPattern matrixPattern;
+    private int frame = 0;
+
+    @Setup
+    public void setup() {
+        final String[] dimensions = size.split("x");
+        final int rows = Integer.parseInt(dimensions[0]), cols = Integer.parseInt(dimensions[1]);
+
+        clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        final LEDMatrix matrix = new LEDMatrix(new LEDStrip(null, rows * cols, LEDStrip.LEDMode.GRB), 0, rows, cols,
+                serpentine);
+        leds = switch (target) {
+            case "segment" -> new LEDMatrixSegment(matrix, 0, cols, rows);
+            case "nested" -> new LEDMatrixSegment(new LEDMatrixSegment(matrix, 0, 0, cols, rows), 0, 0, cols, rows)
+                    .flipped(true, false);
+            default -> matrix;
+        };
+        matrixPattern = switch (pattern) {
+            case "ERROR" -> LEDMatrixPatterns.ERROR();
+            case "WARNING" -> LEDMatrixPatterns.WARNING();
+            // Steers in a square so the snake survives a while between games
+            case "SNAKE" -> new LEDMatrixPatterns.SnakeGamePattern(1, () -> frame % 16 == 0, () -> frame % 16 == 8,
+                    () -> frame % 16 == 4, () -> frame % 16 == 12);
+            case "LIFE" -> LEDMatrixEffects.LIFE();
+            case "FIRE" -> LEDMatrixEffects.FIRE();
+            case "RAIN" -> LEDMatrixEffects.RAIN();
+            case "PLASMA" -> LEDMatrixEffects.PLASMA();
+            case "MARQUEE" -> new LEDMatrixText(LEDFont.FONT_5X7, "FRC Team 1891 Bullbots", 255, 255, 255).scroll(50);
+            default -> LEDMatrixPatterns.RAINBOW();
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        LEDFrameClock.setDefault(LEDFrameClock.realTime());
+    }
+
+    @Benchmark
+    public LEDMatrixInterface frame() {
+        frame++;
+        matrixPattern.run(leds);
+        clock.advance(.02);
+        return leds;
+    }
+
+}
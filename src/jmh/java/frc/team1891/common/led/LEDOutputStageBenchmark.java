@@ -0,0 +1,77 @@
+package frc.team1891.common.led;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rendering a full {@link LEDStrip} frame with and without gamma correction, temporal dithering, and a power
+ * budget.
+ *
+ * <p>{@code plainFrame} is the same setRGB and update path as {@link LEDStripBenchmark#setRGBFrame()}, the others add
+ * those stages.  All of them should report a {@code gc.alloc.rate.norm} of 0 B/op.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LEDOutputStageBenchmark {
+    @Param({"60", "300", "1000"})
+    private int length;
+
+    private LEDStrip plain, gamma, dithered, powerLimited;
+    private int frame = 0;
+
+    @Setup
+    public void setup() {
+        plain = new LEDStrip(null, length, LEDStrip.LEDMode.GRB);
+        gamma = new LEDStrip(null, length, LEDStrip.LEDMode.GRB);
+        gamma.setGamma(2.2);
+        dithered = new LEDStrip(null, length, LEDStrip.LEDMode.GRB);
+        dithered.setGamma(2.2);
+        dithered.setDithering(true);
+        // Low enough that the brightness limit scales most pixels
+        plain.setMaxBrightness(300);
+        gamma.setMaxBrightness(300);
+        dithered.setMaxBrightness(300);
+        powerLimited = new LEDStrip(null, length, LEDStrip.LEDMode.GRB);
+        powerLimited.setMaxBrightness(300);
+        // About half of what the frames would draw
+        powerLimited.setPowerBudget(length * .015);
+    }
+
+    private LEDStrip fill(LEDStrip strip) {
+        frame++;
+        for (int i = 0; i < length; i++) {
+            strip.setRGB(i, (i + frame) & 0xFF, 255 - (i & 0xFF), 128);
+        }
+        strip.update();
+        return strip;
+    }
+
+    @Benchmark
+    public LEDStrip plainFrame() {
+        return fill(plain);
+    }
+
+    @Benchmark
+    public LEDStrip gammaFrame() {
+        return fill(gamma);
+    }
+
+    @Benchmark
+    public LEDStrip gammaDitheredFrame() {
+        return fill(dithered);
+    }
+
+    @Benchmark
+    public LEDStrip powerLimitedFrame() {
+        return fill(powerLimited);
+    }
+}
@@ -0,0 +1,102 @@
+package frc.team1891.common.led;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of filling and rendering a full {@link LEDStrip} frame.
+ *
+ * <p>Run with the gc profiler (enabled in build.gradle), a {@code gc.alloc.rate.norm} of 0 B/op shows that
+ * setting pixels and rendering the framebuffer does not allocate.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LEDStripBenchmark {
+    @Param({"60", "300", "1000"})
+    private int length;
+
+    @Param({"RGB", "GRB"})
+    private LEDStrip.LEDMode ledMode;
+
+    private LEDStrip strip;
+    private LEDStripPattern rainbow;
+    private LEDStripSegment combined;
+    private int frame = 0;
+
+    @Setup
+    public void setup() {
+        strip = new LEDStrip(null, length, ledMode);
+        strip.setMaxBrightness(255);
+        rainbow = LEDStripPatterns.RAINBOW();
+        final LEDStripSegment reversed = new LEDStripSegment(strip, length / 2, length - length / 2);
+        reversed.setReversed(true);
+        combined = LEDStripSegment.combine(new LEDStripSegment(strip, 0, length / 2), reversed);
+    }
+
+    @Benchmark
+    public LEDStrip setRGBFrame() {
+        frame++;
+        for (int i = 0; i < length; i++) {
+            strip.setRGB(i, (i + frame) & 0xFF, 255 - (i & 0xFF), 128);
+        }
+        strip.update();
+        return strip;
+    }
+
+    @Benchmark
+    public LEDStrip unchangedFrame() {
+        for (int i = 0; i < length; i++) {
+            strip.setRGB(i, i & 0xFF, 255 - (i & 0xFF), 128);
+        }
+        strip.update();
+        return strip;
+    }
+
+    @Benchmark
+    public LEDStrip rainbowFrame() {
+        rainbow.run(strip);
+        return strip;
+    }
+
+    @Benchmark
+    public LEDStrip fillFrame() {
+        frame++;
+        strip.setAllRGB(frame & 0xFF, 0, 128);
+        strip.update();
+        return strip;
+    }
+
+    @Benchmark
+    public LEDStrip combinedSegmentFillFrame() {
+        frame++;
+        combined.setAllRGB(frame & 0xFF, 0, 128);
+        strip.update();
+        return strip;
+    }
+
+    @Benchmark
+    public LEDStrip combinedSegmentSetRGBFrame() {
+        frame++;
+        for (int i = 0; i < length; i++) {
+            combined.setRGB(i, (i + frame) & 0xFF, 255 - (i & 0xFF), 128);
+        }
+        strip.update();
+        return strip;
+    }
+
+    @Benchmark
+    public LEDStrip rotateFrame() {
+        strip.rotate(0, length, 1);
+        strip.update();
+        return strip;
+    }
+}
@@ -0,0 +1,52 @@
+package frc.team1891.common.led;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the default and fixed-point HSV conversions in {@link LEDStrip#setHSV(int, int, int, int)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LEDStripHSVBenchmark {
+    @Param({"60", "150", "300", "600", "1000"})
+    private int length;
+
+    @Param({"false", "true"})
+    private boolean fastHSV;
+
+    private LEDStrip strip;
+    private LEDStripPattern rainbow;
+    private int frame = 0;
+
+    @Setup
+    public void setup() {
+        strip = new LEDStrip(null, length, LEDStrip.LEDMode.RGB);
+        strip.setFastHSV(fastHSV);
+        rainbow = LEDStripPatterns.RAINBOW();
+    }
+
+    @Benchmark
+    public LEDStrip setHSVFrame() {
+        frame++;
+        for (int i = 0; i < length; i++) {
+            strip.setHSV(i, (i + frame) % 180, 255 - (i & 0x7F), 200);
+        }
+        return strip;
+    }
+
+    @Benchmark
+    public LEDStrip rainbowFrame() {
+        rainbow.draw(strip);
+        return strip;
+    }
+}
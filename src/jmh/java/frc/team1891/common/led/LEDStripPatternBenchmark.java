@@ -0,0 +1,77 @@
+package frc.team1891.common.led;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one frame of each built-in {@link LEDStripPatterns} pattern, drawn and sent, through each way of addressing
+ * the strip.
+ *
+ * <p>Each operation is one frame on a manual {@link LEDFrameClock} stepped by 20ms, so animated patterns move as they
+ * would on the robot.  Strips are created without an AddressableLED, so no HAL is needed.  With the gc profiler,
+ * {@code gc.alloc.rate.norm} is the bytes allocated per frame.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LEDStripPatternBenchmark {
+    @Param({"60", "300", "1000"})
+    private int length;
+
+    @Param({"RAINBOW", "ERROR", "WARNING"})
+    private String pattern;
+
+    /**
+     * How the pattern reaches the strip: directly, through one {@link LEDStripSegment}, or through a segment combined
+     * from a forward and a reversed half.
+     */
+    @Param({"strip", "segment", "combined"})
+    private String target;
+
+    private LEDFrameClock clock;
+    private LEDStrip strip;
+    private LEDStripInterface leds;
+    private LEDStripPattern stripPattern;
+
+    @Setup
+    public void setup() {
+        clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        strip = new LEDStrip(null, length, LEDStrip.LEDMode.GRB);
+        leds = switch (target) {
+            case "segment" -> new LEDStripSegment(strip, 0, length);
+            case "combined" -> {
+                final LEDStripSegment reversed = new LEDStripSegment(strip, length / 2, length - length / 2);
+                reversed.setReversed(true);
+                yield LEDStripSegment.combine(new LEDStripSegment(strip, 0, length / 2), reversed);
+            }
+            default -> strip;
+        };
+        stripPattern = switch (pattern) {
+            case "ERROR" -> LEDStripPatterns.ERROR();
+            case "WARNING" -> LEDStripPatterns.WARNING();
+            default -> LEDStripPatterns.RAINBOW();
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        LEDFrameClock.setDefault(LEDFrameClock.realTime());
+    }
+
+    @Benchmark
+    public LEDStrip frame() {
+        stripPattern.run(leds);
+        clock.advance(.02);
+        return strip;
+    }
+}
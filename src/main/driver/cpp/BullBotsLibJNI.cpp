@@ -1,6 +1,8 @@
 #include "jni.h"
 #include "frc_team1891_common_jni_BullBotsLibJNI.h"
 
+#include "driverheader.h"
+
 JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM* vm, void* reserved) {
     // Check to ensure the JNI version is valid
 
@@ -20,3 +22,30 @@ JNIEXPORT jint JNICALL Java_frc_team1891_common_jni_BullBotsLibJNI_initialize
   (JNIEnv *, jclass) {
   return 0;
 }
+
+JNIEXPORT jint JNICALL Java_frc_team1891_common_jni_BullBotsLibJNI_processFrame
+  (JNIEnv *env, jclass, jobject src, jobject dst, jint offset, jint count, jint cols, jint flags, jint channelOrder,
+   jint maxBrightness) {
+  auto srcPixels = static_cast<uint32_t*>(env->GetDirectBufferAddress(src));
+  auto dstPixels = static_cast<uint32_t*>(env->GetDirectBufferAddress(dst));
+  if (srcPixels == nullptr || dstPixels == nullptr) {
+    return -1;
+  }
+
+  if (offset < 0 || count < 0 || cols < 0) {
+    return -1;
+  }
+
+  // Both buffers need to hold every pixel that is read or written.  Remapping stays within a row, so a partial last
+  // row can write up to the end of that row.
+  const jlong end = static_cast<jlong>(offset) + count;
+  jlong dstEnd = end;
+  if ((flags & BBL_FLAG_SERPENTINE) != 0 && cols > 0) {
+    dstEnd = (end + cols - 1) / cols * cols;
+  }
+  if (env->GetDirectBufferCapacity(src) < end * 4 || env->GetDirectBufferCapacity(dst) < dstEnd * 4) {
+    return -1;
+  }
+
+  return bbl_process_frame(srcPixels, dstPixels, offset, count, cols, flags, channelOrder, maxBrightness);
+}
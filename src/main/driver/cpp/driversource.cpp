@@ -1,7 +1,107 @@
 #include "driverheader.h"
 
+namespace {
+inline uint32_t pack(int32_t a, int32_t b, int32_t c) {
+  return (static_cast<uint32_t>(a & 0xFF) << 16) | (static_cast<uint32_t>(b & 0xFF) << 8) |
+         static_cast<uint32_t>(c & 0xFF);
+}
+
+// Bit offsets of the R, G and B channels of a packed pixel, for each output slot of each channel order
+constexpr int32_t kShifts[6][3] = {
+    {16, 8, 0},  // RGB
+    {16, 0, 8},  // RBG
+    {8, 16, 0},  // GRB
+    {8, 0, 16},  // GBR
+    {0, 8, 16},  // BGR
+    {0, 16, 8},  // BRG
+};
+
+// Math.round((remainder) * (255 / 30.0)) for remainder in [0, 30)
+constexpr int32_t kHueRemainder[30] = {0,   9,   17,  26,  34,  43,  51,  60,  68,  77,
+                                       85,  94,  102, 111, 119, 128, 136, 145, 153, 162,
+                                       170, 179, 187, 196, 204, 213, 221, 230, 238, 247};
+}  // namespace
+
 extern "C" {
 void c_doThing() {
 
 }
+
+uint32_t bbl_hsv_to_rgb(int32_t hue, int32_t sat, int32_t val) {
+  if (sat == 0) {
+    return pack(val, val, val);
+  }
+
+  hue %= 180;
+  if (hue < 0) {
+    hue += 180;
+  }
+
+  const int32_t chroma = (sat * val) / 255;
+  const int32_t region = hue / 30;
+  const int32_t m = val - chroma;
+  const int32_t x = (chroma * kHueRemainder[hue % 30]) >> 8;
+
+  switch (region) {
+    case 0:
+      return pack(val, x + m, m);
+    case 1:
+      return pack(val - x, val, m);
+    case 2:
+      return pack(m, val, x + m);
+    case 3:
+      return pack(m, val - x, val);
+    case 4:
+      return pack(x + m, m, val);
+    default:
+      return pack(val, m, val - x);
+  }
+}
+
+int32_t bbl_process_frame(const uint32_t* src, uint32_t* dst, int32_t offset, int32_t count, int32_t cols,
+                          int32_t flags, int32_t channelOrder, int32_t maxBrightness) {
+  if (src == nullptr || dst == nullptr || offset < 0 || count < 0 || channelOrder < 0 || channelOrder > 5) {
+    return -1;
+  }
+  const bool hsv = (flags & BBL_FLAG_HSV_INPUT) != 0;
+  const bool serpentine = (flags & BBL_FLAG_SERPENTINE) != 0;
+  if (serpentine && cols <= 0) {
+    return -1;
+  }
+
+  const int32_t firstShift = kShifts[channelOrder][0];
+  const int32_t secondShift = kShifts[channelOrder][1];
+  const int32_t thirdShift = kShifts[channelOrder][2];
+
+  const int32_t end = offset + count;
+  for (int32_t i = offset; i < end; i++) {
+    uint32_t rgb = src[i];
+    if (hsv) {
+      rgb = bbl_hsv_to_rgb(static_cast<int32_t>((rgb >> 16) & 0xFF), static_cast<int32_t>((rgb >> 8) & 0xFF),
+                           static_cast<int32_t>(rgb & 0xFF));
+    }
+
+    int32_t first = static_cast<int32_t>((rgb >> firstShift) & 0xFF);
+    int32_t second = static_cast<int32_t>((rgb >> secondShift) & 0xFF);
+    int32_t third = static_cast<int32_t>((rgb >> thirdShift) & 0xFF);
+    const int32_t sum = first + second + third;
+    if (sum > maxBrightness) {
+      // Scale every channel by maxBrightness / sum (16.16 fixed point), rounding to the nearest level
+      const int64_t scale = (static_cast<int64_t>(maxBrightness > 0 ? maxBrightness : 0) << 16) / sum;
+      first = static_cast<int32_t>((first * scale + 0x8000) >> 16);
+      second = static_cast<int32_t>((second * scale + 0x8000) >> 16);
+      third = static_cast<int32_t>((third * scale + 0x8000) >> 16);
+    }
+
+    int32_t index = i;
+    if (serpentine) {
+      const int32_t y = i / cols;
+      if ((y % 2) == 1) {
+        index = (y + 1) * cols - 1 - (i % cols);
+      }
+    }
+    dst[index] = pack(first, second, third);
+  }
+  return 0;
 }
+}  // extern "C"
@@ -1,11 +1,45 @@
 #pragma once
 
+#include <stdint.h>
+
 #ifdef __cplusplus
 extern "C" {
 #endif
 
 void c_doThing();
 
+/** Input pixels are packed 0x00HHSSVV instead of 0x00RRGGBB. */
+#define BBL_FLAG_HSV_INPUT 0x1
+/** Input pixels are in row major order and are remapped onto a serpentine wired matrix. */
+#define BBL_FLAG_SERPENTINE 0x2
+
+/** Channel orders, matching the ordinals of LEDStrip.LEDMode. */
+#define BBL_ORDER_RGB 0
+#define BBL_ORDER_RBG 1
+#define BBL_ORDER_GRB 2
+#define BBL_ORDER_GBR 3
+#define BBL_ORDER_BGR 4
+#define BBL_ORDER_BRG 5
+
+/**
+ * Converts an HSV color (hue [0, 180), saturation and value [0, 255]) to a packed 0x00RRGGBB color, using the same
+ * integer algorithm as LEDStrip.setHSV.
+ */
+uint32_t bbl_hsv_to_rgb(int32_t hue, int32_t sat, int32_t val);
+
+/**
+ * Runs pixels [offset, offset + count) of src through the LED pipeline and writes them to dst:
+ * HSV to RGB conversion (BBL_FLAG_HSV_INPUT), serpentine remapping (BBL_FLAG_SERPENTINE, using cols), channel
+ * reordering and the LEDStrip brightness limit.
+ *
+ * Pixels are packed 0x00XXYYZZ.  Output channels are in the given order, so XX is the first channel sent to the strip.
+ * src and dst must not overlap when remapping.
+ *
+ * @return 0 on success, or a negative number if the arguments are invalid
+ */
+int32_t bbl_process_frame(const uint32_t* src, uint32_t* dst, int32_t offset, int32_t count, int32_t cols,
+                          int32_t flags, int32_t channelOrder, int32_t maxBrightness);
+
 #ifdef __cplusplus
 }  // extern "C"
 #endif
@@ -1,13 +1,19 @@
 package frc.team1891.common.jni;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Demo class for loading the driver via JNI.
+ * Class for loading the driver via JNI.
  */
 public class BullBotsLibJNI {
   static boolean libraryLoaded = false;
 
+  /** Input pixels are packed 0x00HHSSVV instead of 0x00RRGGBB. */
+  public static final int FLAG_HSV_INPUT = 0x1;
+  /** Input pixels are in row major order and are remapped onto a serpentine wired matrix. */
+  public static final int FLAG_SERPENTINE = 0x2;
+
   /**
    * Helper class for determining whether or not to load the driver on static initialization.
    */
@@ -33,11 +39,23 @@ public class BullBotsLibJNI {
 
   static {
     if (Helper.getExtractOnStaticLoad()) {
-      System.loadLibrary("BullBotsLibDriver");
-      libraryLoaded = true;
+      try {
+        System.loadLibrary("BullBotsLibDriver");
+        libraryLoaded = true;
+      } catch (UnsatisfiedLinkError e) {
+        // Leave the library unloaded so callers can check isLibraryLoaded() and fall back to Java
+      }
     }
   }
 
+  /**
+   * Returns whether the driver is loaded and its native methods can be called.
+   * @return true if the library is loaded
+   */
+  public static synchronized boolean isLibraryLoaded() {
+    return libraryLoaded;
+  }
+
   /**
    * Force load the library.
    */
@@ -57,4 +75,26 @@ public class BullBotsLibJNI {
    * @see "BullBotsLibJNI.cpp"
    */
   public static native int initialize();
+
+  /**
+   * Runs pixels [offset, offset + count) of a frame through the LED pipeline in one call: HSV to RGB conversion
+   * ({@link #FLAG_HSV_INPUT}), serpentine remapping ({@link #FLAG_SERPENTINE}), channel reordering and the
+   * brightness limit used by {@code LEDStrip}.
+   *
+   * <p>Both buffers must be direct, in native byte order, and hold one packed int per pixel.  Output pixels are
+   * packed 0x00XXYYZZ where XX is the first channel sent to the strip.</p>
+   *
+   * @param src the input pixels
+   * @param dst the output pixels, must not be src when remapping
+   * @param offset the first pixel to process
+   * @param count the number of pixels to process
+   * @param cols the number of columns, used for serpentine remapping
+   * @param flags a combination of {@link #FLAG_HSV_INPUT} and {@link #FLAG_SERPENTINE}
+   * @param channelOrder the ordinal of the {@code LEDStrip.LEDMode} to output
+   * @param maxBrightness [0,765] the max sum brightness the channels can reach
+   * @return 0 on success, or a negative number if the arguments are invalid
+   * @see "BullBotsLibJNI.cpp"
+   */
+  public static native int processFrame(ByteBuffer src, ByteBuffer dst, int offset, int count, int cols, int flags,
+                                        int channelOrder, int maxBrightness);
 }
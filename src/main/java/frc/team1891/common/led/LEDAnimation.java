@@ -0,0 +1,188 @@
+package frc.team1891.common.led;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.team1891.common.led.LEDMatrixPattern.AnimatedLEDMatrixPattern;
+import frc.team1891.common.led.LEDMatrixPattern.AnimatedLEDMatrixPattern.RunType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An LED strip or matrix animation stored in the BullBotsLib animation format, created with
+ * {@link LEDAnimationEncoder}.
+ *
+ * <p>The file is memory mapped and only its header is read when loading, frames are decoded as they play.  The
+ * format, with every number big endian:</p>
+ * <pre>
+ * magic       4 bytes  "BBLA"
+ * version     u8       {@value #VERSION}
+ * flags       u8       bit 0: loops continuously, bit 1: has a palette
+ * rows        u16      1 for a strip
+ * cols        u16
+ * fps         u16
+ * frameCount  u32
+ * palette     u8 size (0 meaning 256) then size * 3 bytes of RGB, only if the palette flag is set
+ * frames      keyframes and delta frames, see {@link LEDDeltaFrameEncoder}
+ * </pre>
+ */
+@SuppressWarnings("unused")
+public class LEDAnimation {
+    static final byte[] MAGIC = {'B', 'B', 'L', 'A'};
+    /** The newest version of the format. */
+    public static final int VERSION = 1;
+    static final int FLAG_CONTINUOUS = 1;
+    static final int FLAG_PALETTE = 2;
+
+    private final int numRows, numCols;
+    private final int fps;
+    private final int frameCount;
+    private final RunType runType;
+    private final int[] palette;
+    // The frames, after the header
+    private final ByteBuffer frames;
+
+    /**
+     * Reads an animation from the given bytes.
+     * @param data the whole animation file
+     */
+    public LEDAnimation(ByteBuffer data) {
+        final ByteBuffer header = data.slice().order(ByteOrder.BIG_ENDIAN);
+        for (byte b : MAGIC) {
+            if (header.get() != b) {
+                throw new IllegalArgumentException("Not a BullBotsLib LED animation");
+            }
+        }
+        final int version = header.get() & 0xFF;
+        if (version > VERSION) {
+            throw new IllegalArgumentException("Unsupported animation version " + version + ", the newest is " + VERSION);
+        }
+        final int flags = header.get() & 0xFF;
+        numRows = header.getShort() & 0xFFFF;
+        numCols = header.getShort() & 0xFFFF;
+        fps = header.getShort() & 0xFFFF;
+        frameCount = header.getInt();
+        runType = (flags & FLAG_CONTINUOUS) != 0 ? RunType.CONTINUOUS : RunType.ONCE;
+        if ((flags & FLAG_PALETTE) != 0) {
+            final int size = header.get() & 0xFF;
+            palette = new int[size == 0 ? 256 : size];
+            for (int i = 0; i < palette.length; i++) {
+                palette[i] = ((header.get() & 0xFF) << 16) | ((header.get() & 0xFF) << 8) | (header.get() & 0xFF);
+            }
+        } else {
+            palette = null;
+        }
+        frames = header.slice();
+    }
+
+    /**
+     * Memory maps an animation file.
+     * @param file the file
+     * @return the animation
+     * @throws IOException if the file can't be read
+     */
+    public static LEDAnimation load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new LEDAnimation(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Memory maps an animation file from the deploy directory.
+     * @param name the path of the file, relative to the deploy directory
+     * @return the animation
+     * @throws IOException if the file can't be read
+     */
+    public static LEDAnimation loadFromDeploy(String name) throws IOException {
+        return load(Filesystem.getDeployDirectory().toPath().resolve(name));
+    }
+
+    /**
+     * @return number of rows in each frame, 1 for a strip
+     */
+    public int rows() {
+        return numRows;
+    }
+
+    /**
+     * @return number of columns in each frame
+     */
+    public int cols() {
+        return numCols;
+    }
+
+    /**
+     * @return frames per second
+     */
+    public int getFPS() {
+        return fps;
+    }
+
+    /**
+     * @return number of frames
+     */
+    public int frameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return whether the animation plays once or loops
+     */
+    public RunType getRunType() {
+        return runType;
+    }
+
+    /**
+     * @return the colors of the palette, or null if the animation doesn't have one
+     */
+    public int[] getPalette() {
+        return palette == null ? null : palette.clone();
+    }
+
+    /**
+     * Creates a new decoder for the frames.  Each pattern playing the animation needs its own.
+     * @return the decoder
+     */
+    public LEDFrameDecoder createDecoder() {
+        final LEDDeltaFrameDecoder decoder = new LEDDeltaFrameDecoder(frames, numRows, numCols, palette);
+        if (decoder.frameCount() != frameCount) {
+            throw new IllegalArgumentException("Expected " + frameCount + " frames, found " + decoder.frameCount());
+        }
+        return decoder;
+    }
+
+    /**
+     * Creates a new pattern that plays the animation on a matrix.
+     * @return the pattern
+     */
+    public AnimatedLEDMatrixPattern createMatrixPattern() {
+        return new AnimatedLEDMatrixPattern(runType, fps, createDecoder());
+    }
+
+    /**
+     * Creates a new pattern that plays the animation on a strip, reading the frames left to right then top to bottom.
+     * @return the pattern
+     */
+    public LEDStripPattern createStripPattern() {
+        final AnimatedLEDMatrixPattern animation = createMatrixPattern();
+        return new LEDStripPattern() {
+            @Override
+            public void draw(LEDStripInterface leds) {
+                animation.drawTo(leds);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return animation.isFinished();
+            }
+
+            @Override
+            public void reset() {
+                animation.reset();
+            }
+        };
+    }
+}
@@ -0,0 +1,217 @@
+package frc.team1891.common.led;
+
+import frc.team1891.common.led.LEDMatrixPattern.AnimatedLEDMatrixPattern.RunType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds {@link LEDAnimation} files, meant to be run on a computer ahead of time and the result put in the deploy
+ * directory.  Images are read and resized with OpenCV.
+ *
+ * <p>Animations with 256 colors or fewer are stored with a palette, one byte per changed pixel.  It can also be run
+ * from this library's checkout, without writing any code:</p>
+ * <pre>
+ * ./gradlew encodeLEDAnimation --args="&lt;output&gt; &lt;rows&gt; &lt;cols&gt; &lt;fps&gt; &lt;once|loop&gt; &lt;images or a gif...&gt;"
+ * </pre>
+ */
+@SuppressWarnings("unused")
+public class LEDAnimationEncoder {
+    private final int numRows, numCols;
+    private final int fps;
+    private final RunType runType;
+    private int keyframeInterval;
+    private final List<int[]> frames = new ArrayList<>();
+
+    /**
+     * Creates a new {@link LEDAnimationEncoder}, with a keyframe every two seconds.
+     * @param numRows number of rows in each frame, 1 for a strip
+     * @param numCols number of columns in each frame
+     * @param fps frames per second
+     * @param runType whether the animation plays once or loops
+     */
+    public LEDAnimationEncoder(int numRows, int numCols, int fps, RunType runType) {
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.fps = fps;
+        this.runType = runType;
+        this.keyframeInterval = Math.max(1, fps * 2);
+    }
+
+    /**
+     * Sets how often a keyframe is written.  Looping back or skipping around restarts from the closest keyframe, so
+     * more keyframes make that faster at the cost of a bigger file.
+     * @param keyframeInterval number of frames between keyframes
+     * @return this encoder
+     */
+    public LEDAnimationEncoder setKeyframeInterval(int keyframeInterval) {
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        return this;
+    }
+
+    /**
+     * Adds a frame.
+     * @param frame the frame, packed 0xRRGGBB indexed by y * cols + x
+     * @return this encoder
+     */
+    public LEDAnimationEncoder addFrame(int[] frame) {
+        if (frame.length != numRows * numCols) {
+            throw new IllegalArgumentException("Expected a frame of " + numRows * numCols + " pixels, got " + frame.length);
+        }
+        frames.add(frame.clone());
+        return this;
+    }
+
+    /**
+     * Adds an image as a frame, resizing it to fit the animation.
+     * @param image a BGR, BGRA or grayscale image, as read by OpenCV
+     * @return this encoder
+     */
+    public LEDAnimationEncoder addImage(Mat image) {
+        LEDMatrix.OpenCV.load();
+        Mat bgr = image;
+        if (image.channels() == 4) {
+            bgr = new Mat();
+            Imgproc.cvtColor(image, bgr, Imgproc.COLOR_BGRA2BGR);
+        } else if (image.channels() == 1) {
+            bgr = new Mat();
+            Imgproc.cvtColor(image, bgr, Imgproc.COLOR_GRAY2BGR);
+        }
+        if (bgr.rows() != numRows || bgr.cols() != numCols) {
+            final Mat resized = new Mat();
+            Imgproc.resize(bgr, resized, new Size(numCols, numRows), 0, 0, Imgproc.INTER_AREA);
+            bgr = resized;
+        }
+
+        final byte[] bytes = new byte[numRows * numCols * 3];
+        bgr.get(0, 0, bytes);
+        final int[] frame = new int[numRows * numCols];
+        for (int i = 0, j = 0; i < frame.length; i++, j += 3) {
+            frame[i] = ((bytes[j + 2] & 0xFF) << 16) | ((bytes[j + 1] & 0xFF) << 8) | (bytes[j] & 0xFF);
+        }
+        frames.add(frame);
+        return this;
+    }
+
+    /**
+     * Adds an image file (like a PNG) as a frame.
+     * @param file the image
+     * @return this encoder
+     * @throws IOException if the image can't be read
+     */
+    public LEDAnimationEncoder addImageFile(Path file) throws IOException {
+        LEDMatrix.OpenCV.load();
+        final Mat image = Imgcodecs.imread(file.toString(), Imgcodecs.IMREAD_COLOR);
+        if (image.empty()) {
+            throw new IOException("Couldn't read image " + file);
+        }
+        return addImage(image);
+    }
+
+    /**
+     * Adds every frame of an animated image (like a GIF, if OpenCV was built to read them).
+     * @param file the animated image
+     * @return this encoder
+     * @throws IOException if the image can't be read
+     */
+    public LEDAnimationEncoder addAnimatedImageFile(Path file) throws IOException {
+        LEDMatrix.OpenCV.load();
+        final List<Mat> images = new ArrayList<>();
+        if (!Imgcodecs.imreadmulti(file.toString(), images, Imgcodecs.IMREAD_COLOR)) {
+            throw new IOException("Couldn't read images from " + file);
+        }
+        for (Mat image : images) {
+            addImage(image);
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of frames added
+     */
+    public int frameCount() {
+        return frames.size();
+    }
+
+    /**
+     * Encodes the animation.
+     * @param stream where to write the animation file
+     * @throws IOException if the stream can't be written
+     */
+    public void writeTo(OutputStream stream) throws IOException {
+        // Use a palette if there are few enough colors
+        final Set<Integer> colors = new LinkedHashSet<>();
+        for (int[] frame : frames) {
+            for (int rgb : frame) {
+                if (colors.size() <= 256) {
+                    colors.add(rgb);
+                }
+            }
+        }
+        int[] palette = null;
+        if (!colors.isEmpty() && colors.size() <= 256) {
+            palette = colors.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        final DataOutputStream out = new DataOutputStream(stream);
+        out.write(LEDAnimation.MAGIC);
+        out.writeByte(LEDAnimation.VERSION);
+        out.writeByte((runType == RunType.CONTINUOUS ? LEDAnimation.FLAG_CONTINUOUS : 0)
+                | (palette != null ? LEDAnimation.FLAG_PALETTE : 0));
+        out.writeShort(numRows);
+        out.writeShort(numCols);
+        out.writeShort(fps);
+        out.writeInt(frames.size());
+        if (palette != null) {
+            out.writeByte(palette.length);
+            for (int rgb : palette) {
+                out.writeByte(rgb >> 16);
+                out.writeByte(rgb >> 8);
+                out.writeByte(rgb);
+            }
+        }
+
+        final LEDDeltaFrameEncoder encoder = new LEDDeltaFrameEncoder(numRows, numCols, keyframeInterval, palette);
+        for (int[] frame : frames) {
+            encoder.addFrame(frame);
+        }
+        encoder.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * @return the encoded animation file
+     */
+    public byte[] toByteArray() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes the animation to a file.
+     * @param file the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writeTo(out);
+        }
+    }
+}
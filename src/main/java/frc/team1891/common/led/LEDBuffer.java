@@ -0,0 +1,378 @@
+package frc.team1891.common.led;
+
+import org.opencv.core.Mat;
+
+import java.util.Arrays;
+
+/**
+ * An off-screen LED buffer that patterns can draw into like any other {@link LEDMatrixInterface} (or, with one row,
+ * {@link LEDStripInterface}), without touching the real LEDs.
+ *
+ * <p>Pixels are packed 0xAARRGGBB in row major order.  Colors set through the normal setters are opaque, and
+ * {@link #off()} clears the buffer to fully transparent.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDBuffer implements LEDMatrixInterface, LEDReadableStripInterface {
+    private final int numRows, numCols;
+    private final int length;
+    /** The pixels, packed 0xAARRGGBB, indexed by y * cols + x. */
+    final int[] pixels;
+    // Incremented whenever a pixel changes
+    private long version = 0;
+    // The version right after the last clear, to skip clearing twice
+    private long clearedVersion = 0;
+    private boolean transparent = true;
+    // The LEDs this buffer stands in for, whose brightness setHue matches, or null for full brightness
+    private LEDStripInterface hueTarget = null;
+    // Reusable buffer for reading a whole Mat at once, allocated on first use
+    private byte[] matBytes;
+
+    /**
+     * Creates a new {@link LEDBuffer} shaped like a strip.
+     * @param length number of LEDs
+     */
+    public LEDBuffer(int length) {
+        this(1, length);
+    }
+
+    /**
+     * Creates a new {@link LEDBuffer} shaped like a matrix.
+     * @param numRows number of rows
+     * @param numCols number of columns
+     */
+    public LEDBuffer(int numRows, int numCols) {
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.length = numRows * numCols;
+        this.pixels = new int[length];
+    }
+
+    /**
+     * Creates a new {@link LEDBuffer} with the same shape as the given LEDs.
+     * @param leds the LEDs to match
+     * @return a new buffer
+     */
+    public static LEDBuffer matching(LEDStripInterface leds) {
+        final LEDBuffer buffer = leds instanceof LEDMatrixInterface matrix
+                ? new LEDBuffer(matrix.rows(), matrix.cols())
+                : new LEDBuffer(leds.length());
+        return buffer.setHueTarget(leds);
+    }
+
+    /**
+     * Makes {@link #setHue(int, int)} use the same value (brightness) as the given LEDs would, so hue based patterns
+     * drawn into this buffer and then copied onto those LEDs look the same as if they were drawn directly.  Buffers
+     * made with {@link #matching(LEDStripInterface)} already do this.
+     * @param leds the LEDs this buffer stands in for, or null to use full brightness
+     * @return this buffer
+     */
+    public LEDBuffer setHueTarget(LEDStripInterface leds) {
+        hueTarget = leds instanceof LEDBuffer buffer ? buffer.hueTarget : leds;
+        return this;
+    }
+
+    /**
+     * Returns the value (brightness) the given LEDs use when only a hue is set.
+     */
+    static int hueValueOf(LEDStripInterface leds) {
+        if (leds instanceof LEDStrip strip) {
+            return strip.getHueValue();
+        } else if (leds instanceof LEDStripSegment segment) {
+            return segment.parentStrip.getHueValue();
+        } else if (leds instanceof LEDMatrix || leds instanceof LEDMatrixSegment || leds instanceof LEDMatrixWall) {
+            return 128;
+        }
+        return 255;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int rows() {
+        return numRows;
+    }
+
+    @Override
+    public int cols() {
+        return numCols;
+    }
+
+    /**
+     * Does nothing, an off-screen buffer isn't connected to any LEDs.
+     */
+    @Override
+    public void update() {}
+
+    /**
+     * Returns a number that changes whenever a pixel in the buffer changes.
+     * @return the version of the buffer contents
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns whether every pixel is fully transparent, as it is after {@link #off()}.
+     * @return true if nothing is drawn
+     */
+    public boolean isTransparent() {
+        return transparent;
+    }
+
+    /**
+     * Returns the color of the pixel at the given index.
+     * @param index the target pixel
+     * @return the packed 0xAARRGGBB color, or 0 if the index is out of bounds
+     */
+    public int getARGB(int index) {
+        return checkValidIndex(index) ? pixels[index] : 0;
+    }
+
+    @Override
+    public int getRGB(int index) {
+        return getARGB(index) & 0xFFFFFF;
+    }
+
+    /**
+     * Sets the pixel at the given index to a packed color with transparency.
+     * @param index the target pixel
+     * @param argb packed 0xAARRGGBB color
+     */
+    public void setARGB(int index, int argb) {
+        if (checkValidIndex(index) && pixels[index] != argb) {
+            pixels[index] = argb;
+            version++;
+            if ((argb >>> 24) != 0) {
+                transparent = false;
+            }
+        }
+    }
+
+    /**
+     * Sets the pixel at the given coordinate to a packed color with transparency.
+     * @param x the target pixel x
+     * @param y the target pixel y
+     * @param argb packed 0xAARRGGBB color
+     */
+    public void setARGB(int x, int y, int argb) {
+        if (checkX(x) && checkY(y)) {
+            setARGB(y * numCols + x, argb);
+        }
+    }
+
+    /**
+     * Sets all the pixels in the given range to a packed color with transparency.
+     * @param startIndex start pixel
+     * @param endIndex end pixel (exclusive)
+     * @param argb packed 0xAARRGGBB color
+     */
+    public void fillARGB(int startIndex, int endIndex, int argb) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
+        for (int i = startIndex; i < endIndex; i++) {
+            if (pixels[i] != argb) {
+                Arrays.fill(pixels, i, endIndex, argb);
+                version++;
+                if ((argb >>> 24) != 0) {
+                    transparent = false;
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void fill(int startIndex, int endIndex, int rgb) {
+        fillARGB(startIndex, endIndex, 0xFF000000 | rgb);
+    }
+
+    @Override
+    public void blit(int[] colors, int colorsIndex, int destIndex, int count) {
+        if (destIndex < 0) {
+            colorsIndex -= destIndex;
+            count += destIndex;
+            destIndex = 0;
+        }
+        count = Math.min(count, length - destIndex);
+        for (int k = 0; k < count; k++) {
+            pixels[destIndex + k] = 0xFF000000 | (colors[colorsIndex + k] & 0xFFFFFF);
+        }
+        if (count > 0) {
+            version++;
+            transparent = false;
+        }
+    }
+
+    /**
+     * Copies a run of pixels, transparency included, see {@link LEDReadableStripInterface#copy(int, int, int)}.
+     */
+    @Override
+    public void copy(int srcIndex, int destIndex, int count) {
+        if (srcIndex < 0) {
+            destIndex -= srcIndex;
+            count += srcIndex;
+            srcIndex = 0;
+        }
+        if (destIndex < 0) {
+            srcIndex -= destIndex;
+            count += destIndex;
+            destIndex = 0;
+        }
+        count = Math.min(count, length - Math.max(srcIndex, destIndex));
+        if (count > 0) {
+            System.arraycopy(pixels, srcIndex, pixels, destIndex, count);
+            version++;
+        }
+    }
+
+    @Override
+    public void reverse(int startIndex, int endIndex) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
+        for (int i = startIndex, j = endIndex - 1; i < j; i++, j--) {
+            final int argb = pixels[i];
+            pixels[i] = pixels[j];
+            pixels[j] = argb;
+        }
+        if (endIndex - startIndex > 1) {
+            version++;
+        }
+    }
+
+    /**
+     * Moves the pixels in the given range, leaving fully transparent pixels behind, see
+     * {@link LEDReadableStripInterface#shift(int, int, int)}.
+     */
+    @Override
+    public void shift(int startIndex, int endIndex, int amount) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
+        final int count = endIndex - startIndex;
+        if (count <= 0 || amount == 0) {
+            return;
+        }
+        if (Math.abs(amount) >= count) {
+            fillARGB(startIndex, endIndex, 0);
+        } else if (amount > 0) {
+            copy(startIndex, startIndex + amount, count - amount);
+            fillARGB(startIndex, startIndex + amount, 0);
+        } else {
+            copy(startIndex - amount, startIndex, count + amount);
+            fillARGB(endIndex + amount, endIndex, 0);
+        }
+    }
+
+    /**
+     * Copies this buffer onto the given LEDs, ignoring transparency.
+     * @param leds the target LEDs, with the same shape as this buffer
+     */
+    public void copyTo(LEDStripInterface leds) {
+        writeFrame(pixels, numRows, numCols, leds);
+    }
+
+    /**
+     * Writes a frame of packed colors in row major order onto the given LEDs.  Bits above 0xFFFFFF are ignored.
+     * @param frame the colors, indexed by y * cols + x
+     * @param numRows number of rows in the frame
+     * @param numCols number of columns in the frame
+     * @param leds the target LEDs
+     */
+    static void writeFrame(int[] frame, int numRows, int numCols, LEDStripInterface leds) {
+        final int length = numRows * numCols;
+        if (leds instanceof LEDStrip strip) {
+            for (int i = 0; i < length; i++) {
+                strip.setPixel(i, frame[i] & 0xFFFFFF);
+            }
+        } else if (leds instanceof LEDMatrixSegment segment) {
+            for (int i = 0; i < length; i++) {
+                segment.setPixel(i, frame[i] & 0xFFFFFF);
+            }
+        } else if (leds instanceof LEDMatrixInterface matrix) {
+            for (int y = 0, i = 0; y < numRows; y++) {
+                for (int x = 0; x < numCols; x++, i++) {
+                    final int rgb = frame[i];
+                    matrix.setRGB(x, y, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+                }
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                final int rgb = frame[i];
+                leds.setRGB(i, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+            }
+        }
+    }
+
+    @Override
+    public void setHue(int x, int y, int hue) {
+        setHSV(x, y, hue, 255, hueTarget == null ? 255 : hueValueOf(hueTarget));
+    }
+
+    @Override
+    public void setHue(int index, int hue) {
+        setHSV(index, hue, 255, hueTarget == null ? 255 : hueValueOf(hueTarget));
+    }
+
+    @Override
+    public void setHSV(int x, int y, int hue, int sat, int val) {
+        setARGB(x, y, 0xFF000000 | LEDStrip.hsvToRGB(hue, sat, val));
+    }
+
+    @Override
+    public void setHSV(int index, int hue, int sat, int val) {
+        setARGB(index, 0xFF000000 | LEDStrip.hsvToRGB(hue, sat, val));
+    }
+
+    @Override
+    public void setRGB(int x, int y, int r, int g, int b) {
+        setARGB(x, y, 0xFF000000 | ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF));
+    }
+
+    @Override
+    public void setRGB(int index, int r, int g, int b) {
+        setARGB(index, 0xFF000000 | ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF));
+    }
+
+    @Override
+    public boolean setMatrixHSV(Mat matrix) {
+        return setMatrix(matrix, true);
+    }
+
+    @Override
+    public boolean setMatrixRGB(Mat matrix) {
+        return setMatrix(matrix, false);
+    }
+
+    private boolean setMatrix(Mat matrix, boolean hsv) {
+        if (!checkMatrix(matrix)) {
+            return false;
+        }
+
+        if (matBytes == null) {
+            matBytes = new byte[length * 3];
+        }
+        // Reads the whole Mat in one call, OpenCV copies it row by row if it isn't continuous (like a submat)
+        matrix.get(0, 0, matBytes);
+        final byte[] bytes = matBytes;
+
+        for (int i = 0, j = 0; i < length; i++, j += 3) {
+            final int a = bytes[j] & 0xFF, b = bytes[j + 1] & 0xFF, c = bytes[j + 2] & 0xFF;
+            setARGB(i, 0xFF000000 | (hsv ? LEDStrip.hsvToRGB(a, b, c) : (a << 16) | (b << 8) | c));
+        }
+        return true;
+    }
+
+    /**
+     * Clears the buffer to fully transparent.
+     */
+    @Override
+    public void off() {
+        if (version != clearedVersion) {
+            Arrays.fill(pixels, 0);
+            transparent = true;
+            clearedVersion = ++version;
+        }
+    }
+}
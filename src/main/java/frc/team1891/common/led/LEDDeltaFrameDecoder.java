@@ -0,0 +1,204 @@
+package frc.team1891.common.led;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Decodes frames written by {@link LEDDeltaFrameEncoder}: keyframes, followed by frames that only store the pixels
+ * that changed, with runs of one color stored once.
+ *
+ * <p>Playing forward only applies each frame's changes, so decoding costs time in proportion to the pixels that
+ * changed rather than the size of the matrix.  Jumping backwards (like when looping) restarts from the closest
+ * keyframe.  Only the positions of the keyframes are kept in memory.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDDeltaFrameDecoder implements LEDFrameDecoder {
+    private final ByteBuffer data;
+    private final int numRows, numCols;
+    private final int length;
+    private final int frameCount;
+    // Frame number and byte offset of each keyframe
+    private final int[] keyframes;
+    private final int[] keyframeOffsets;
+    // The colors of the palette, or null if colors are stored as RGB
+    private final int[] palette;
+
+    // The last frame decoded, and the offset of the frame after it
+    private int currentFrame = -1;
+    private int nextOffset;
+    // Where the next byte is read from
+    private int position;
+
+    /**
+     * Creates a new {@link LEDDeltaFrameDecoder} reading the given frames.
+     * @param data encoded frames
+     * @param numRows number of rows in each frame
+     * @param numCols number of columns in each frame
+     */
+    public LEDDeltaFrameDecoder(ByteBuffer data, int numRows, int numCols) {
+        this(data, numRows, numCols, null);
+    }
+
+    /**
+     * Creates a new {@link LEDDeltaFrameDecoder} reading frames that store colors as indices into a palette.
+     * @param data encoded frames
+     * @param numRows number of rows in each frame
+     * @param numCols number of columns in each frame
+     * @param palette the colors, packed 0xRRGGBB, or null if colors are stored as RGB
+     */
+    public LEDDeltaFrameDecoder(ByteBuffer data, int numRows, int numCols, int[] palette) {
+        this.data = data.slice();
+        this.palette = palette;
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.length = numRows * numCols;
+
+        // Find the keyframes, skipping over the contents of every frame
+        int[] foundKeyframes = new int[8];
+        int[] foundOffsets = new int[8];
+        int keyframeCount = 0;
+        int frames = 0;
+        position = 0;
+        while (position < this.data.limit()) {
+            final int offset = position;
+            final int type = this.data.get(position++);
+            final int size = readVarInt();
+            if (type == LEDDeltaFrameEncoder.KEYFRAME) {
+                if (keyframeCount == foundKeyframes.length) {
+                    foundKeyframes = Arrays.copyOf(foundKeyframes, keyframeCount * 2);
+                    foundOffsets = Arrays.copyOf(foundOffsets, keyframeCount * 2);
+                }
+                foundKeyframes[keyframeCount] = frames;
+                foundOffsets[keyframeCount] = offset;
+                keyframeCount++;
+            } else if (type != LEDDeltaFrameEncoder.DELTA_FRAME) {
+                throw new IllegalArgumentException("Unknown frame type " + type + " at byte " + offset);
+            }
+            position += size;
+            frames++;
+        }
+        if (frames > 0 && (keyframeCount == 0 || foundKeyframes[0] != 0)) {
+            throw new IllegalArgumentException("The first frame must be a keyframe");
+        }
+        this.frameCount = frames;
+        this.keyframes = Arrays.copyOf(foundKeyframes, keyframeCount);
+        this.keyframeOffsets = Arrays.copyOf(foundOffsets, keyframeCount);
+    }
+
+    /**
+     * Memory maps a file of encoded frames.
+     * @param file the file, e.g. in the deploy directory
+     * @param numRows number of rows in each frame
+     * @param numCols number of columns in each frame
+     * @return the decoder
+     * @throws IOException if the file can't be read
+     */
+    public static LEDDeltaFrameDecoder open(Path file, int numRows, int numCols) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new LEDDeltaFrameDecoder(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), numRows, numCols);
+        }
+    }
+
+    @Override
+    public int rows() {
+        return numRows;
+    }
+
+    @Override
+    public int cols() {
+        return numCols;
+    }
+
+    @Override
+    public int frameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public int decode(int frameIndex, int[] frame, int[] changed) {
+        if (frameIndex == currentFrame + 1) {
+            return decodeNext(frame, changed);
+        }
+
+        // Start from the closest keyframe, unless the last frame decoded is closer
+        int k = Arrays.binarySearch(keyframes, frameIndex);
+        if (k < 0) {
+            k = -k - 2;
+        }
+        if (keyframes[k] > currentFrame || frameIndex <= currentFrame) {
+            currentFrame = keyframes[k] - 1;
+            nextOffset = keyframeOffsets[k];
+        }
+        while (currentFrame < frameIndex) {
+            decodeNext(frame, null);
+        }
+        return ALL_CHANGED;
+    }
+
+    /**
+     * Applies the frame after the current one.
+     * @param frame the current frame
+     * @param changed filled with the changed pixels, or null to not track them
+     * @return the number of changed pixels, or {@link #ALL_CHANGED} for a keyframe
+     */
+    private int decodeNext(int[] frame, int[] changed) {
+        position = nextOffset;
+        final boolean keyframe = data.get(position++) == LEDDeltaFrameEncoder.KEYFRAME;
+        final int size = readVarInt();
+        final int end = position + size;
+        if (keyframe) {
+            // Keyframes leave out black pixels
+            Arrays.fill(frame, 0, length, 0);
+            changed = null;
+        }
+
+        int changedCount = 0;
+        int pixel = 0;
+        while (position < end) {
+            pixel += readVarInt();
+            final int header = readVarInt();
+            final int count = header >>> 1;
+            if ((header & 1) == LEDDeltaFrameEncoder.RUN) {
+                Arrays.fill(frame, pixel, pixel + count, readColor());
+            } else {
+                for (int i = 0; i < count; i++) {
+                    frame[pixel + i] = readColor();
+                }
+            }
+            if (changed != null) {
+                for (int i = 0; i < count; i++) {
+                    changed[changedCount++] = pixel + i;
+                }
+            }
+            pixel += count;
+        }
+
+        currentFrame++;
+        nextOffset = end;
+        return keyframe ? ALL_CHANGED : changedCount;
+    }
+
+    private int readColor() {
+        if (palette != null) {
+            return palette[data.get(position++) & 0xFF];
+        }
+        final int rgb = ((data.get(position) & 0xFF) << 16) | ((data.get(position + 1) & 0xFF) << 8) | (data.get(position + 2) & 0xFF);
+        position += 3;
+        return rgb;
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            final int b = data.get(position++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
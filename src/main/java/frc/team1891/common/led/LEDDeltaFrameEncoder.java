@@ -0,0 +1,169 @@
+package frc.team1891.common.led;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes animation frames for {@link LEDDeltaFrameDecoder}.
+ *
+ * <p>Every frame is a keyframe or a delta frame: a type byte and the size of the frame, then a list of spans.  Each
+ * span skips some pixels from the end of the last span, then sets a run of pixels either to one color (a run) or to
+ * one color each (a literal).  Keyframes start from black, delta frames from the frame before, so a delta frame only
+ * stores the pixels that changed.  Numbers are stored as unsigned LEB128 variable length integers and colors as 3
+ * bytes of RGB, or as 1 byte indices when the animation has a palette.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDDeltaFrameEncoder {
+    static final int KEYFRAME = 0;
+    static final int DELTA_FRAME = 1;
+    // The low bit of each span's length says whether it is a run or a literal
+    static final int LITERAL = 0;
+    static final int RUN = 1;
+
+    private final int length;
+    private final int keyframeInterval;
+    // The last frame added, or all black before a keyframe
+    private final int[] previous;
+    // Palette index of each color, or null to store colors as RGB
+    private final Map<Integer, Integer> paletteIndices;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream frameBytes = new ByteArrayOutputStream();
+    private int frameCount = 0;
+
+    /**
+     * Creates a new {@link LEDDeltaFrameEncoder}.
+     * @param numRows number of rows in each frame
+     * @param numCols number of columns in each frame
+     * @param keyframeInterval a keyframe is written every this many frames, so looping and seeking don't have to
+     *                         replay the whole animation
+     */
+    public LEDDeltaFrameEncoder(int numRows, int numCols, int keyframeInterval) {
+        this(numRows, numCols, keyframeInterval, null);
+    }
+
+    /**
+     * Creates a new {@link LEDDeltaFrameEncoder} that stores colors as indices into a palette.
+     * @param numRows number of rows in each frame
+     * @param numCols number of columns in each frame
+     * @param keyframeInterval a keyframe is written every this many frames
+     * @param palette up to 256 colors, packed 0xRRGGBB, that every frame is made of, or null to store colors as RGB
+     */
+    public LEDDeltaFrameEncoder(int numRows, int numCols, int keyframeInterval, int[] palette) {
+        this.length = numRows * numCols;
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.previous = new int[length];
+        if (palette != null) {
+            if (palette.length > 256) {
+                throw new IllegalArgumentException("A palette can have at most 256 colors, got " + palette.length);
+            }
+            paletteIndices = new HashMap<>();
+            for (int i = 0; i < palette.length; i++) {
+                paletteIndices.putIfAbsent(palette[i] & 0xFFFFFF, i);
+            }
+        } else {
+            paletteIndices = null;
+        }
+    }
+
+    /**
+     * Adds the next frame to the animation.
+     * @param frame the frame, packed 0xRRGGBB indexed by y * cols + x
+     */
+    public void addFrame(int[] frame) {
+        if (frame.length < length) {
+            throw new IllegalArgumentException("Expected a frame of " + length + " pixels, got " + frame.length);
+        }
+        final boolean keyframe = frameCount % keyframeInterval == 0;
+        if (keyframe) {
+            Arrays.fill(previous, 0);
+        }
+
+        frameBytes.reset();
+        int spanEnd = 0;
+        int i = 0;
+        while (i < length) {
+            if (frame[i] == previous[i]) {
+                i++;
+                continue;
+            }
+            int count = 1;
+            while (i + count < length && frame[i + count] != previous[i + count] && frame[i + count] == frame[i]) {
+                count++;
+            }
+            if (count > 1) {
+                writeVarInt(frameBytes, i - spanEnd);
+                writeVarInt(frameBytes, (count << 1) | RUN);
+                writeColor(frame[i]);
+            } else {
+                // Extend the literal until a pixel is unchanged, or a run starts
+                while (i + count < length && frame[i + count] != previous[i + count]
+                        && !(i + count + 1 < length && frame[i + count + 1] != previous[i + count + 1]
+                            && frame[i + count + 1] == frame[i + count])) {
+                    count++;
+                }
+                writeVarInt(frameBytes, i - spanEnd);
+                writeVarInt(frameBytes, (count << 1) | LITERAL);
+                for (int j = i; j < i + count; j++) {
+                    writeColor(frame[j]);
+                }
+            }
+            i += count;
+            spanEnd = i;
+        }
+        System.arraycopy(frame, 0, previous, 0, length);
+
+        out.write(keyframe ? KEYFRAME : DELTA_FRAME);
+        writeVarInt(out, frameBytes.size());
+        out.writeBytes(frameBytes.toByteArray());
+        frameCount++;
+    }
+
+    /**
+     * @return the number of frames added
+     */
+    public int frameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return the encoded frames
+     */
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the encoded frames to a stream.
+     * @param stream the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    public void writeTo(OutputStream stream) throws IOException {
+        out.writeTo(stream);
+    }
+
+    static void writeVarInt(ByteArrayOutputStream stream, int value) {
+        while ((value & ~0x7F) != 0) {
+            stream.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        stream.write(value);
+    }
+
+    private void writeColor(int rgb) {
+        if (paletteIndices != null) {
+            final Integer index = paletteIndices.get(rgb & 0xFFFFFF);
+            if (index == null) {
+                throw new IllegalArgumentException(String.format("Color 0x%06X isn't in the palette", rgb & 0xFFFFFF));
+            }
+            frameBytes.write(index);
+        } else {
+            frameBytes.write(rgb >> 16);
+            frameBytes.write(rgb >> 8);
+            frameBytes.write(rgb);
+        }
+    }
+}
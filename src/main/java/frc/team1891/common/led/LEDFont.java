@@ -0,0 +1,167 @@
+package frc.team1891.common.led;
+
+/**
+ * A bitmap font for drawing text on LED matrices with {@link LEDMatrixText}.
+ *
+ * <p>Each glyph is at most 8x8 and packed into a single long, one byte per row from the top, with bit x of each row
+ * the pixel x columns from the left.  Glyphs are proportional: each is as wide as its widest row.</p>
+ */
+@SuppressWarnings("unused")
+public final class LEDFont {
+    // The classic 5x7 LCD font for ' ' to '~', five columns per glyph with bit y of each column the pixel y rows down
+    private static final byte[] COLUMNS_5X7 = {
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x5F, 0x00, 0x00, 0x00, 0x07, 0x00, 0x07, 0x00, // ' ' ! "
+        0x14, 0x7F, 0x14, 0x7F, 0x14, 0x24, 0x2A, 0x7F, 0x2A, 0x12, 0x23, 0x13, 0x08, 0x64, 0x62, // # $ %
+        0x36, 0x49, 0x55, 0x22, 0x50, 0x00, 0x05, 0x03, 0x00, 0x00, 0x00, 0x1C, 0x22, 0x41, 0x00, // & ' (
+        0x00, 0x41, 0x22, 0x1C, 0x00, 0x08, 0x2A, 0x1C, 0x2A, 0x08, 0x08, 0x08, 0x3E, 0x08, 0x08, // ) * +
+        0x00, 0x50, 0x30, 0x00, 0x00, 0x08, 0x08, 0x08, 0x08, 0x08, 0x00, 0x60, 0x60, 0x00, 0x00, // , - .
+        0x20, 0x10, 0x08, 0x04, 0x02, 0x3E, 0x51, 0x49, 0x45, 0x3E, 0x00, 0x42, 0x7F, 0x40, 0x00, // / 0 1
+        0x42, 0x61, 0x51, 0x49, 0x46, 0x21, 0x41, 0x45, 0x4B, 0x31, 0x18, 0x14, 0x12, 0x7F, 0x10, // 2 3 4
+        0x27, 0x45, 0x45, 0x45, 0x39, 0x3C, 0x4A, 0x49, 0x49, 0x30, 0x01, 0x71, 0x09, 0x05, 0x03, // 5 6 7
+        0x36, 0x49, 0x49, 0x49, 0x36, 0x06, 0x49, 0x49, 0x29, 0x1E, 0x00, 0x36, 0x36, 0x00, 0x00, // 8 9 :
+        0x00, 0x56, 0x36, 0x00, 0x00, 0x08, 0x14, 0x22, 0x41, 0x00, 0x14, 0x14, 0x14, 0x14, 0x14, // ; < =
+        0x00, 0x41, 0x22, 0x14, 0x08, 0x02, 0x01, 0x51, 0x09, 0x06, 0x32, 0x49, 0x79, 0x41, 0x3E, // > ? @
+        0x7E, 0x11, 0x11, 0x11, 0x7E, 0x7F, 0x49, 0x49, 0x49, 0x36, 0x3E, 0x41, 0x41, 0x41, 0x22, // A B C
+        0x7F, 0x41, 0x41, 0x22, 0x1C, 0x7F, 0x49, 0x49, 0x49, 0x41, 0x7F, 0x09, 0x09, 0x01, 0x01, // D E F
+        0x3E, 0x41, 0x41, 0x51, 0x32, 0x7F, 0x08, 0x08, 0x08, 0x7F, 0x00, 0x41, 0x7F, 0x41, 0x00, // G H I
+        0x20, 0x40, 0x41, 0x3F, 0x01, 0x7F, 0x08, 0x14, 0x22, 0x41, 0x7F, 0x40, 0x40, 0x40, 0x40, // J K L
+        0x7F, 0x02, 0x04, 0x02, 0x7F, 0x7F, 0x04, 0x08, 0x10, 0x7F, 0x3E, 0x41, 0x41, 0x41, 0x3E, // M N O
+        0x7F, 0x09, 0x09, 0x09, 0x06, 0x3E, 0x41, 0x51, 0x21, 0x5E, 0x7F, 0x09, 0x19, 0x29, 0x46, // P Q R
+        0x46, 0x49, 0x49, 0x49, 0x31, 0x01, 0x01, 0x7F, 0x01, 0x01, 0x3F, 0x40, 0x40, 0x40, 0x3F, // S T U
+        0x1F, 0x20, 0x40, 0x20, 0x1F, 0x7F, 0x20, 0x18, 0x20, 0x7F, 0x63, 0x14, 0x08, 0x14, 0x63, // V W X
+        0x03, 0x04, 0x78, 0x04, 0x03, 0x61, 0x51, 0x49, 0x45, 0x43, 0x00, 0x7F, 0x41, 0x41, 0x00, // Y Z [
+        0x02, 0x04, 0x08, 0x10, 0x20, 0x00, 0x41, 0x41, 0x7F, 0x00, 0x04, 0x02, 0x01, 0x02, 0x04, // \ ] ^
+        0x40, 0x40, 0x40, 0x40, 0x40, 0x00, 0x01, 0x02, 0x04, 0x00, 0x20, 0x54, 0x54, 0x54, 0x78, // _ ` a
+        0x7F, 0x48, 0x44, 0x44, 0x38, 0x38, 0x44, 0x44, 0x44, 0x20, 0x38, 0x44, 0x44, 0x48, 0x7F, // b c d
+        0x38, 0x54, 0x54, 0x54, 0x18, 0x08, 0x7E, 0x09, 0x01, 0x02, 0x08, 0x14, 0x54, 0x54, 0x3C, // e f g
+        0x7F, 0x08, 0x04, 0x04, 0x78, 0x00, 0x44, 0x7D, 0x40, 0x00, 0x20, 0x40, 0x44, 0x3D, 0x00, // h i j
+        0x00, 0x7F, 0x10, 0x28, 0x44, 0x00, 0x41, 0x7F, 0x40, 0x00, 0x7C, 0x04, 0x18, 0x04, 0x78, // k l m
+        0x7C, 0x08, 0x04, 0x04, 0x78, 0x38, 0x44, 0x44, 0x44, 0x38, 0x7C, 0x14, 0x14, 0x14, 0x08, // n o p
+        0x08, 0x14, 0x14, 0x18, 0x7C, 0x7C, 0x08, 0x04, 0x04, 0x08, 0x48, 0x54, 0x54, 0x54, 0x20, // q r s
+        0x04, 0x3F, 0x44, 0x40, 0x20, 0x3C, 0x40, 0x40, 0x20, 0x7C, 0x1C, 0x20, 0x40, 0x20, 0x1C, // t u v
+        0x3C, 0x40, 0x30, 0x40, 0x3C, 0x44, 0x28, 0x10, 0x28, 0x44, 0x0C, 0x50, 0x50, 0x50, 0x3C, // w x y
+        0x44, 0x64, 0x54, 0x4C, 0x44, 0x00, 0x08, 0x36, 0x41, 0x00, 0x00, 0x00, 0x7F, 0x00, 0x00, // z { |
+        0x00, 0x41, 0x36, 0x08, 0x00, 0x08, 0x04, 0x08, 0x10, 0x08                                // } ~
+    };
+
+    /** A 5x7 font of the printable ASCII characters, with a column between glyphs. */
+    public static final LEDFont FONT_5X7 = fromColumns(' ', 7, 5, COLUMNS_5X7, 1);
+
+    private final char first;
+    private final int height;
+    private final int spacing;
+    private final long[] glyphs;
+    private final byte[] widths;
+
+    /**
+     * Creates a new {@link LEDFont}.
+     * @param first the character of the first glyph, the rest following in order
+     * @param height the height of every glyph [1, 8]
+     * @param glyphs each glyph packed into a long, one byte per row from the top with bit x the pixel x columns from
+     *               the left.  An empty glyph is a space a third as wide as the height.
+     * @param spacing the number of blank columns after each glyph
+     */
+    public LEDFont(char first, int height, long[] glyphs, int spacing) {
+        if (height < 1 || height > 8) {
+            throw new IllegalArgumentException("Glyphs must be 1 to 8 rows tall, not " + height);
+        }
+        this.first = first;
+        this.height = height;
+        this.spacing = spacing;
+        this.glyphs = glyphs.clone();
+        widths = new byte[glyphs.length];
+        for (int i = 0; i < glyphs.length; i++) {
+            long rows = 0;
+            for (int y = 0; y < 8; y++) {
+                rows |= (glyphs[i] >>> (8 * y)) & 0xFF;
+            }
+            widths[i] = (byte) (rows == 0 ? Math.max(1, height / 3) : 64 - Long.numberOfLeadingZeros(rows));
+        }
+    }
+
+    /**
+     * Creates a font from glyphs stored column by column, like most LCD fonts, trimming blank columns on either side
+     * of each glyph.
+     */
+    private static LEDFont fromColumns(char first, int height, int width, byte[] columns, int spacing) {
+        final long[] glyphs = new long[columns.length / width];
+        for (int i = 0; i < glyphs.length; i++) {
+            int left = 0;
+            while (left < width && columns[i * width + left] == 0) {
+                left++;
+            }
+            long glyph = 0;
+            for (int x = left; x < width; x++) {
+                final int column = columns[i * width + x];
+                for (int y = 0; y < height; y++) {
+                    if ((column & (1 << y)) != 0) {
+                        glyph |= 1L << (8 * y + x - left);
+                    }
+                }
+            }
+            glyphs[i] = glyph;
+        }
+        return new LEDFont(first, height, glyphs, spacing);
+    }
+
+    /**
+     * @return the height of every glyph
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns the glyph of a character, or of '?' if the font doesn't have one.
+     * @param c the character
+     * @return the glyph, one byte per row from the top
+     */
+    public long glyph(char c) {
+        return glyphs[indexOf(c)];
+    }
+
+    /**
+     * Returns how far the next character starts after this one.
+     * @param c the character
+     * @return the width of its glyph, plus the spacing
+     */
+    public int advance(char c) {
+        return widths[indexOf(c)] + spacing;
+    }
+
+    /**
+     * Returns how wide a line of text is, including the spacing after the last character.
+     * @param text the text
+     * @return the width in columns
+     */
+    public int width(CharSequence text) {
+        int width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            width += advance(text.charAt(i));
+        }
+        return width;
+    }
+
+    /**
+     * Returns one column of a glyph.
+     * @param glyph the glyph
+     * @param x the column, from the left
+     * @return the column, with bit y the pixel y rows down
+     */
+    static int column(long glyph, int x) {
+        // Gathers bit x of each row byte
+        final long bits = (glyph >>> x) & 0x0101010101010101L;
+        return (int) ((bits * 0x0102040810204080L) >>> 56);
+    }
+
+    private int indexOf(char c) {
+        int index = c - first;
+        if (index < 0 || index >= glyphs.length) {
+            index = '?' - first;
+            if (index < 0 || index >= glyphs.length) {
+                index = 0;
+            }
+        }
+        return index;
+    }
+}
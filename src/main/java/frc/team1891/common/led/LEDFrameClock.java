@@ -0,0 +1,140 @@
+package frc.team1891.common.led;
+
+/**
+ * The time base for animated LED patterns.
+ *
+ * <p>The time is sampled once per frame, when {@link #tick()} is called, and every pattern drawn during a frame sees
+ * the same time.  Patterns animate by this time rather than by how many times they are drawn, so they run at the same
+ * speed no matter the loop rate.  Tick the default clock once at the start of each robot loop, before any pattern is
+ * drawn:</p>
+ * <pre>{@code
+ * public void robotPeriodic() {
+ *     LEDFrameClock.getDefault().tick();
+ *     scheduler.run();
+ *     // ...
+ * }
+ * }</pre>
+ *
+ * <p>Until a real time clock is first ticked it reads the system clock whenever it's asked, so patterns still animate
+ * if nothing ticks it, just without the guarantee of one time per frame.</p>
+ *
+ * <p>A {@link #manual()} clock only moves when {@link #advance(double)} is called, so patterns can be replayed
+ * deterministically and faster than real time, for example in tests:</p>
+ * <pre>{@code
+ * LEDFrameClock clock = LEDFrameClock.manual();
+ * LEDFrameClock.setDefault(clock);
+ * pattern.draw(leds);
+ * clock.advance(.02);
+ * pattern.draw(leds);
+ * }</pre>
+ */
+@SuppressWarnings("unused")
+public class LEDFrameClock {
+    private static volatile LEDFrameClock defaultClock = realTime();
+
+    // Whether ticking samples the system clock
+    private final boolean realTime;
+    private final long epochNanos;
+    // Time of the current frame, in nanoseconds since the clock was created
+    private volatile long frameNanos = 0;
+    // Whether the clock has been ticked; until it is, a real time clock reads the system clock directly
+    private volatile boolean ticked = false;
+    private volatile long frameCount = 0;
+
+    private LEDFrameClock(boolean realTime) {
+        this.realTime = realTime;
+        this.epochNanos = System.nanoTime();
+    }
+
+    /**
+     * Creates a clock that follows the system clock, sampled on each {@link #tick()}.
+     * @return the new clock
+     */
+    public static LEDFrameClock realTime() {
+        return new LEDFrameClock(true);
+    }
+
+    /**
+     * Creates a clock that starts at zero and only moves when {@link #advance(double)} is called.
+     * @return the new clock
+     */
+    public static LEDFrameClock manual() {
+        return new LEDFrameClock(false);
+    }
+
+    /**
+     * @return the clock used by patterns
+     */
+    public static LEDFrameClock getDefault() {
+        return defaultClock;
+    }
+
+    /**
+     * Replaces the clock used by patterns.
+     * @param clock the new clock
+     */
+    public static void setDefault(LEDFrameClock clock) {
+        defaultClock = clock;
+    }
+
+    /**
+     * Starts a new frame, sampling the system clock if this is a real time clock.
+     */
+    public void tick() {
+        ticked = true;
+        if (realTime) {
+            frameNanos = System.nanoTime() - epochNanos;
+        }
+        frameCount++;
+    }
+
+    /**
+     * Moves a manual clock forward and starts a new frame.  Does nothing to a real time clock.
+     * @param seconds how far to move the clock
+     */
+    public void advance(double seconds) {
+        if (!realTime) {
+            frameNanos += (long) (seconds * 1e9);
+            frameCount++;
+        }
+    }
+
+    /**
+     * @return the time of the current frame, in seconds since the clock was created
+     */
+    public double getTime() {
+        return getTimeNanos() / 1e9;
+    }
+
+    /**
+     * @return the time of the current frame, in milliseconds since the clock was created
+     */
+    public long getTimeMillis() {
+        return getTimeNanos() / 1_000_000;
+    }
+
+    /**
+     * @return the time of the current frame, in nanoseconds since the clock was created
+     */
+    public long getTimeNanos() {
+        return realTime && !ticked ? System.nanoTime() - epochNanos : frameNanos;
+    }
+
+    /**
+     * @return the number of frames started
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns whether something flashing on the given interval is in its first half, like
+     * {@link LEDStripInterface#flashAllRGB}.
+     * @param timeInterval the interval to flash in seconds
+     * @return true for the first interval of each pair
+     */
+    public boolean isFirstHalf(double timeInterval) {
+        final long intervalNanos = (long) (timeInterval * 1e9);
+        return intervalNanos <= 0 || getTimeNanos() % (2 * intervalNanos) < intervalNanos;
+    }
+}
@@ -0,0 +1,36 @@
+package frc.team1891.common.led;
+
+/**
+ * A source of animation frames for {@link LEDMatrixPattern.AnimatedLEDMatrixPattern}, decoded one at a time into a
+ * reusable frame so memory use doesn't grow with the length of the animation.
+ */
+@SuppressWarnings("unused")
+public interface LEDFrameDecoder {
+    /** Returned by {@link #decode} when the whole frame should be redrawn. */
+    int ALL_CHANGED = -1;
+
+    /**
+     * @return number of rows in each frame
+     */
+    int rows();
+
+    /**
+     * @return number of columns in each frame
+     */
+    int cols();
+
+    /**
+     * @return number of frames in the animation
+     */
+    int frameCount();
+
+    /**
+     * Decodes a frame into the given frame, which holds the last frame decoded by this decoder (or anything, the first
+     * time or after skipping around).
+     * @param frameIndex the frame to decode [0, {@link #frameCount()})
+     * @param frame the frame to decode into, packed 0xRRGGBB indexed by y * cols + x
+     * @param changed filled with the index of each pixel that changed, at least rows * cols long
+     * @return the number of changed pixels, or {@link #ALL_CHANGED}
+     */
+    int decode(int frameIndex, int[] frame, int[] changed);
+}
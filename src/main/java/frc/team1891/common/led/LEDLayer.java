@@ -0,0 +1,160 @@
+package frc.team1891.common.led;
+
+/**
+ * A single layer of an {@link LEDLayerStack}: a pattern drawn into its own off-screen {@link LEDBuffer}, then blended
+ * onto the layers below it.
+ */
+@SuppressWarnings("unused")
+public class LEDLayer {
+    /** How a layer's colors are combined with the layers below it. */
+    public enum BlendMode {
+        /** Covers the layers below, by the layer's alpha. */
+        NORMAL,
+        /** Adds to the layers below, clamping at full brightness. */
+        ADD,
+        /** Multiplies the layers below, darkening them. */
+        MULTIPLY,
+        /** Keeps the brighter of this layer and the layers below, per channel. */
+        MAX
+    }
+
+    /** Draws into a layer's buffer, see {@link LEDStripPattern#draw} and {@link LEDMatrixPattern#draw}. */
+    @FunctionalInterface
+    interface Drawer {
+        void draw(LEDBuffer buffer);
+    }
+
+    private final Drawer drawer;
+    final LEDBuffer buffer;
+    private final int zOrder;
+    private BlendMode blendMode = BlendMode.NORMAL;
+    private int opacity = 255;
+    private boolean enabled = true;
+    // Incremented whenever a setting that changes how the layer is blended changes
+    private long settingsVersion = 0;
+
+    /**
+     * Creates a new {@link LEDLayer} drawing an {@link LEDStripPattern}.
+     * @param length number of LEDs
+     * @param zOrder layers with a higher z order are drawn on top
+     * @param pattern the pattern to draw
+     */
+    public LEDLayer(int length, int zOrder, LEDStripPattern pattern) {
+        this(new LEDBuffer(length), zOrder, pattern::draw);
+    }
+
+    /**
+     * Creates a new {@link LEDLayer} drawing an {@link LEDMatrixPattern}.
+     * @param numRows number of rows
+     * @param numCols number of columns
+     * @param zOrder layers with a higher z order are drawn on top
+     * @param pattern the pattern to draw
+     */
+    public LEDLayer(int numRows, int numCols, int zOrder, LEDMatrixPattern pattern) {
+        this(new LEDBuffer(numRows, numCols), zOrder, pattern::draw);
+    }
+
+    private LEDLayer(LEDBuffer buffer, int zOrder, Drawer drawer) {
+        this.buffer = buffer;
+        this.zOrder = zOrder;
+        this.drawer = drawer;
+    }
+
+    /**
+     * Draws the layer's pattern into its buffer.
+     */
+    void draw() {
+        drawer.draw(buffer);
+    }
+
+    /**
+     * @return the z order, layers with a higher z order are drawn on top
+     */
+    public int getZOrder() {
+        return zOrder;
+    }
+
+    /**
+     * @return the off-screen buffer this layer's pattern draws into
+     */
+    public LEDBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Sets how this layer is combined with the layers below it.
+     * @param blendMode the blend mode
+     * @return this layer
+     */
+    public LEDLayer setBlendMode(BlendMode blendMode) {
+        if (this.blendMode != blendMode) {
+            this.blendMode = blendMode;
+            settingsVersion++;
+        }
+        return this;
+    }
+
+    /**
+     * @return how this layer is combined with the layers below it
+     */
+    public BlendMode getBlendMode() {
+        return blendMode;
+    }
+
+    /**
+     * Sets the opacity of the whole layer, multiplied with the alpha of each pixel.
+     * @param opacity [0, 255] where 0 hides the layer
+     * @return this layer
+     */
+    public LEDLayer setOpacity(int opacity) {
+        opacity = Math.max(0, Math.min(255, opacity));
+        if (this.opacity != opacity) {
+            this.opacity = opacity;
+            settingsVersion++;
+        }
+        return this;
+    }
+
+    /**
+     * @return the opacity of the whole layer [0, 255]
+     */
+    public int getOpacity() {
+        return opacity;
+    }
+
+    /**
+     * Shows or hides the layer.  Hidden layers aren't drawn.
+     * @param enabled true to show the layer
+     * @return this layer
+     */
+    public LEDLayer setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            settingsVersion++;
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the layer is shown
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns whether the layer has nothing to contribute to the frame.
+     * @return true if the layer is hidden, has zero opacity, or its buffer is fully transparent
+     */
+    boolean isInvisible() {
+        return !enabled || opacity == 0 || buffer.isTransparent();
+    }
+
+    /**
+     * Returns a number that changes whenever the layer's contents or blending change.
+     * @return the version of the layer
+     */
+    long getVersion() {
+        return buffer.getVersion() + settingsVersion;
+    }
+}
@@ -0,0 +1,184 @@
+package frc.team1891.common.led;
+
+import java.util.Arrays;
+
+/**
+ * Composites a stack of {@link LEDLayer}s onto an LED strip or matrix, so patterns like a status indicator can be
+ * drawn on top of a background animation instead of overwriting it.
+ *
+ * <p>Each frame, every shown layer draws into its own buffer, then all layers are blended bottom to top in a single
+ * pass over the pixels.  Hidden, fully transparent and zero opacity layers are skipped, and if no layer changed since
+ * the last frame the target isn't written at all.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDLayerStack {
+    private final LEDStripInterface target;
+    private final int numRows, numCols;
+    private final int length;
+    // The composited frame, packed 0xRRGGBB
+    private final int[] frame;
+
+    // All layers sorted by z order, and the version of each when it was last composited
+    private LEDLayer[] layers = new LEDLayer[0];
+    private long[] compositedVersions = new long[0];
+    private boolean layersChanged = true;
+
+    // Scratch arrays describing the visible layers of the current frame, sized to fit every layer
+    private int[][] visiblePixels = new int[0][];
+    private int[] visibleOpacities = new int[0];
+    private LEDLayer.BlendMode[] visibleModes = new LEDLayer.BlendMode[0];
+
+    /**
+     * Creates a new {@link LEDLayerStack} drawing onto the given LEDs.
+     * @param target the LEDs to draw onto
+     */
+    public LEDLayerStack(LEDStripInterface target) {
+        this.target = target;
+        if (target instanceof LEDMatrixInterface matrix) {
+            numRows = matrix.rows();
+            numCols = matrix.cols();
+        } else {
+            numRows = 1;
+            numCols = target.length();
+        }
+        length = numRows * numCols;
+        frame = new int[length];
+    }
+
+    /**
+     * Adds a layer to the stack.  The layer must have the same shape as the target.
+     * @param layer the layer to add
+     * @return the added layer
+     */
+    public LEDLayer addLayer(LEDLayer layer) {
+        if (layer.buffer.rows() != numRows || layer.buffer.cols() != numCols) {
+            throw new IllegalArgumentException("Layer is " + layer.buffer.cols() + "x" + layer.buffer.rows()
+                    + " but the target is " + numCols + "x" + numRows);
+        }
+        // Hue based patterns draw at the brightness they would on the target
+        layer.buffer.setHueTarget(target);
+        int insertAt = layers.length;
+        while (insertAt > 0 && layers[insertAt - 1].getZOrder() > layer.getZOrder()) {
+            insertAt--;
+        }
+        LEDLayer[] newLayers = new LEDLayer[layers.length + 1];
+        System.arraycopy(layers, 0, newLayers, 0, insertAt);
+        newLayers[insertAt] = layer;
+        System.arraycopy(layers, insertAt, newLayers, insertAt + 1, layers.length - insertAt);
+        setLayers(newLayers);
+        return layer;
+    }
+
+    /**
+     * Removes a layer from the stack.
+     * @param layer the layer to remove
+     * @return true if the layer was in the stack
+     */
+    public boolean removeLayer(LEDLayer layer) {
+        for (int i = 0; i < layers.length; i++) {
+            if (layers[i] == layer) {
+                LEDLayer[] newLayers = new LEDLayer[layers.length - 1];
+                System.arraycopy(layers, 0, newLayers, 0, i);
+                System.arraycopy(layers, i + 1, newLayers, i, layers.length - i - 1);
+                setLayers(newLayers);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void setLayers(LEDLayer[] newLayers) {
+        layers = newLayers;
+        compositedVersions = new long[newLayers.length];
+        visiblePixels = new int[newLayers.length][];
+        visibleOpacities = new int[newLayers.length];
+        visibleModes = new LEDLayer.BlendMode[newLayers.length];
+        layersChanged = true;
+    }
+
+    /**
+     * Draws every shown layer and composites them onto the target, without updating the LEDs.
+     */
+    public void draw() {
+        for (LEDLayer layer : layers) {
+            if (layer.isEnabled()) {
+                layer.draw();
+            }
+        }
+        composite();
+    }
+
+    /**
+     * Draws every shown layer, composites them onto the target, and updates the LEDs.
+     */
+    public void run() {
+        draw();
+        target.update();
+    }
+
+    /**
+     * Blends the layers' buffers onto the target.
+     * @return true if the frame changed and was written to the target
+     */
+    boolean composite() {
+        boolean changed = layersChanged;
+        int visibleCount = 0;
+        for (int i = 0; i < layers.length; i++) {
+            final LEDLayer layer = layers[i];
+            final long version = layer.getVersion();
+            if (version != compositedVersions[i]) {
+                compositedVersions[i] = version;
+                changed = true;
+            }
+            if (!layer.isInvisible()) {
+                visiblePixels[visibleCount] = layer.buffer.pixels;
+                visibleOpacities[visibleCount] = layer.getOpacity();
+                visibleModes[visibleCount] = layer.getBlendMode();
+                visibleCount++;
+            }
+        }
+        if (!changed) {
+            return false;
+        }
+        layersChanged = false;
+
+        for (int i = 0; i < length; i++) {
+            int r = 0, g = 0, b = 0;
+            for (int l = 0; l < visibleCount; l++) {
+                final int argb = visiblePixels[l][i];
+                final int alpha = ((argb >>> 24) * visibleOpacities[l] + 127) / 255;
+                if (alpha == 0) {
+                    continue;
+                }
+                final int sr = (argb >> 16) & 0xFF, sg = (argb >> 8) & 0xFF, sb = argb & 0xFF;
+                switch (visibleModes[l]) {
+                    case NORMAL -> {
+                        r += ((sr - r) * alpha) / 255;
+                        g += ((sg - g) * alpha) / 255;
+                        b += ((sb - b) * alpha) / 255;
+                    }
+                    case ADD -> {
+                        r = Math.min(255, r + (sr * alpha) / 255);
+                        g = Math.min(255, g + (sg * alpha) / 255);
+                        b = Math.min(255, b + (sb * alpha) / 255);
+                    }
+                    case MULTIPLY -> {
+                        r = (r * (255 - alpha + (sr * alpha) / 255)) / 255;
+                        g = (g * (255 - alpha + (sg * alpha) / 255)) / 255;
+                        b = (b * (255 - alpha + (sb * alpha) / 255)) / 255;
+                    }
+                    case MAX -> {
+                        r = Math.max(r, (sr * alpha) / 255);
+                        g = Math.max(g, (sg * alpha) / 255);
+                        b = Math.max(b, (sb * alpha) / 255);
+                    }
+                }
+            }
+            frame[i] = (r << 16) | (g << 8) | b;
+        }
+        Arrays.fill(visiblePixels, 0, visibleCount, null);
+
+        LEDBuffer.writeFrame(frame, numRows, numCols, target);
+        return true;
+    }
+}
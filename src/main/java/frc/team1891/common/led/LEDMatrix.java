@@ -1,22 +1,48 @@
 package frc.team1891.common.led;
 
+import frc.team1891.common.jni.BullBotsLibJNI;
 import org.opencv.core.Core;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.Scalar;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
 /**
  * A wrapper class to handle control over a grid shaped LED strip.
  */
 @SuppressWarnings("unused")
-public class LEDMatrix implements LEDMatrixInterface {
-    static { System.loadLibrary(Core.NATIVE_LIBRARY_NAME); }
+public class LEDMatrix implements LEDMatrixInterface, LEDReadableStripInterface {
+    /**
+     * Loads OpenCV the first time a {@link Mat} is created here.  Any Mat passed in from elsewhere means OpenCV is
+     * already loaded, so matrices that don't use Mats can run without the OpenCV natives.
+     */
+    static class OpenCV {
+        static { System.loadLibrary(Core.NATIVE_LIBRARY_NAME); }
+
+        static void load() {}
+    }
 
     private final LEDStrip parentStrip;
     private final int startIndex;
     private final int length;
     private final int numRows, numCols;
-    private final boolean serpentine;
+    // The LED index of each pixel, indexed by y * numCols + x
+    private final int[] xyToIndex;
+    // The pixel at each LED index, packed as (y << 16) | x
+    private final int[] indexToXY;
+    // The flags for the native driver to remap the matrix itself, or -1 if the layout is too complex for it
+    private final int nativeRemapFlags;
+    // Reusable buffers for reading a whole Mat at once, allocated on first use
+    private byte[] matBytes;
+    private int[] matPixels;
+
+    // Direct buffers shared with the native pipeline, allocated when native rendering is first enabled
+    private boolean nativeRendering = false;
+    private ByteBuffer nativeIn, nativeOut;
+    private IntBuffer nativeInPixels, nativeOutPixels;
 
     /**
      * Creates a new {@link LEDMatrix} to control a rectangular LED panel.
@@ -27,12 +53,33 @@ public class LEDMatrix implements LEDMatrixInterface {
      * @param serpentine wiring of LEDs winds back and forth
      */
     public LEDMatrix(LEDStrip parentStrip, int startIndex, int numRows, int numCols, boolean serpentine) {
+        this(parentStrip, startIndex, new LEDMatrixLayout(numRows, numCols).withSerpentine(serpentine));
+    }
+
+    /**
+     * Creates a new {@link LEDMatrix} to control a rectangular LED panel, or grid of panels, with the given wiring.
+     * @param parentStrip the parent LEDStrip this is a part of
+     * @param startIndex the first index of the matrix on the parent strip
+     * @param layout how the LEDs are wired
+     */
+    public LEDMatrix(LEDStrip parentStrip, int startIndex, LEDMatrixLayout layout) {
         this.parentStrip = parentStrip;
         this.startIndex = startIndex;
+        this.numRows = layout.rows();
+        this.numCols = layout.cols();
         this.length = numRows * numCols;
-        this.numRows = numRows;
-        this.numCols = numCols;
-        this.serpentine = serpentine;
+
+        xyToIndex = layout.buildIndexMap();
+        indexToXY = new int[length];
+        for (int i = 0; i < length; i++) {
+            indexToXY[xyToIndex[i]] = ((i / numCols) << 16) | (i % numCols);
+        }
+
+        if (layout.isSimpleRowMajor()) {
+            nativeRemapFlags = layout.isSerpentine() ? BullBotsLibJNI.FLAG_SERPENTINE : 0;
+        } else {
+            nativeRemapFlags = -1;
+        }
     }
 
     @Override
@@ -56,97 +103,341 @@ public class LEDMatrix implements LEDMatrixInterface {
     }
 
     /**
-     * Returns the index of an (x, y) coordinate, accounting for serpentine wiring.
+     * Returns the index of an (x, y) coordinate, accounting for the wiring of the matrix.
      * @param x positive to the left
      * @param y positive downwards
-     * @return the index of the LED as it's wired.
+     * @return the index of the LED as it's wired, or -1 if the coordinate is outside the matrix
      */
     public int oneDimensionalIndexOf(int x, int y) {
-        if (serpentine) {
-            return ((y % 2) == 0) ? (y * numCols + x) : ((y + 1) * numCols - 1 - x);
+        if (checkX(x) && checkY(y)) {
+            return xyToIndex[y * numCols + x];
         }
-        return (y * numCols + x);
+        return -1;
     }
 
     /**
      * Returns x coordinate from top left corner.
-     * @param index one dimensional index, accounting for serpentine wiring
-     * @return x coordinate of the index
+     * @param index one dimensional index, accounting for the wiring of the matrix
+     * @return x coordinate of the index, or -1 if the index is outside the matrix
      */
     public int xOf(int index) {
-        if (serpentine && (index / numCols) % 2 == 1) {
-            return numCols - (index % numCols);
-        }
-        return index % numCols;
+        return checkValidIndex(index) ? indexToXY[index] & 0xFFFF : -1;
     }
 
     /**
      * Returns y coordinate from top left corner (down being positive).
-     * @param index one dimensional index, accounting for serpentine wiring
-     * @return y coordinate of the index
+     * @param index one dimensional index, accounting for the wiring of the matrix
+     * @return y coordinate of the index, or -1 if the index is outside the matrix
      */
     public int yOf(int index) {
-        return index / numCols;
+        return checkValidIndex(index) ? indexToXY[index] >>> 16 : -1;
     }
 
     @Override
     public void setHue(int x, int y, int hue) {
-        this.setHSV(oneDimensionalIndexOf(x, y), hue, 255, 128);
+        if (checkX(x) && checkY(y)) {
+            parentStrip.setHSV(startIndex + xyToIndex[y * numCols + x], hue, 255, 128);
+        }
     }
 
     @Override
     public void setHue(int index, int hue) {
-        parentStrip.setHSV(startIndex + index, hue, 255, 128);
+        if (checkValidIndex(index)) {
+            parentStrip.setHSV(startIndex + index, hue, 255, 128);
+        }
     }
 
     @Override
     public void setHSV(int x, int y, int hue, int sat, int val) {
-        this.setHSV(oneDimensionalIndexOf(x, y), hue, sat, val);
+        if (checkX(x) && checkY(y)) {
+            parentStrip.setHSV(startIndex + xyToIndex[y * numCols + x], hue, sat, val);
+        }
     }
 
     @Override
     public void setHSV(int index, int hue, int sat, int val) {
-        parentStrip.setHSV(startIndex + index, hue, sat, val);
+        if (checkValidIndex(index)) {
+            parentStrip.setHSV(startIndex + index, hue, sat, val);
+        }
     }
 
     @Override
     public void setRGB(int x, int y, int r, int g, int b) {
-        this.setRGB(oneDimensionalIndexOf(x, y), r, g, b);
+        if (checkX(x) && checkY(y)) {
+            parentStrip.setRGB(startIndex + xyToIndex[y * numCols + x], r, g, b);
+        }
     }
 
     @Override
     public void setRGB(int index, int r, int g, int b) {
-        parentStrip.setRGB(startIndex + index, r, g, b);
+        if (checkValidIndex(index)) {
+            parentStrip.setRGB(startIndex + index, r, g, b);
+        }
     }
 
+    /**
+     * Returns the color of the pixel at the given index.
+     * @param index the target pixel, accounting for the wiring of the matrix
+     * @return the packed 0xRRGGBB color, or 0 if the index is out of bounds
+     */
     @Override
-    public boolean setMatrixHSV(Mat matrix) {
-        if (checkMatrix(matrix)) {
-            for (int i = 0; i < numRows; ++i) {
-                for (int j = 0; j < numCols; ++j) {
-                    double[] element = matrix.get(i, j);
-                    int curBufIndex = startIndex + oneDimensionalIndexOf(j, i);
-                    parentStrip.setHSV(curBufIndex, (int) element[0], (int) element[1], (int) element[2]);
+    public int getRGB(int index) {
+        return checkValidIndex(index) ? parentStrip.getRGB(startIndex + index) : 0;
+    }
+
+    @Override
+    public void setRangeHue(int startIndex, int endIndex, int hue) {
+        setRangeHSV(startIndex, endIndex, hue, 255, 128);
+    }
+
+    @Override
+    public void setRangeHSV(int startIndex, int endIndex, int hue, int sat, int val) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
+        if (startIndex < endIndex) {
+            parentStrip.setRangeHSV(this.startIndex + startIndex, this.startIndex + endIndex, hue, sat, val);
+        }
+    }
+
+    /**
+     * Sets all the pixels in the given range to a packed color, where the range is of LED indices, in the order the
+     * matrix is wired.  The other range operations index the matrix the same way.
+     * @param startIndex start pixel
+     * @param endIndex end pixel (exclusive)
+     * @param rgb packed 0xRRGGBB color
+     */
+    @Override
+    public void fill(int startIndex, int endIndex, int rgb) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
+        if (startIndex < endIndex) {
+            parentStrip.fill(this.startIndex + startIndex, this.startIndex + endIndex, rgb);
+        }
+    }
+
+    @Override
+    public void blit(int[] colors, int colorsIndex, int destIndex, int count) {
+        if (destIndex < 0) {
+            colorsIndex -= destIndex;
+            count += destIndex;
+            destIndex = 0;
+        }
+        count = Math.min(count, length - destIndex);
+        if (count > 0) {
+            parentStrip.blit(colors, colorsIndex, startIndex + destIndex, count);
+        }
+    }
+
+    @Override
+    public void copy(int srcIndex, int destIndex, int count) {
+        if (srcIndex < 0) {
+            destIndex -= srcIndex;
+            count += srcIndex;
+            srcIndex = 0;
+        }
+        if (destIndex < 0) {
+            srcIndex -= destIndex;
+            count += destIndex;
+            destIndex = 0;
+        }
+        count = Math.min(count, length - Math.max(srcIndex, destIndex));
+        if (count > 0) {
+            parentStrip.copy(startIndex + srcIndex, startIndex + destIndex, count);
+        }
+    }
+
+    @Override
+    public void gradient(int startIndex, int endIndex, int rgbA, int rgbB) {
+        parentStrip.gradient(this.startIndex + startIndex, this.startIndex + endIndex, rgbA, rgbB,
+                this.startIndex + Math.max(0, startIndex), this.startIndex + Math.min(length, endIndex));
+    }
+
+    @Override
+    public void reverse(int startIndex, int endIndex) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
+        if (startIndex < endIndex) {
+            parentStrip.reverse(this.startIndex + startIndex, this.startIndex + endIndex);
+        }
+    }
+
+    @Override
+    public void rotate(int startIndex, int endIndex, int amount) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
+        if (startIndex < endIndex) {
+            parentStrip.rotate(this.startIndex + startIndex, this.startIndex + endIndex, amount);
+        }
+    }
+
+    /**
+     * Sets the pixel at the given coordinate to follow an entry of the parent strip's palette, see
+     * {@link LEDStrip#setPaletteIndex(int, int)}.
+     * @param x the target pixel x
+     * @param y the target pixel y
+     * @param entry the palette entry [0, 255]
+     */
+    public void setPaletteIndex(int x, int y, int entry) {
+        if (checkX(x) && checkY(y)) {
+            parentStrip.setPaletteIndex(startIndex + xyToIndex[y * numCols + x], entry);
+        }
+    }
+
+    /**
+     * Sets the pixel at the given index to follow an entry of the parent strip's palette, see
+     * {@link LEDStrip#setPaletteIndex(int, int)}.
+     * @param index the target pixel, accounting for the wiring of the matrix
+     * @param entry the palette entry [0, 255]
+     */
+    public void setPaletteIndex(int index, int entry) {
+        if (checkValidIndex(index)) {
+            parentStrip.setPaletteIndex(startIndex + index, entry);
+        }
+    }
+
+    /**
+     * Sets a color of the parent strip's palette, which is shared by everything on the strip.
+     * @param entry the palette entry [0, 255]
+     * @param r red
+     * @param g green
+     * @param b blue
+     */
+    public void setPaletteRGB(int entry, int r, int g, int b) {
+        parentStrip.setPaletteRGB(entry, r, g, b);
+    }
+
+    /**
+     * Sets a color of the parent strip's palette from HSV, which is shared by everything on the strip.
+     * @param entry the palette entry [0, 255]
+     * @param hue hue
+     * @param sat saturation
+     * @param val value
+     */
+    public void setPaletteHSV(int entry, int hue, int sat, int val) {
+        parentStrip.setPaletteHSV(entry, hue, sat, val);
+    }
+
+    /**
+     * Moves the HSV conversion and serpentine remapping done by {@link #setPixelsRGB(int[])} and
+     * {@link #setPixelsHSV(int[])} into the native driver ({@link BullBotsLibJNI#processFrame}).  If the driver isn't
+     * available the matrix keeps converting in Java.
+     * @param enabled true to convert natively
+     * @return true if native conversion is now enabled
+     */
+    public boolean setNativeRendering(boolean enabled) {
+        if (enabled && !BullBotsLibJNI.isLibraryLoaded()) {
+            enabled = false;
+        }
+        if (enabled && nativeIn == null) {
+            nativeIn = ByteBuffer.allocateDirect(length * Integer.BYTES).order(ByteOrder.nativeOrder());
+            nativeOut = ByteBuffer.allocateDirect(length * Integer.BYTES).order(ByteOrder.nativeOrder());
+            nativeInPixels = nativeIn.asIntBuffer();
+            nativeOutPixels = nativeOut.asIntBuffer();
+        }
+        nativeRendering = enabled;
+        return enabled;
+    }
+
+    /**
+     * Sets every LED from an array of packed 0xRRGGBB colors in row major order.
+     * @param rgb the colors, one per LED
+     * @return true if the operation was successful
+     */
+    public boolean setPixelsRGB(int[] rgb) {
+        return setPixels(rgb, false);
+    }
+
+    /**
+     * Sets every LED from an array of packed 0xHHSSVV colors in row major order.
+     * @param hsv the colors, one per LED
+     * @return true if the operation was successful
+     */
+    public boolean setPixelsHSV(int[] hsv) {
+        return setPixels(hsv, true);
+    }
+
+    private boolean setPixels(int[] colors, boolean hsv) {
+        if (colors.length != length) {
+            return false;
+        }
+
+        if (nativeRendering) {
+            nativeInPixels.put(0, colors);
+            // Layouts the driver can't remap are converted natively, then remapped through the index table
+            final int flags = (hsv ? BullBotsLibJNI.FLAG_HSV_INPUT : 0) | Math.max(nativeRemapFlags, 0);
+            if (BullBotsLibJNI.processFrame(nativeIn, nativeOut, 0, length, numCols, flags,
+                    LEDStrip.LEDMode.RGB.ordinal(), 255 * 3) == 0) {
+                for (int i = 0; i < length; i++) {
+                    parentStrip.setPixel(startIndex + (nativeRemapFlags < 0 ? xyToIndex[i] : i), nativeOutPixels.get(i));
                 }
+                return true;
             }
-            return true;
         }
-        return false;
+
+        for (int i = 0; i < length; i++) {
+            final int color = colors[i];
+            parentStrip.setPixel(startIndex + xyToIndex[i], hsv
+                    ? parentStrip.convertHSV((color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF)
+                    : color & 0xFFFFFF);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setMatrixHSV(Mat matrix) {
+        return setMatrix(matrix, true);
     }
 
     @Override
     public boolean setMatrixRGB(Mat matrix) {
-        if (checkMatrix(matrix)) {
-            for (int i = 0; i < numRows; ++i) {
-                for (int j = 0; j < numCols; ++j) {
-                    double[] element = matrix.get(i, j);
-                    int curBufIndex = startIndex + oneDimensionalIndexOf(j, i);
-                    parentStrip.setRGB(curBufIndex, (int) element[0], (int) element[1], (int) element[2]);
-                }
+        return setMatrix(matrix, false);
+    }
+
+    private boolean setMatrix(Mat matrix, boolean hsv) {
+        if (!checkMatrix(matrix)) {
+            return false;
+        }
+
+        if (matBytes == null) {
+            matBytes = new byte[length * 3];
+        }
+        // Reads the whole Mat in one call, OpenCV copies it row by row if it isn't continuous (like a submat)
+        matrix.get(0, 0, matBytes);
+        final byte[] bytes = matBytes;
+
+        if (nativeRendering) {
+            if (matPixels == null) {
+                matPixels = new int[length];
+            }
+            for (int i = 0, j = 0; i < length; i++, j += 3) {
+                matPixels[i] = ((bytes[j] & 0xFF) << 16) | ((bytes[j + 1] & 0xFF) << 8) | (bytes[j + 2] & 0xFF);
             }
-            return true;
+            return setPixels(matPixels, hsv);
+        }
+
+        for (int i = 0, j = 0; i < length; i++, j += 3) {
+            final int a = bytes[j] & 0xFF, b = bytes[j + 1] & 0xFF, c = bytes[j + 2] & 0xFF;
+            parentStrip.setPixel(startIndex + xyToIndex[i], hsv ? parentStrip.convertHSV(a, b, c) : (a << 16) | (b << 8) | c);
         }
-        return false;
+        return true;
+    }
+
+    /**
+     * Returns the index on the parent strip of an (x, y) coordinate.
+     * @param x positive to the left
+     * @param y positive downwards
+     * @return the index on the parent strip, or -1 if the coordinate is outside the matrix
+     */
+    int stripIndexOf(int x, int y) {
+        return (checkX(x) && checkY(y)) ? startIndex + xyToIndex[y * numCols + x] : -1;
+    }
+
+    /**
+     * Returns the strip this matrix is part of.
+     * @return the parent strip
+     */
+    LEDStrip getParentStrip() {
+        return parentStrip;
     }
 
     /**
@@ -155,6 +446,7 @@ public class LEDMatrix implements LEDMatrixInterface {
      * @return a new Mat
      */
     public static Mat createEmptyMatrix(LEDMatrixInterface ledMatrix) {
+        OpenCV.load();
         return new Mat(ledMatrix.rows(), ledMatrix.cols(), CvType.CV_8UC3, new Scalar(0, 0, 0));
     }
 
@@ -165,13 +457,12 @@ public class LEDMatrix implements LEDMatrixInterface {
      * @return a new Mat
      */
     public static Mat createEmptyMatrix(int rows, int cols) {
+        OpenCV.load();
         return new Mat(rows, cols, CvType.CV_8UC3, new Scalar(0, 0, 0));
     }
 
     @Override
     public void off() {
-        for (var i = 0; i < length; ++i) {
-            parentStrip.setRGB(startIndex + i, 0, 0, 0);
-        }
+        parentStrip.fill(startIndex, startIndex + length, 0);
     }
 }
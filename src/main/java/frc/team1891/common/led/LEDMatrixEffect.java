@@ -0,0 +1,125 @@
+package frc.team1891.common.led;
+
+/**
+ * The base of a matrix pattern simulated on its own grid, like the effects in {@link LEDMatrixEffects}.
+ *
+ * <p>An effect keeps its state in primitive arrays sized to the matrix the first time it's drawn (and again if it's
+ * drawn onto a matrix of a different size).  The simulation advances in fixed steps on the default
+ * {@link LEDFrameClock}, so it runs at the same speed at any loop rate, and each frame is rendered into a packed
+ * 0xRRGGBB frame and written to the matrix in one pass.  Nothing is allocated after the first frame.</p>
+ */
+@SuppressWarnings("unused")
+public abstract class LEDMatrixEffect implements LEDMatrixPattern {
+    // The most steps taken in one frame, so a long pause doesn't stall the loop catching up
+    private static final int MAX_STEPS_PER_FRAME = 4;
+
+    private final double stepPeriod;
+    // Clock time of the last step, NaN until the effect starts
+    private double lastStepTime = Double.NaN;
+    private int seed = 0x2545F491;
+    private int random;
+
+    /** The size of the grid, matching the matrix last drawn on. */
+    protected int rows, cols;
+    /** The frame written to the matrix, packed 0xRRGGBB, indexed by y * cols + x. */
+    protected int[] frame;
+
+    /**
+     * Creates a new {@link LEDMatrixEffect}.
+     * @param stepsPerSecond how many times a second the simulation steps
+     */
+    protected LEDMatrixEffect(double stepsPerSecond) {
+        this.stepPeriod = 1 / stepsPerSecond;
+        random = seed;
+    }
+
+    /**
+     * Sets up the grid for a new size, or starts the effect over at the same size.  The frame is already allocated.
+     */
+    protected abstract void start();
+
+    /**
+     * Advances the simulation by one step.
+     */
+    protected abstract void step();
+
+    /**
+     * Renders the current state into {@link #frame}.
+     * @param time the time of the frame, in seconds
+     */
+    protected abstract void render(double time);
+
+    @Override
+    public void draw(LEDMatrixInterface leds) {
+        if (frame == null || leds.rows() != rows || leds.cols() != cols) {
+            rows = leds.rows();
+            cols = leds.cols();
+            frame = new int[rows * cols];
+            random = seed;
+            start();
+        }
+
+        final double time = LEDFrameClock.getDefault().getTime();
+        if (Double.isNaN(lastStepTime)) {
+            lastStepTime = time;
+        }
+        int steps = 0;
+        while (time - lastStepTime >= stepPeriod && steps < MAX_STEPS_PER_FRAME) {
+            step();
+            lastStepTime += stepPeriod;
+            steps++;
+        }
+        if (time - lastStepTime >= stepPeriod) {
+            // Too far behind, skip ahead
+            lastStepTime = time;
+        }
+
+        render(time);
+        LEDBuffer.writeFrame(frame, rows, cols, leds);
+    }
+
+    /**
+     * Starts the effect over, from the same random seed.
+     */
+    @Override
+    public void reset() {
+        lastStepTime = Double.NaN;
+        if (frame != null) {
+            random = seed;
+            start();
+        }
+    }
+
+    /**
+     * Sets the seed of the effect's random numbers, so it plays the same way each time.  Takes effect when the effect
+     * next starts.
+     * @param seed the seed
+     * @return this effect
+     */
+    public LEDMatrixEffect setSeed(int seed) {
+        this.seed = seed == 0 ? 1 : seed;
+        return this;
+    }
+
+    /**
+     * Returns the next random number, from a xorshift generator that doesn't allocate.
+     * @return 32 random bits
+     */
+    protected final int nextRandom() {
+        int x = random;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        random = x;
+        return x;
+    }
+
+    /**
+     * Returns a random number in [0, bound).
+     * @param bound the upper bound, positive
+     * @return the random number
+     */
+    protected final int nextRandom(int bound) {
+        return (int) (((nextRandom() & 0xFFFFFFFFL) * bound) >>> 32);
+    }
+}
@@ -0,0 +1,444 @@
+package frc.team1891.common.led;
+
+import java.util.Arrays;
+
+/**
+ * Simulated effects for LED matrices, each an {@link LEDMatrixEffect} sized to whatever matrix it's drawn on.
+ *
+ * <p>Every effect keeps its state in primitive arrays allocated on the first frame, so after that a frame doesn't
+ * allocate, and even a 64x64 panel steps in a small fraction of a millisecond.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDMatrixEffects {
+    // One period of a sine wave in 256 steps, scaled to [-127, 127]
+    private static final int[] SINE = new int[256];
+    static {
+        for (int i = 0; i < 256; i++) {
+            SINE[i] = (int) Math.round(127 * Math.sin(i * 2 * Math.PI / 256));
+        }
+    }
+
+    /**
+     * Conway's Game of Life, starting over from a random board whenever it dies out or settles down.
+     *
+     * <p>The board is bit-packed, 64 cells to a long, and a generation is computed a whole word at a time by adding up
+     * the shifted neighbor words with a bitwise adder.  Cells past the edges are dead.</p>
+     */
+    public static class Life extends LEDMatrixEffect {
+        // How many generations in a row can repeat before the board starts over
+        private static final int MAX_STALE_GENERATIONS = 20;
+
+        private final int color;
+        // The board, the next generation, and the generation before, each rows * words longs
+        private long[] cells, next, previous;
+        private int words;
+        // The bits of the last word in each row that are on the board
+        private long lastWordMask;
+        private int staleGenerations;
+
+        /**
+         * Creates a new {@link Life}.
+         * @param generationsPerSecond how fast the board evolves
+         * @param r red of live cells [0, 255]
+         * @param g green of live cells [0, 255]
+         * @param b blue of live cells [0, 255]
+         */
+        public Life(double generationsPerSecond, int r, int g, int b) {
+            super(generationsPerSecond);
+            color = (r << 16) | (g << 8) | b;
+        }
+
+        @Override
+        protected void start() {
+            words = (cols + 63) >>> 6;
+            lastWordMask = (cols & 63) == 0 ? -1L : (1L << (cols & 63)) - 1;
+            if (cells == null || cells.length != rows * words) {
+                cells = new long[rows * words];
+                next = new long[rows * words];
+                previous = new long[rows * words];
+            }
+            seed();
+        }
+
+        private void seed() {
+            for (int i = 0; i < cells.length; i++) {
+                // A quarter of the cells start alive
+                final long a = ((long) nextRandom() << 32) | (nextRandom() & 0xFFFFFFFFL);
+                final long b = ((long) nextRandom() << 32) | (nextRandom() & 0xFFFFFFFFL);
+                cells[i] = a & b & ((i % words) == words - 1 ? lastWordMask : -1L);
+            }
+            Arrays.fill(previous, 0);
+            staleGenerations = 0;
+        }
+
+        @Override
+        protected void step() {
+            final long[] cells = this.cells, next = this.next;
+            final int words = this.words;
+            for (int y = 0; y < rows; y++) {
+                for (int w = 0; w < words; w++) {
+                    // The neighbor count of each cell, in bits: s0 is the 1s, s1 the 2s and s2 the 4s (8 wraps to 0,
+                    // which is dead either way)
+                    long s0 = 0, s1 = 0, s2 = 0;
+                    for (int ny = y - 1; ny <= y + 1; ny++) {
+                        if (ny < 0 || ny >= rows) {
+                            continue;
+                        }
+                        final int row = ny * words;
+                        final long c = cells[row + w];
+                        final long left = w > 0 ? cells[row + w - 1] : 0, right = w < words - 1 ? cells[row + w + 1] : 0;
+                        // Each cell's western and eastern neighbors, lined up with it
+                        final long west = (c << 1) | (left >>> 63), east = (c >>> 1) | (right << 63);
+                        for (int k = ny == y ? 1 : 0; k < 3; k++) {
+                            final long in = k == 0 ? c : k == 1 ? west : east;
+                            final long c0 = s0 & in;
+                            s0 ^= in;
+                            final long c1 = s1 & c0;
+                            s1 ^= c0;
+                            s2 ^= c1;
+                        }
+                    }
+                    // Alive with 3 neighbors, or 2 if already alive
+                    long alive = s1 & ~s2 & (s0 | cells[y * words + w]);
+                    if (w == words - 1) {
+                        alive &= lastWordMask;
+                    }
+                    next[y * words + w] = alive;
+                }
+            }
+
+            if (Arrays.equals(next, cells) || Arrays.equals(next, previous)) {
+                staleGenerations++;
+            } else {
+                staleGenerations = 0;
+            }
+            // previous <- cells <- next, reusing the oldest array for the next generation
+            final long[] oldest = previous;
+            previous = cells;
+            this.cells = next;
+            this.next = oldest;
+            if (staleGenerations > MAX_STALE_GENERATIONS) {
+                seed();
+            }
+        }
+
+        @Override
+        protected void render(double time) {
+            final long[] cells = this.cells;
+            for (int y = 0, i = 0; y < rows; y++) {
+                final int row = y * words;
+                for (int x = 0; x < cols; x++, i++) {
+                    frame[i] = (cells[row + (x >>> 6)] & (1L << x)) != 0 ? color : 0;
+                }
+            }
+        }
+
+        /**
+         * Returns whether a cell is alive.
+         * @param x column
+         * @param y row
+         * @return true if the cell is alive, false if it's dead, outside the board, or the effect hasn't started
+         */
+        public boolean isAlive(int x, int y) {
+            if (cells == null || x < 0 || x >= cols || y < 0 || y >= rows) {
+                return false;
+            }
+            return (cells[y * words + (x >>> 6)] & (1L << x)) != 0;
+        }
+
+        /**
+         * Sets a cell alive or dead, like to start from a known pattern.  Only works once the effect has been drawn.
+         * @param x column
+         * @param y row
+         * @param alive whether the cell is alive
+         */
+        public void setAlive(int x, int y, boolean alive) {
+            if (cells == null || x < 0 || x >= cols || y < 0 || y >= rows) {
+                return;
+            }
+            if (alive) {
+                cells[y * words + (x >>> 6)] |= 1L << x;
+            } else {
+                cells[y * words + (x >>> 6)] &= ~(1L << x);
+            }
+        }
+
+        /**
+         * Kills every cell.  Only works once the effect has been drawn.
+         */
+        public void clear() {
+            if (cells != null) {
+                Arrays.fill(cells, 0);
+            }
+        }
+    }
+
+    /**
+     * Flames rising from the bottom of the matrix.
+     *
+     * <p>Each step, every cell takes the heat of a cell below it, a random column to the side, and cools by a random
+     * amount.  The bottom row is the fuel.</p>
+     */
+    public static class Fire extends LEDMatrixEffect {
+        // Black through red, orange and yellow to white, indexed by heat
+        private static final int[] PALETTE = new int[256];
+        static {
+            for (int i = 0; i < 256; i++) {
+                final int r = Math.min(255, i * 3);
+                final int g = Math.max(0, Math.min(255, (i - 85) * 3));
+                final int b = Math.max(0, Math.min(255, (i - 170) * 3));
+                PALETTE[i] = (r << 16) | (g << 8) | b;
+            }
+        }
+
+        private final double height;
+        // The heat of each cell [0, 255], indexed by y * cols + x
+        private int[] heat;
+        // The most a cell cools in a step
+        private int maxCooling;
+
+        /**
+         * Creates a new {@link Fire}.
+         * @param stepsPerSecond how fast the flames move
+         * @param height how high the flames reach, as a fraction of the matrix's height
+         */
+        public Fire(double stepsPerSecond, double height) {
+            super(stepsPerSecond);
+            this.height = height;
+        }
+
+        @Override
+        protected void start() {
+            if (heat == null || heat.length != rows * cols) {
+                heat = new int[rows * cols];
+            }
+            Arrays.fill(heat, 0);
+            // Cooling by half the maximum on average, the heat runs out at the given height
+            maxCooling = Math.max(1, (int) Math.round(2 * 255 / Math.max(1, height * rows)));
+        }
+
+        @Override
+        protected void step() {
+            final int[] heat = this.heat;
+            final int bottom = (rows - 1) * cols;
+            for (int x = 0; x < cols; x++) {
+                heat[bottom + x] = 255 - nextRandom(32);
+            }
+            // Going down the rows, each row reads the row below before it's updated
+            for (int y = 0; y < rows - 1; y++) {
+                for (int x = 0; x < cols; x++) {
+                    final int below = heat[(y + 1) * cols + x];
+                    final int r = nextRandom();
+                    final int to = Math.max(0, Math.min(cols - 1, x + ((r & 0xFF) % 3) - 1));
+                    heat[y * cols + to] = Math.max(0, below - (int) (((r >>> 8) & 0xFFFF) * (maxCooling + 1L) >>> 16));
+                }
+            }
+        }
+
+        @Override
+        protected void render(double time) {
+            for (int i = 0; i < frame.length; i++) {
+                frame[i] = PALETTE[heat[i]];
+            }
+        }
+    }
+
+    /**
+     * Drops of rain falling down the matrix, each leaving a fading trail.
+     *
+     * <p>The drops are particles in a fixed size pool of primitive arrays, positions in 8.8 fixed point.</p>
+     */
+    public static class Rain extends LEDMatrixEffect {
+        private static final int TRAIL = 4;
+
+        private final int red, green, blue;
+        // The chance of a drop starting in each column each step, out of 65536
+        private final int chance;
+        // The drops: column, row and speed in 8.8 fixed point rows per step
+        private int[] dropX, dropY, dropSpeed;
+        private int dropCount;
+
+        /**
+         * Creates a new {@link Rain}.
+         * @param stepsPerSecond how fast the rain falls
+         * @param density the chance of a drop starting in each column each step [0, 1]
+         * @param r red of the drops [0, 255]
+         * @param g green of the drops [0, 255]
+         * @param b blue of the drops [0, 255]
+         */
+        public Rain(double stepsPerSecond, double density, int r, int g, int b) {
+            super(stepsPerSecond);
+            chance = (int) Math.round(Math.max(0, Math.min(1, density)) * 65536);
+            red = r;
+            green = g;
+            blue = b;
+        }
+
+        @Override
+        protected void start() {
+            // Drops fall at least half a row a step and at most one starts per column each step, so no column holds
+            // more than twice rows + TRAIL of them
+            final int capacity = cols * 2 * (rows + TRAIL);
+            if (dropX == null || dropX.length != capacity) {
+                dropX = new int[capacity];
+                dropY = new int[capacity];
+                dropSpeed = new int[capacity];
+            }
+            dropCount = 0;
+        }
+
+        @Override
+        protected void step() {
+            final int end = (rows + TRAIL) << 8;
+            for (int i = 0; i < dropCount; i++) {
+                dropY[i] += dropSpeed[i];
+                if (dropY[i] >= end) {
+                    // Replace the drop with the last one, and look at this slot again
+                    dropCount--;
+                    dropX[i] = dropX[dropCount];
+                    dropY[i] = dropY[dropCount];
+                    dropSpeed[i] = dropSpeed[dropCount];
+                    i--;
+                }
+            }
+            for (int x = 0; x < cols && dropCount < dropX.length; x++) {
+                if ((nextRandom() & 0xFFFF) < chance) {
+                    dropX[dropCount] = x;
+                    dropY[dropCount] = 0;
+                    // Between half a row and a row per step
+                    dropSpeed[dropCount] = 128 + nextRandom(129);
+                    dropCount++;
+                }
+            }
+        }
+
+        @Override
+        protected void render(double time) {
+            Arrays.fill(frame, 0);
+            for (int i = 0; i < dropCount; i++) {
+                final int head = dropY[i] >> 8;
+                for (int k = 0; k < TRAIL; k++) {
+                    final int y = head - k;
+                    if (y < 0 || y >= rows) {
+                        continue;
+                    }
+                    final int scale = 256 * (TRAIL - k) / TRAIL;
+                    final int index = y * cols + dropX[i];
+                    final int color = (((red * scale) >> 8) << 16) | (((green * scale) >> 8) << 8) | ((blue * scale) >> 8);
+                    // Where trails cross, keep the brighter
+                    if ((color & 0xFFFFFF) > (frame[index] & 0xFFFFFF)) {
+                        frame[index] = color;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the number of drops falling
+         */
+        public int getDropCount() {
+            return dropCount;
+        }
+    }
+
+    /**
+     * A plasma of moving rainbow colors, from three sine waves across the columns, rows and diagonals.
+     *
+     * <p>The waves are looked up once per column, row and diagonal each frame, so each LED only adds three numbers.</p>
+     */
+    public static class Plasma extends LEDMatrixEffect {
+        // A full rainbow over 256 steps
+        private static final int[] PALETTE = new int[256];
+        static {
+            for (int i = 0; i < 256; i++) {
+                PALETTE[i] = LEDStrip.hsvToRGB(i * 180 / 256, 255, 255);
+            }
+        }
+
+        private final double speed;
+        // Each wave's value for each column, row and diagonal this frame
+        private int[] columnWave, rowWave, diagonalWave;
+        // How far each wave moves across one LED, in 256ths of a period
+        private int columnStep, rowStep, diagonalStep;
+
+        /**
+         * Creates a new {@link Plasma}.
+         * @param speed how fast the colors move, in periods per second
+         */
+        public Plasma(double speed) {
+            // Nothing to step, the plasma is a function of time
+            super(1);
+            this.speed = speed;
+        }
+
+        @Override
+        protected void start() {
+            if (columnWave == null || columnWave.length != cols || rowWave.length != rows) {
+                columnWave = new int[cols];
+                rowWave = new int[rows];
+                diagonalWave = new int[rows + cols];
+            }
+            // About one and a half periods across the matrix, whatever its size
+            columnStep = Math.max(1, 384 / Math.max(1, cols));
+            rowStep = Math.max(1, 384 / Math.max(1, rows));
+            diagonalStep = Math.max(1, 256 / Math.max(1, rows + cols));
+        }
+
+        @Override
+        protected void step() {}
+
+        @Override
+        protected void render(double time) {
+            final int phase = (int) ((long) (time * speed * 256) & 0xFF);
+            for (int x = 0; x < cols; x++) {
+                columnWave[x] = SINE[(x * columnStep + phase) & 0xFF];
+            }
+            for (int y = 0; y < rows; y++) {
+                rowWave[y] = SINE[(y * rowStep - 2 * phase) & 0xFF];
+            }
+            for (int d = 0; d < rows + cols; d++) {
+                diagonalWave[d] = SINE[(d * diagonalStep + 3 * phase) & 0xFF];
+            }
+            for (int y = 0, i = 0; y < rows; y++) {
+                final int row = rowWave[y];
+                for (int x = 0; x < cols; x++, i++) {
+                    // The three waves sum to [-381, 381], spread over two trips around the rainbow
+                    final int sum = columnWave[x] + row + diagonalWave[x + y];
+                    frame[i] = PALETTE[(((sum + 381) * 171) >> 8) & 0xFF];
+                }
+            }
+        }
+    }
+
+    /**
+     * Conway's Game of Life in green, ten generations a second.
+     * @return the life effect
+     */
+    public static LEDMatrixEffect LIFE() {
+        return new Life(10, 0, 200, 40);
+    }
+
+    /**
+     * Flames reaching most of the way up the matrix.
+     * @return the fire effect
+     */
+    public static LEDMatrixEffect FIRE() {
+        return new Fire(30, .75);
+    }
+
+    /**
+     * Light blue rain.
+     * @return the rain effect
+     */
+    public static LEDMatrixEffect RAIN() {
+        return new Rain(30, .05, 60, 120, 255);
+    }
+
+    /**
+     * A slowly moving rainbow plasma.
+     * @return the plasma effect
+     */
+    public static LEDMatrixEffect PLASMA() {
+        return new Plasma(.25);
+    }
+}
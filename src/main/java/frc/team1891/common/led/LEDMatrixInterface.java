@@ -55,7 +55,7 @@ public interface LEDMatrixInterface extends LEDStripInterface {
      * @param hueB second hue
      */
     default void flashHue(int x, int y, double timeInterval, int hueA, int hueB) {
-        if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+        if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
             setHue(x, y, hueA);
         } else {
             setHue(x, y, hueB);
@@ -75,7 +75,7 @@ public interface LEDMatrixInterface extends LEDStripInterface {
      * @param valB second value
      */
     default void flashHSV(int x, int y, double timeInterval, int hueA, int satA, int valA, int hueB, int satB, int valB) {
-        if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+        if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
             setHSV(x, y, hueA, satA, valA);
         } else {
             setHSV(x, y, hueB, satB, valB);
@@ -95,7 +95,7 @@ public interface LEDMatrixInterface extends LEDStripInterface {
      * @param bB second blue
      */
     default void flashRGB(int x, int y, double timeInterval, int rA, int gA, int bA, int rB, int gB, int bB) {
-        if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+        if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
             setRGB(x, y, rA, gA, bA);
         } else {
             setRGB(x, y, rB, gB, bB);
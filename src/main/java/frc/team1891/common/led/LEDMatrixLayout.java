@@ -0,0 +1,204 @@
+package frc.team1891.common.led;
+
+/**
+ * Describes how the LEDs of a rectangular panel (or a grid of identical panels) are physically wired, so an
+ * {@link LEDMatrix} can translate (x, y) coordinates into indexes along the strip.
+ *
+ * <p>Coordinates are mapped in this order: the logical image is rotated onto the panel, flipped to match the corner
+ * the data line enters from, split into tiles, and finally walked in row or column order inside each tile.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDMatrixLayout {
+    /** The direction the LEDs run inside a panel. */
+    public enum Order {
+        /** The LEDs run along each row, then move down to the next row. */
+        ROW_MAJOR,
+        /** The LEDs run along each column, then move right to the next column. */
+        COLUMN_MAJOR
+    }
+
+    /** How the panel is mounted relative to the image shown on it. */
+    public enum Rotation {
+        /** Mounted upright. */
+        NONE,
+        /** Mounted rotated 90 degrees clockwise. */
+        CLOCKWISE_90,
+        /** Mounted upside down. */
+        ROTATE_180,
+        /** Mounted rotated 90 degrees counterclockwise. */
+        COUNTERCLOCKWISE_90
+    }
+
+    private final int rows, cols;
+    private Order order = Order.ROW_MAJOR;
+    private boolean serpentine = false;
+    private boolean flipX = false, flipY = false;
+    private Rotation rotation = Rotation.NONE;
+    private int tileRows = 1, tileCols = 1;
+    private boolean serpentineTiles = false;
+
+    /**
+     * Creates a new layout with progressive row major wiring, starting at the top left corner.
+     * @param rows number of rows of the displayed image
+     * @param cols number of columns of the displayed image
+     */
+    public LEDMatrixLayout(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Sets the direction the LEDs run inside each panel.
+     * @param order row or column major
+     * @return this layout
+     */
+    public LEDMatrixLayout withOrder(Order order) {
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * Sets whether the wiring winds back and forth, reversing every other row (or column).
+     * @param serpentine wiring of LEDs winds back and forth
+     * @return this layout
+     */
+    public LEDMatrixLayout withSerpentine(boolean serpentine) {
+        this.serpentine = serpentine;
+        return this;
+    }
+
+    /**
+     * Moves the first LED to another corner of the panel.
+     * @param flipX the first LED is on the right
+     * @param flipY the first LED is on the bottom
+     * @return this layout
+     */
+    public LEDMatrixLayout withFlip(boolean flipX, boolean flipY) {
+        this.flipX = flipX;
+        this.flipY = flipY;
+        return this;
+    }
+
+    /**
+     * Sets how the panel is mounted relative to the displayed image.
+     * @param rotation the panel rotation
+     * @return this layout
+     */
+    public LEDMatrixLayout withRotation(Rotation rotation) {
+        this.rotation = rotation;
+        return this;
+    }
+
+    /**
+     * Splits the matrix into a grid of identical panels chained one after another.  Each panel is wired according to
+     * the rest of this layout.
+     * @param tileRows number of panels stacked vertically
+     * @param tileCols number of panels side by side
+     * @param serpentineTiles the chain of panels winds back and forth, reversing every other row of panels
+     * @return this layout
+     */
+    public LEDMatrixLayout withTiles(int tileRows, int tileCols, boolean serpentineTiles) {
+        this.tileRows = tileRows;
+        this.tileCols = tileCols;
+        this.serpentineTiles = serpentineTiles;
+        return this;
+    }
+
+    /**
+     * @return number of rows of the displayed image
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * @return number of columns of the displayed image
+     */
+    public int cols() {
+        return cols;
+    }
+
+    /**
+     * Returns whether this is a single upright row major panel, the only kind of layout the native driver can remap.
+     * @return true if only serpentine wiring is used
+     */
+    boolean isSimpleRowMajor() {
+        return order == Order.ROW_MAJOR && !flipX && !flipY && rotation == Rotation.NONE && tileRows == 1 && tileCols == 1;
+    }
+
+    /**
+     * Returns whether the wiring winds back and forth.
+     * @return true if serpentine
+     */
+    boolean isSerpentine() {
+        return serpentine;
+    }
+
+    /**
+     * Builds a table of the LED index of every pixel, indexed by {@code y * cols + x}.
+     * @return the index of each pixel along the strip, relative to the first LED of the matrix
+     * @throws IllegalArgumentException if the panels don't evenly divide the matrix
+     */
+    public int[] buildIndexMap() {
+        final boolean sideways = rotation == Rotation.CLOCKWISE_90 || rotation == Rotation.COUNTERCLOCKWISE_90;
+        // Dimensions of the physical panels, before rotation
+        final int physicalRows = sideways ? cols : rows;
+        final int physicalCols = sideways ? rows : cols;
+        if (tileRows <= 0 || tileCols <= 0 || physicalRows % tileRows != 0 || physicalCols % tileCols != 0) {
+            throw new IllegalArgumentException("A " + physicalCols + "x" + physicalRows + " matrix can't be split into "
+                    + tileCols + "x" + tileRows + " panels");
+        }
+        final int tileHeight = physicalRows / tileRows;
+        final int tileWidth = physicalCols / tileCols;
+        final int tileLength = tileHeight * tileWidth;
+
+        final int[] map = new int[rows * cols];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                // Rotate onto the physical panel
+                int px, py;
+                switch (rotation) {
+                    case CLOCKWISE_90 -> {
+                        px = y;
+                        py = cols - 1 - x;
+                    }
+                    case ROTATE_180 -> {
+                        px = cols - 1 - x;
+                        py = rows - 1 - y;
+                    }
+                    case COUNTERCLOCKWISE_90 -> {
+                        px = rows - 1 - y;
+                        py = x;
+                    }
+                    default -> {
+                        px = x;
+                        py = y;
+                    }
+                }
+
+                // Move the origin to the corner the data line enters from
+                if (flipX) {
+                    px = physicalCols - 1 - px;
+                }
+                if (flipY) {
+                    py = physicalRows - 1 - py;
+                }
+
+                // Find the panel, and the position within it
+                final int tileX = px / tileWidth, tileY = py / tileHeight;
+                final int tx = px % tileWidth, ty = py % tileHeight;
+                final int tile = tileY * tileCols + ((serpentineTiles && (tileY % 2) == 1) ? tileCols - 1 - tileX : tileX);
+
+                final int within;
+                if (order == Order.ROW_MAJOR) {
+                    within = ty * tileWidth + ((serpentine && (ty % 2) == 1) ? tileWidth - 1 - tx : tx);
+                } else {
+                    within = tx * tileHeight + ((serpentine && (tx % 2) == 1) ? tileHeight - 1 - ty : ty);
+                }
+
+                map[y * cols + x] = tile * tileLength + within;
+            }
+        }
+        return map;
+    }
+}
@@ -1,5 +1,6 @@
 package frc.team1891.common.led;
 
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 
 import java.util.List;
@@ -168,7 +169,7 @@ public interface LEDMatrixPattern {
 
         @Override
         public void draw(LEDMatrixInterface leds) {
-            if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+            if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
                 pattern1.draw(leds);
             } else {
                 pattern2.draw(leds);
@@ -177,7 +178,12 @@ public interface LEDMatrixPattern {
     }
 
     /**
-     * An {@link LEDMatrixPattern} plays through a list of {@link Mat} frames at a given FPS.
+     * An {@link LEDMatrixPattern} plays through a list of {@link Mat} frames, or frames from an
+     * {@link LEDFrameDecoder}, at a given FPS.
+     *
+     * <p>Frames are decoded one at a time into a reusable frame, and a frame is only decoded once however many times
+     * it's drawn.  The whole frame is written to the LEDs on every draw, so the animation comes back intact after
+     * anything else draws over it.  Once a non-looping animation finishes, its last frame stays up.</p>
      */
     class AnimatedLEDMatrixPattern implements LEDMatrixPattern {
         /** Determines how the animation plays. */
@@ -190,15 +196,22 @@ public interface LEDMatrixPattern {
 
         private final RunType runType;
         private final int fps;
-        private final List<Mat> frames;
+        private final LEDFrameDecoder decoder;
+        private final int[] frame;
+        private final int[] changed;
 
+        // Clock time the animation started at, in nanoseconds
         private long startTime;
+        private boolean started = false;
         private int currentFrame;
+        // The frame last decoded, or -1 if none has been
+        private int shownFrame = -1;
 
         /**
          * Creates a new AnimatedLEDMatrixPattern that runs continuously.
          * @param fps frames per second
          * @param frames the matrices representing each frame in RGB
+         * @throws IllegalArgumentException if the frames aren't all 8 bit, 3 channel and the same size
          */
         public AnimatedLEDMatrixPattern(int fps, List<Mat> frames) {
             this(RunType.CONTINUOUS, fps, frames);
@@ -209,40 +222,135 @@ public interface LEDMatrixPattern {
          * @param runType continuous or run once
          * @param fps frames per second
          * @param frames the matrices representing each frame in RGB
+         * @throws IllegalArgumentException if the frames aren't all 8 bit, 3 channel and the same size
          */
         public AnimatedLEDMatrixPattern(RunType runType, int fps, List<Mat> frames) {
+            this(runType, fps, new MatListDecoder(frames));
+        }
+
+        /**
+         * Creates a new AnimatedLEDMatrixPattern that streams its frames from a decoder.
+         * @param runType continuous or run once
+         * @param fps frames per second
+         * @param decoder the source of the frames
+         */
+        public AnimatedLEDMatrixPattern(RunType runType, int fps, LEDFrameDecoder decoder) {
             this.runType = runType;
             this.fps = fps;
-            this.frames = frames;
-            this.currentFrame = frames.size() + 1; // in order to trigger reset upon first call to draw
+            this.decoder = decoder;
+            this.frame = new int[decoder.rows() * decoder.cols()];
+            this.changed = new int[frame.length];
         }
 
         @Override
         public void draw(LEDMatrixInterface leds) {
-            leds.setMatrixRGB(frames.get(currentFrame));
-
-            double currentTime = (System.currentTimeMillis() - startTime) / 1000.;
-            currentFrame = (int) (currentTime * fps);
+            drawTo(leds);
         }
 
-        @Override
-        public void run(LEDMatrixInterface leds) {
-            if (runType.equals(RunType.CONTINUOUS) && isFinished()) {
-                reset();
+        /**
+         * Draws the current frame onto a matrix of the animation's size, or a strip as long as the animation.
+         * @param leds target {@link LEDStripInterface}
+         */
+        void drawTo(LEDStripInterface leds) {
+            final long time = LEDFrameClock.getDefault().getTimeNanos();
+            if (!started) {
+                startTime = time;
+                started = true;
+            }
+
+            // The frame is picked by time, so the animation plays at the same speed at any loop rate
+            final int frameCount = decoder.frameCount();
+            currentFrame = (int) ((time - startTime) * fps / 1_000_000_000L);
+            if (runType.equals(RunType.CONTINUOUS) && frameCount > 0) {
+                currentFrame %= frameCount;
+            }
+            final boolean fits = leds instanceof LEDMatrixInterface matrix
+                    ? matrix.rows() == decoder.rows() && matrix.cols() == decoder.cols()
+                    : leds.length() == frame.length;
+            if (!fits) {
+                return;
             }
 
-            LEDMatrixPattern.super.run(leds);
+            // Only a new frame is decoded, but the whole frame is written every time, since anything else may have
+            // drawn on the LEDs since the last call
+            if (currentFrame < frameCount && currentFrame != shownFrame) {
+                decoder.decode(currentFrame, frame, changed);
+                shownFrame = currentFrame;
+            }
+            if (shownFrame != -1) {
+                LEDBuffer.writeFrame(frame, decoder.rows(), decoder.cols(), leds);
+            }
         }
 
         @Override
         public boolean isFinished() {
-            return currentFrame >= frames.size();
+            return currentFrame >= decoder.frameCount();
         }
 
         @Override
         public void reset() {
-            startTime = System.currentTimeMillis();
+            started = false;
             currentFrame = 0;
+            shownFrame = -1;
+        }
+
+        /** Reads frames from a list of RGB {@link Mat}s. */
+        private static class MatListDecoder implements LEDFrameDecoder {
+            private final List<Mat> frames;
+            private final int numRows, numCols;
+            private final byte[] matBytes;
+
+            MatListDecoder(List<Mat> frames) {
+                this.frames = frames;
+                this.numRows = frames.isEmpty() ? 0 : frames.get(0).rows();
+                this.numCols = frames.isEmpty() ? 0 : frames.get(0).cols();
+                for (int i = 0; i < frames.size(); i++) {
+                    if (!fits(frames.get(i))) {
+                        throw new IllegalArgumentException("Frame " + i + " isn't an 8 bit, 3 channel " + numCols + "x"
+                                + numRows + " Mat");
+                    }
+                }
+                this.matBytes = new byte[numRows * numCols * 3];
+            }
+
+            @Override
+            public int rows() {
+                return numRows;
+            }
+
+            @Override
+            public int cols() {
+                return numCols;
+            }
+
+            @Override
+            public int frameCount() {
+                return frames.size();
+            }
+
+            @Override
+            public int decode(int frameIndex, int[] frame, int[] changed) {
+                final Mat mat = frames.get(frameIndex);
+                // The frames were checked up front, but a Mat can still be changed after that
+                if (!fits(mat)) {
+                    return 0;
+                }
+                mat.get(0, 0, matBytes);
+                int changedCount = 0;
+                for (int i = 0, j = 0; i < frame.length; i++, j += 3) {
+                    final int rgb = ((matBytes[j] & 0xFF) << 16) | ((matBytes[j + 1] & 0xFF) << 8) | (matBytes[j + 2] & 0xFF);
+                    if (frame[i] != rgb) {
+                        frame[i] = rgb;
+                        changed[changedCount++] = i;
+                    }
+                }
+                return changedCount;
+            }
+
+            private boolean fits(Mat mat) {
+                return mat.depth() == CvType.CV_8U && mat.rows() == numRows && mat.cols() == numCols
+                        && mat.channels() == 3;
+            }
         }
     }
 }
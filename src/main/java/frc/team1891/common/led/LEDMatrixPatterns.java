@@ -1,10 +1,6 @@
 package frc.team1891.common.led;
 
-import org.opencv.core.CvType;
-import org.opencv.core.Mat;
-
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.function.BooleanSupplier;
 
@@ -16,13 +12,15 @@ public class LEDMatrixPatterns {
     /**
      * The Snake game built into an LEDMatrixPattern.
      *
-     * <p>Any errors or weird code can be blamed on ChatGPT :)</p>
+     * <p>The game is drawn straight onto the matrix every frame without allocating.  The snake's body is a ring buffer
+     * of cells and the board a bitset of occupied cells, so moving, collision checks and placing fruit take constant
+     * time however long the snake gets.  Turns pressed faster than the snake moves are queued, up to three.</p>
      */
     public static class SnakeGamePattern implements LEDMatrixPattern {
 
         private final BooleanSupplier up, down, left, right;
 
-        /** The number of frames between game updates. */
+        /** The number of 20ms robot loops between game updates. */
         protected int updateRate;
 
         private SnakeGame game;
@@ -40,7 +38,7 @@ public class LEDMatrixPatterns {
 
         /**
          * Constructs a SnakeGamePattern.
-         * @param updateRate the number of frames between game updates
+         * @param updateRate the number of 20ms robot loops between game updates
          * @param up supplier for up input
          * @param down supplier for down input
          * @param left supplier for left input
@@ -55,13 +53,14 @@ public class LEDMatrixPatterns {
             this.right = right;
         }
 
-        private int i = 0;
+        // Clock time of the last game update, NaN until the game starts
+        private double lastUpdateTime = Double.NaN;
 
         @Override
         public void draw(LEDMatrixInterface leds) {
             // initialize game at proper size
             if (this.game == null) {
-                this.game = new SnakeGame(new Board(leds.cols(), leds.rows()));
+                this.game = new SnakeGame(leds.cols(), leds.rows());
             }
 
             if (isFinished()) {
@@ -70,133 +69,61 @@ public class LEDMatrixPatterns {
                 return;
             }
 
-            // read player input
-            // TODO: Direction queue
+            // read player input, queueing each new press
             if (up.getAsBoolean()) {
-                game.setDirection(Direction.UP);;
+                game.queueDirection(Direction.UP);
             } else if (down.getAsBoolean()) {
-                game.setDirection(Direction.DOWN);
+                game.queueDirection(Direction.DOWN);
             } else if (left.getAsBoolean()) {
-                game.setDirection(Direction.LEFT);
+                game.queueDirection(Direction.LEFT);
             } else if (right.getAsBoolean()) {
-                game.setDirection(Direction.RIGHT);
+                game.queueDirection(Direction.RIGHT);
             }
 
-            // update
-            if (i == updateRate) {
+            // update by time, so the snake moves at the same speed at any loop rate
+            final double time = LEDFrameClock.getDefault().getTime();
+            final double updatePeriod = updateRate * .02;
+            if (Double.isNaN(lastUpdateTime)) {
+                lastUpdateTime = time;
+            }
+            if (time - lastUpdateTime >= updatePeriod) {
                 game.update();
-                i = 0;
-
-                // draw to the screen
-                leds.setMatrixRGB(game.getMatrix());
+                // Stay on the update grid, unless the pattern wasn't drawn for a while
+                lastUpdateTime = time - lastUpdateTime < 2 * updatePeriod ? lastUpdateTime + updatePeriod : time;
             }
-            i++;
+
+            // draw to the screen
+            game.draw(leds);
         }
 
         @Override
         public boolean isFinished() {
-            return game.hasLost();
+            return game != null && game.isOver();
         }
 
         @Override
         public void reset() {
+            lastUpdateTime = Double.NaN;
+            if (game == null) {
+                return;
+            }
             System.out.println("Current High Score: " + game.getHighScore());
             System.out.println("Last Score: " + game.getScore());
             game.reset();
         }
 
-        private static class SnakeGame {
-            private final Board board;
-            private Snake snake;
-            private Point fruit;
-            private int score;
-            private int highScore;
-
-            private boolean hasLost;
-
-            public SnakeGame(Board board) {
-                this.board = board;
-                reset();
-                highScore = 0;
-            }
-
-            public void reset() {
-                hasLost = false;
-                snake = new Snake(new Point(0, board.height/2));
-                this.eatFruit();
-                score = 0;
-            }
-
-            public void eatFruit() {
-                this.snake.grow();
-
-                // Generate a new random location for the fruit
-                Random rand = new Random();
-                Point newFruit;
-                do {
-                    newFruit = new Point(rand.nextInt(this.board.getWidth()), rand.nextInt(this.board.getHeight()));
-                } while (this.snake.getBody().contains(newFruit)); // Make sure the fruit is not on the snake's body
-
-                this.fruit = newFruit;
-                score++;
-            }
-
-            public int getScore() {return score;}
-
-            public int getHighScore() {return highScore;}
-
-            public Mat getMatrix() {
-                Mat mat = board.getMatrix(snake);
-                mat.put(fruit.y, fruit.x, 255,0,0);
-                return mat;
-            }
-
-            public void update() {
-                this.snake.move();
-
-                if (this.snake.getHead().equals(this.fruit)) {
-                    this.eatFruit();
-                }
-
-                hasLost = checkLoss();
-            }
-
-            private boolean checkLoss() {
-                Point head = this.snake.getHead();
-
-                // Check if the snake's head is out of bounds
-                if (!this.board.contains(head)) {
-                    saveHighScore();
-                    return true;
-                }
-
-                // Check if the snake's head collided with its body
-                List<Point> body = this.snake.getBody();
-                if (body.size() > 1) {
-                    for (int i = 1; i < body.size(); i++) {
-                        if (head.equals(body.get(i))) {
-                            saveHighScore();
-                            return true;
-                        }
-                    }
-                }
-
-                return false;
-            }
-
-            public boolean hasLost() {
-                return hasLost;
-            }
-
-            public void setDirection(Direction direction) {
-                this.snake.setDirection(direction);
-            }
+        /**
+         * @return the score of the current game, or 0 before the first frame
+         */
+        public int getScore() {
+            return game == null ? 0 : game.getScore();
+        }
 
-            private void saveHighScore() {
-                if (score > highScore) {
-                    highScore = score;
-                }
-            }
+        /**
+         * @return the highest score so far, or 0 before the first frame
+         */
+        public int getHighScore() {
+            return game == null ? 0 : game.getHighScore();
         }
 
         /** Represents a direction in the snake game. */
@@ -233,167 +160,217 @@ public class LEDMatrixPatterns {
             public int getY() {
                 return this.y;
             }
+
+            private boolean isOpposite(Direction other) {
+                return x + other.x == 0 && y + other.y == 0;
+            }
         }
 
-        /** Represents the snake in the snake game. */
-        public static class Snake {
+        /**
+         * The game state, with every cell of the board numbered y * width + x.
+         */
+        static final class SnakeGame {
+            private static final int QUEUE_SIZE = 3;
+
+            private final int width, height;
+            private final int cells;
+            // The cells of the body from tail to head, in a ring buffer: the head is at
+            // body[(tail + length - 1) % cells]
+            private final int[] body;
+            private int tail, length;
+            // How long the snake grows to, one more for each fruit eaten
+            private int targetLength;
+            // The cells the body covers, one bit each
+            private final long[] occupied;
+            // Every cell the body doesn't cover is in free[0, freeCount), and freeIndex holds where each cell is in free
+            private final int[] free, freeIndex;
+            private int freeCount;
+            private final Random random = new Random();
+
             private Direction direction;
-            private final List<Point> body;
-            private int length;
+            // Turns waiting for the next update, in a ring buffer
+            private final Direction[] queue = new Direction[QUEUE_SIZE];
+            private int queueStart, queueCount;
 
-            /**
-             * Constructs a Snake at the given starting point.
-             * @param startPoint the starting position
-             */
-            public Snake(Point startPoint) {
-                this.direction = Direction.RIGHT;
-                this.body = new ArrayList<>();
-                this.body.add(startPoint);
-                this.length = 1;
+            // The fruit's cell, or -1 once the snake fills the board
+            private int fruit;
+            private int score;
+            private int highScore = 0;
+            private boolean over;
+
+            SnakeGame(int width, int height) {
+                this.width = width;
+                this.height = height;
+                cells = width * height;
+                body = new int[cells];
+                occupied = new long[(cells + 63) >> 6];
+                free = new int[cells];
+                freeIndex = new int[cells];
+                reset();
             }
 
-            /**
-             * Sets the direction the snake is moving.
-             * @param direction the new direction
-             */
-            public void setDirection(Direction direction) {
-                // prevent moving back on itself
-                if (this.direction.getX() + direction.getX() == 0 &&
-                        this.direction.getY() + direction.getY() == 0) {
-                    return;
+            void reset() {
+                Arrays.fill(occupied, 0);
+                for (int i = 0; i < cells; i++) {
+                    free[i] = i;
+                    freeIndex[i] = i;
                 }
-                this.direction = direction;
+                freeCount = cells;
+                tail = 0;
+                length = 0;
+                targetLength = 2;
+                direction = Direction.RIGHT;
+                queueCount = 0;
+                score = 0;
+                over = false;
+                occupy((height / 2) * width);
+                placeFruit();
             }
 
-            /**
-             * Gets the head position of the snake.
-             * @return the head position
-             */
-            public Point getHead() {
-                return this.body.get(0);
+            int getScore() {
+                return score;
             }
 
-            /**
-             * Gets the body segments of the snake.
-             * @return the list of body segments
-             */
-            public List<Point> getBody() {
-                return this.body;
+            int getHighScore() {
+                return highScore;
             }
 
-            /**
-             * Gets the length of the snake.
-             * @return the length
-             */
-            public int getLength() {
-                return this.length;
+            boolean isOver() {
+                return over;
             }
 
-            /**
-             * Moves the snake in its current direction.
-             */
-            public void move() {
-                Point head = this.getHead();
-                Point newHead = new Point(head.x + this.direction.getX(), head.y + this.direction.getY());
-                this.body.add(0, newHead);
-                if (this.body.size() > this.length) {
-                    this.body.remove(this.body.size() - 1);
-                }
+            int length() {
+                return length;
             }
 
-            /**
-             * Increases the snake's length by one.
-             */
-            public void grow() {
-                this.length++;
+            int head() {
+                return body[(tail + length - 1) % cells];
+            }
+
+            int fruit() {
+                return fruit;
             }
 
             /**
-             * Checks if the snake has collided with its own body.
-             * @return true if the snake has collided with itself
+             * Queues a turn for a later update.  Presses matching the last queued direction are ignored, so a held
+             * button only turns once, as are turns straight back into the body.
              */
-            public boolean hasCollidedWithBody() {
-                Point head = this.getHead();
-                for (int i = 1; i < this.body.size(); i++) {
-                    if (head.equals(this.body.get(i))) {
-                        return true;
-                    }
+            void queueDirection(Direction next) {
+                final Direction last = queueCount > 0 ? queue[(queueStart + queueCount - 1) % QUEUE_SIZE] : direction;
+                if (next == last || next.isOpposite(last) || queueCount == QUEUE_SIZE) {
+                    return;
                 }
-                return false;
-            }
-        }
-
-        private static class Board {
-            private final int width;
-            private final int height;
-
-            public Board(int width, int height) {
-                this.width = width;
-                this.height = height;
+                queue[(queueStart + queueCount) % QUEUE_SIZE] = next;
+                queueCount++;
             }
 
-            public int getWidth() {
-                return this.width;
-            }
+            /**
+             * Moves the snake one cell, eating the fruit or ending the game if it hits a wall or itself.
+             */
+            void update() {
+                if (over) {
+                    return;
+                }
+                if (queueCount > 0) {
+                    direction = queue[queueStart];
+                    queueStart = (queueStart + 1) % QUEUE_SIZE;
+                    queueCount--;
+                }
 
-            public int getHeight() {
-                return this.height;
-            }
+                final int head = head();
+                final int x = head % width + direction.getX(), y = head / width + direction.getY();
+                if (x < 0 || x >= width || y < 0 || y >= height) {
+                    end();
+                    return;
+                }
+                // The tail moves out of the way first, unless the snake is growing
+                if (length >= targetLength) {
+                    release(body[tail]);
+                    tail = (tail + 1) % cells;
+                    length--;
+                }
+                final int next = y * width + x;
+                if (isOccupied(next)) {
+                    end();
+                    return;
+                }
+                occupy(next);
 
-            public boolean contains(Point point) {
-                return point.x >= 0 && point.x < this.width && point.y >= 0 && point.y < this.height;
+                if (next == fruit) {
+                    targetLength++;
+                    score++;
+                    placeFruit();
+                }
             }
 
-            public Mat getMatrix(Snake snake) {
-                Mat matrix = new Mat(height, width, CvType.CV_8UC3);
-                for (int i = 0; i < height; i++) {
-                    for (int j = 0; j < width; j++) {
-                        matrix.put(i, j, 0,0,0);
+            /**
+             * Draws the board: the body green, fading to cyan towards the tail, and the fruit red.
+             */
+            void draw(LEDMatrixInterface leds) {
+                for (int i = 0, cell = 0; i < height; i++) {
+                    for (int j = 0; j < width; j++, cell++) {
+                        if (cell != fruit && !isOccupied(cell)) {
+                            leds.setRGB(j, i, 0, 0, 0);
+                        }
                     }
                 }
-                for (int i = 0; i < snake.getLength()-1; i++) {
-                    Point body = snake.getBody().get(i);
-                    matrix.put(body.y, body.x, 0, 255, Math.min(255, 3*i));
+                for (int i = 0; i < length; i++) {
+                    // i counts back from the head
+                    final int cell = body[(tail + length - 1 - i) % cells];
+                    leds.setRGB(cell % width, cell / width, 0, 255, Math.min(255, 3 * i));
+                }
+                if (fruit >= 0) {
+                    leds.setRGB(fruit % width, fruit / width, 255, 0, 0);
                 }
-                return matrix;
             }
-        }
 
-        /** Represents a point in 2D space. */
-        public static class Point {
-            /** The x coordinate. */
-            public int x;
-            /** The y coordinate. */
-            public int y;
+            private void end() {
+                over = true;
+                highScore = Math.max(highScore, score);
+            }
 
             /**
-             * Constructs a Point at the given coordinates.
-             * @param x the x coordinate
-             * @param y the y coordinate
+             * Moves the fruit to a random free cell, ending the game if the snake fills the board.
              */
-            public Point(int x, int y) {
-                this.x = x;
-                this.y = y;
+            private void placeFruit() {
+                if (freeCount == 0) {
+                    fruit = -1;
+                    end();
+                    return;
+                }
+                fruit = free[random.nextInt(freeCount)];
             }
 
-            @Override
-            public boolean equals(Object obj) {
-                if (this == obj) {
-                    return true;
-                }
-                if (!(obj instanceof Point other)) {
-                    return false;
-                }
-                return this.x == other.x && this.y == other.y;
+            private boolean isOccupied(int cell) {
+                return (occupied[cell >> 6] & (1L << cell)) != 0;
             }
 
-            @Override
-            public int hashCode() {
-                final int prime = 31;
-                int result = 1;
-                result = prime * result + this.x;
-                result = prime * result + this.y;
-                return result;
+            /**
+             * Adds a cell to the head of the body.
+             */
+            private void occupy(int cell) {
+                occupied[cell >> 6] |= 1L << cell;
+                // Swap the cell with the last free cell, then drop it
+                final int index = freeIndex[cell], last = free[--freeCount];
+                free[index] = last;
+                freeIndex[last] = index;
+                free[freeCount] = cell;
+                freeIndex[cell] = freeCount;
+                body[(tail + length) % cells] = cell;
+                length++;
+            }
+
+            /**
+             * Frees a cell the tail moved off of.
+             */
+            private void release(int cell) {
+                occupied[cell >> 6] &= ~(1L << cell);
+                final int index = freeIndex[cell], first = free[freeCount];
+                free[index] = first;
+                freeIndex[first] = index;
+                free[freeCount] = cell;
+                freeIndex[cell] = freeCount;
+                freeCount++;
             }
         }
     }
@@ -402,26 +379,25 @@ public class LEDMatrixPatterns {
     public static final LEDMatrixPattern NONE = leds -> {};
     /** Turns the LEDs off */
     public static final LEDMatrixPattern OFF = LEDMatrixInterface::off;
+    /** How fast the rainbow moves, in hue steps (of 180) per second. */
+    public static final int RAINBOW_SPEED = 50;
     /**
      * Animates a simple rainbow moving diagonally along the LED grid.
      * @return the rainbow pattern
      */
     public static LEDMatrixPattern RAINBOW() {
         return new LEDMatrixPattern() {
-            private int rainbowFirstPixelHue = 0;
             public void draw(LEDMatrixInterface leds) {
+                // Move the rainbow by time so it runs at the same speed at any loop rate
+                final int rainbowFirstPixelHue = (int) (LEDFrameClock.getDefault().getTimeMillis() * RAINBOW_SPEED / 1000 % 180);
                 // Diagonal rainbow
                 for (int i = 0; i < leds.rows(); i++) {
                     final int rowStartHue = (rainbowFirstPixelHue + (i * 180 / (leds.rows() + leds.cols()))) % 180;
                     for (int j = 0; j < leds.cols(); j++) {
                         final int hue = (rowStartHue + (j * 180 / (2 * leds.cols()))) % 180;
-                        leds.setHSV(i, j, hue, 255, 128);
+                        leds.setHSV(j, i, hue, 255, 128);
                     }
                 }
-                // Increase by to make the rainbow "move"
-                rainbowFirstPixelHue++;
-                // Check bounds
-                rainbowFirstPixelHue %= 180;
             }
         };
     }
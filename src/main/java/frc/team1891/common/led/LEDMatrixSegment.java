@@ -2,53 +2,195 @@ package frc.team1891.common.led;
 
 import org.opencv.core.Mat;
 
+import java.util.Arrays;
+
 /**
  * A wrapper class to handle control only a specific part of an {@link LEDMatrix}.
+ *
+ * <p>A segment is a rectangular viewport onto its parent, which can hang partly (or entirely) off the edge of the
+ * parent to clip whatever is drawn on it.  Segments nest, and can be {@link #rotated(LEDMatrixLayout.Rotation)
+ * rotated}, {@link #flipped(boolean, boolean) flipped} and {@link #scaled(int) scaled} into new segments:</p>
+ * <pre>{@code
+ * LEDMatrixSegment score = new LEDMatrixSegment(matrix, 0, 8, 16, 8);
+ * LEDMatrixSegment sideways = new LEDMatrixSegment(matrix, 24, 0, 8, 16).rotated(LEDMatrixLayout.Rotation.CLOCKWISE_90);
+ * LEDMatrixSegment bigPixels = new LEDMatrixSegment(matrix, 0, 0, 32, 8).scaled(2);
+ * }</pre>
+ *
+ * <p>However a segment is built, the strip index of every LED it covers is worked out once when it's created, so a
+ * write costs one table lookup no matter how deeply it's nested or transformed.</p>
  */
 @SuppressWarnings("unused")
-public class LEDMatrixSegment implements LEDMatrixInterface {
-    private final int startIndex;
-    private final int length;
-    private final int numCols, numRows;
+public class LEDMatrixSegment implements LEDMatrixInterface, LEDReadableStripInterface {
     private final LEDMatrix parentMatrix;
-
-    private final int startX, startY;
+    private final LEDStrip strip;
+    private final int numCols, numRows;
+    private final int length;
+    // How many LEDs each pixel covers, the square of the scale
+    private final int pixelLEDs;
+    // The index on the parent strip of each LED each pixel covers, pixelLEDs in a row per pixel indexed by
+    // y * numCols + x, or -1 where the segment is clipped (which the strip ignores)
+    private final int[] stripIndices;
+    // Reusable buffer for reading a whole Mat at once, allocated on first use
+    private byte[] matBytes;
 
     /**
      * Creates a new {@link LEDMatrixSegment} to control a smaller rectangle within an {@link LEDMatrix}.
      * @param parentMatrix the parent LEDMatrix this is a part of
-     * @param startIndex the first index of the segment on the parent LEDMatrix (not the actual LED index, just the
-     *                   index relative to the start of the LEDMatrix)
+     * @param startIndex the top left corner of the segment as a row major index on the parent LEDMatrix
+     *                   ({@code y * cols + x}, not the actual LED index)
      * @param numCols the width of the subsection
      * @param numRows the height of the subsection
      */
     public LEDMatrixSegment(LEDMatrix parentMatrix, int startIndex, int numCols, int numRows) {
+        this(parentMatrix, startIndex % parentMatrix.cols(), startIndex / parentMatrix.cols(), numCols, numRows);
+    }
+
+    /**
+     * Creates a new {@link LEDMatrixSegment} to control a rectangle of an {@link LEDMatrix}.  Any part of the
+     * rectangle off the matrix is clipped.
+     * @param parentMatrix the parent LEDMatrix this is a part of
+     * @param x column of the left of the segment on the parent
+     * @param y row of the top of the segment on the parent
+     * @param width the width of the segment
+     * @param height the height of the segment
+     * @throws IllegalArgumentException if the width or height is negative
+     */
+    public LEDMatrixSegment(LEDMatrix parentMatrix, int x, int y, int width, int height) {
+        this(parentMatrix, height, width, 1, newStripIndices(width, height, 1));
+        for (int i = 0; i < length; i++) {
+            stripIndices[i] = parentMatrix.stripIndexOf(x + xOf(i), y + yOf(i));
+        }
+    }
+
+    /**
+     * Creates a new {@link LEDMatrixSegment} to control a rectangle of another segment.  Any part of the rectangle
+     * off the parent segment is clipped.
+     * @param parentSegment the parent segment this is a part of
+     * @param x column of the left of the segment on the parent
+     * @param y row of the top of the segment on the parent
+     * @param width the width of the segment
+     * @param height the height of the segment
+     * @throws IllegalArgumentException if the width or height is negative
+     */
+    public LEDMatrixSegment(LEDMatrixSegment parentSegment, int x, int y, int width, int height) {
+        this(parentSegment.parentMatrix, height, width, parentSegment.pixelLEDs,
+                newStripIndices(width, height, parentSegment.pixelLEDs));
+        for (int i = 0; i < length; i++) {
+            parentSegment.copyPixel(x + xOf(i), y + yOf(i), stripIndices, i * pixelLEDs);
+        }
+    }
+
+    private LEDMatrixSegment(LEDMatrix parentMatrix, int numRows, int numCols, int pixelLEDs, int[] stripIndices) {
         this.parentMatrix = parentMatrix;
-        this.startIndex = startIndex;
-        this.length = numCols * numRows;
-        this.numCols = numCols;
+        this.strip = parentMatrix.getParentStrip();
         this.numRows = numRows;
+        this.numCols = numCols;
+        this.length = numRows * numCols;
+        this.pixelLEDs = pixelLEDs;
+        this.stripIndices = stripIndices;
+    }
+
+    /**
+     * Checks the size of a new segment before its strip indices are allocated, so a negative size is reported as
+     * such rather than as a negative array size.
+     */
+    private static int[] newStripIndices(int numCols, int numRows, int pixelLEDs) {
+        if (numRows < 0 || numCols < 0) {
+            throw new IllegalArgumentException("A segment can't be " + numCols + "x" + numRows);
+        }
+        return new int[numCols * numRows * pixelLEDs];
+    }
 
-        this.startX = parentMatrix.xOf(startIndex);
-        this.startY = parentMatrix.yOf(startIndex);
+    /**
+     * Copies the strip indices of the LEDs a pixel covers, or -1s if the pixel is outside this segment.
+     */
+    private void copyPixel(int x, int y, int[] indices, int offset) {
+        if (checkX(x) && checkY(y)) {
+            System.arraycopy(stripIndices, (y * numCols + x) * pixelLEDs, indices, offset, pixelLEDs);
+        } else {
+            Arrays.fill(indices, offset, offset + pixelLEDs, -1);
+        }
     }
 
     /**
-     * Returns the x coordinate on the parent matrix from the given submatrix coordinate.
-     * @param x coordinate in the submatrix
-     * @return the parent matrix coordinate
+     * Creates a segment showing this one rotated, so an image drawn upright on it appears rotated on this segment.
+     * A quarter turn swaps the rows and columns.
+     * @param rotation how far the image is turned on this segment
+     * @return the rotated segment
      */
-    private int getParentX(int x) {
-        return startX + x;
+    public LEDMatrixSegment rotated(LEDMatrixLayout.Rotation rotation) {
+        final boolean quarter = rotation == LEDMatrixLayout.Rotation.CLOCKWISE_90
+                || rotation == LEDMatrixLayout.Rotation.COUNTERCLOCKWISE_90;
+        final int rows = quarter ? numCols : numRows, cols = quarter ? numRows : numCols;
+        final LEDMatrixSegment rotated = new LEDMatrixSegment(parentMatrix, rows, cols, pixelLEDs,
+                new int[stripIndices.length]);
+        for (int y = 0, i = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++, i++) {
+                final int sourceX, sourceY;
+                switch (rotation) {
+                    case CLOCKWISE_90 -> {
+                        sourceX = numCols - 1 - y;
+                        sourceY = x;
+                    }
+                    case ROTATE_180 -> {
+                        sourceX = numCols - 1 - x;
+                        sourceY = numRows - 1 - y;
+                    }
+                    case COUNTERCLOCKWISE_90 -> {
+                        sourceX = y;
+                        sourceY = numRows - 1 - x;
+                    }
+                    default -> {
+                        sourceX = x;
+                        sourceY = y;
+                    }
+                }
+                copyPixel(sourceX, sourceY, rotated.stripIndices, i * pixelLEDs);
+            }
+        }
+        return rotated;
     }
 
     /**
-     * Returns the y coordinate on the parent matrix from the given submatrix coordinate.
-     * @param y coordinate in the submatrix
-     * @return the parent matrix coordinate
+     * Creates a segment showing this one mirrored.
+     * @param flipX mirror left to right
+     * @param flipY mirror top to bottom
+     * @return the flipped segment
      */
-    private int getParentY(int y) {
-        return startY + y;
+    public LEDMatrixSegment flipped(boolean flipX, boolean flipY) {
+        final LEDMatrixSegment flipped = new LEDMatrixSegment(parentMatrix, numRows, numCols, pixelLEDs,
+                new int[stripIndices.length]);
+        for (int i = 0; i < length; i++) {
+            final int x = xOf(i), y = yOf(i);
+            copyPixel(flipX ? numCols - 1 - x : x, flipY ? numRows - 1 - y : y, flipped.stripIndices, i * pixelLEDs);
+        }
+        return flipped;
+    }
+
+    /**
+     * Creates a segment whose pixels are each a square block of this one's, for drawing small images on a large
+     * matrix.  Any rows or columns left over on the right and bottom aren't covered.
+     * @param scale the width and height of each block, in pixels of this segment
+     * @return the scaled segment
+     */
+    public LEDMatrixSegment scaled(int scale) {
+        if (scale < 1) {
+            throw new IllegalArgumentException("The scale must be at least 1, not " + scale);
+        }
+        final int rows = numRows / scale, cols = numCols / scale;
+        final int blockLEDs = pixelLEDs * scale * scale;
+        final LEDMatrixSegment scaled = new LEDMatrixSegment(parentMatrix, rows, cols, blockLEDs,
+                new int[rows * cols * blockLEDs]);
+        for (int y = 0, i = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++, i++) {
+                for (int dy = 0, offset = i * blockLEDs; dy < scale; dy++) {
+                    for (int dx = 0; dx < scale; dx++, offset += pixelLEDs) {
+                        copyPixel(x * scale + dx, y * scale + dy, scaled.stripIndices, offset);
+                    }
+                }
+            }
+        }
+        return scaled;
     }
 
     @Override
@@ -83,7 +225,7 @@ public class LEDMatrixSegment implements LEDMatrixInterface {
 
     /**
      * Returns x coordinate from top left corner.
-     * @param index one dimensional index, accounting for serpentine wiring
+     * @param index one dimensional index, in row major order
      * @return x coordinate of the index
      */
     public int xOf(int index) {
@@ -92,104 +234,127 @@ public class LEDMatrixSegment implements LEDMatrixInterface {
 
     /**
      * Returns y coordinate from top left corner (down being positive).
-     * @param index one dimensional index, accounting for serpentine wiring
+     * @param index one dimensional index, in row major order
      * @return y coordinate of the index
      */
     public int yOf(int index) {
         return index / numCols;
     }
 
+    /**
+     * Sets the pixel at the given index (y * cols + x) to a packed color.
+     * @param index the target pixel
+     * @param rgb packed 0xRRGGBB color
+     */
+    void setPixel(int index, int rgb) {
+        if (pixelLEDs == 1) {
+            strip.setPixel(stripIndices[index], rgb);
+            return;
+        }
+        for (int i = index * pixelLEDs, end = i + pixelLEDs; i < end; i++) {
+            strip.setPixel(stripIndices[i], rgb);
+        }
+    }
+
     @Override
     public void setHue(int x, int y, int hue) {
-        if (checkX(x) && checkY(y)) {
-            parentMatrix.setHue(getParentX(x), getParentY(y), hue);
-        }
+        setHSV(x, y, hue, 255, 128);
     }
 
     @Override
     public void setHue(int index, int hue) {
-        this.setHue(xOf(index), yOf(index), hue);
+        setHSV(index, hue, 255, 128);
     }
 
     @Override
     public void setHSV(int x, int y, int hue, int sat, int val) {
         if (checkX(x) && checkY(y)) {
-            parentMatrix.setHSV(getParentX(x), getParentY(y), hue, sat, val);
+            setPixel(y * numCols + x, strip.convertHSV(hue, sat, val));
         }
     }
 
     @Override
     public void setHSV(int index, int hue, int sat, int val) {
-        this.setHSV(xOf(index), yOf(index), hue, sat, val);
+        if (checkValidIndex(index)) {
+            setPixel(index, strip.convertHSV(hue, sat, val));
+        }
     }
 
     @Override
     public void setRGB(int x, int y, int r, int g, int b) {
         if (checkX(x) && checkY(y)) {
-            parentMatrix.setRGB(getParentX(x), getParentY(y), r, g, b);
+            setPixel(y * numCols + x, ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF));
         }
     }
 
     @Override
     public void setRGB(int index, int r, int g, int b) {
-        this.setRGB(xOf(index), yOf(index), r, g, b);
+        if (checkValidIndex(index)) {
+            setPixel(index, ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF));
+        }
+    }
+
+    @Override
+    public int getRGB(int index) {
+        return checkValidIndex(index) ? strip.getRGB(stripIndices[index * pixelLEDs]) : 0;
     }
 
     @Override
     public void setRangeHue(int startIndex, int endIndex, int hue) {
-        for (int i = startIndex; i < endIndex; i++) {
-            this.setHue(i, hue);
-        }
+        setRangeHSV(startIndex, endIndex, hue, 255, 128);
     }
 
     @Override
     public void setRangeHSV(int startIndex, int endIndex, int hue, int sat, int val) {
-        for (int i = startIndex; i < endIndex; i++) {
-            this.setHSV(i, hue, sat, val);
-        }
+        fill(startIndex, endIndex, strip.convertHSV(hue, sat, val));
     }
 
     @Override
     public void setRangeRGB(int startIndex, int endIndex, int r, int g, int b) {
+        fill(startIndex, endIndex, ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF));
+    }
+
+    @Override
+    public void fill(int startIndex, int endIndex, int rgb) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
         for (int i = startIndex; i < endIndex; i++) {
-            this.setRGB(i, r, g, b);
+            setPixel(i, rgb);
         }
     }
 
     @Override
     public boolean setMatrixHSV(Mat matrix) {
-        if (checkMatrix(matrix)) {
-            for (int i = 0; i < numRows; ++i) {
-                for (int j = 0; j < numCols; ++j) {
-                    double[] element = matrix.get(i, j);
-                    int curBufIndex = oneDimensionalIndexOf(i, j);
-                    this.setHSV(curBufIndex, (int) element[2], (int) element[1], (int) element[0]);
-                }
-            }
-            return true;
-        }
-        return false;
+        return setMatrix(matrix, true);
     }
 
     @Override
     public boolean setMatrixRGB(Mat matrix) {
-        if (checkMatrix(matrix)) {
-            for (int i = 0; i < numRows; ++i) {
-                for (int j = 0; j < numCols; ++j) {
-                    double[] element = matrix.get(i, j);
-                    int curBufIndex = oneDimensionalIndexOf(i, j);
-                    this.setRGB(curBufIndex, (int) element[2], (int) element[1], (int) element[0]);
-                }
-            }
-            return true;
+        return setMatrix(matrix, false);
+    }
+
+    private boolean setMatrix(Mat matrix, boolean hsv) {
+        if (!checkMatrix(matrix)) {
+            return false;
+        }
+
+        if (matBytes == null) {
+            matBytes = new byte[length * 3];
         }
-        return false;
+        // Reads the whole Mat in one call, OpenCV copies it row by row if it isn't continuous (like a submat)
+        matrix.get(0, 0, matBytes);
+        final byte[] bytes = matBytes;
+
+        for (int i = 0, j = 0; i < length; i++, j += 3) {
+            // The channels are stored in reverse order
+            final int a = bytes[j + 2] & 0xFF, b = bytes[j + 1] & 0xFF, c = bytes[j] & 0xFF;
+            setPixel(i, hsv ? strip.convertHSV(a, b, c) : (a << 16) | (b << 8) | c);
+        }
+        return true;
     }
 
     @Override
     public void off() {
-        for (int i = 0; i < length; i++) {
-            this.setRGB(i, 0, 0, 0);
-        }
+        fill(0, length, 0);
     }
 }
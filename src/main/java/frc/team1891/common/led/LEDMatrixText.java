@@ -0,0 +1,326 @@
+package frc.team1891.common.led;
+
+import java.util.Arrays;
+
+/**
+ * A pattern that draws a line of text in an {@link LEDFont}, either held in place or scrolling across the matrix as a
+ * marquee.
+ *
+ * <pre>{@code
+ * LEDMatrixText timer = new LEDMatrixText(LEDFont.FONT_5X7, "2:15", 255, 255, 255);
+ * LEDMatrixText banner = new LEDMatrixText(LEDFont.FONT_5X7, "GO TEAM 1891", 0, 0, 255).scroll(12);
+ * // Every loop
+ * timer.setText(timeRemaining);
+ * timer.run(scoreSegment);
+ * banner.run(bannerSegment);
+ * }</pre>
+ *
+ * <p>The text is rendered into a packed 0xRRGGBB frame the size of the matrix and written to it in one pass, so it's
+ * clipped to whatever matrix or {@link LEDMatrixSegment} it's drawn on.  Held text is only rendered again when it
+ * changes; setting the same text every loop is free.  A marquee shifts the frame one column left for each column it
+ * scrolls and renders just the newly exposed column from the glyph it's passing through, so scrolling costs the same
+ * at any text length.  Scrolling is timed on the default {@link LEDFrameClock}, and nothing is allocated after the
+ * first frame unless the text grows.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDMatrixText implements LEDMatrixPattern {
+    private final LEDFont font;
+    // The text, reused as long as it fits
+    private char[] text;
+    private int textLength, textWidth;
+    private int color, background = 0;
+    // Where the top left of the text is drawn when held in place, centered vertically if not set
+    private int x = 0, y = 0;
+    private boolean centered = true;
+    // Columns per second of the marquee, or 0 if the text is held in place
+    private double speed = 0;
+
+    // The frame written to the matrix, packed 0xRRGGBB, indexed by y * cols + x
+    private int rows, cols;
+    private int[] frame;
+    // Whether held text needs to be rendered again
+    private boolean dirty = true;
+
+    // Clock time the marquee started at, NaN until it's first drawn
+    private double startTime = Double.NaN;
+    // How many columns the marquee has scrolled
+    private long scrolled;
+    // The next column to scroll in: a column of the character at charIndex, or of the gap after the text if
+    // charIndex is the text length
+    private int charIndex, charColumn;
+
+    /**
+     * Creates a new {@link LEDMatrixText}, held at the left of the matrix and centered vertically.
+     * @param font the font to draw the text in
+     * @param text the text
+     * @param r red
+     * @param g green
+     * @param b blue
+     */
+    public LEDMatrixText(LEDFont font, CharSequence text, int r, int g, int b) {
+        this.font = font;
+        this.text = new char[Math.max(16, text.length())];
+        this.color = (r << 16) | (g << 8) | b;
+        setText(text);
+    }
+
+    /**
+     * Changes the text.  Does nothing if it's the same as the current text, so it can be called every loop.  A marquee
+     * keeps scrolling from where it is.
+     * @param text the new text
+     * @return this pattern
+     */
+    public LEDMatrixText setText(CharSequence text) {
+        final int length = text.length();
+        if (length == textLength) {
+            boolean same = true;
+            for (int i = 0; i < length && same; i++) {
+                same = this.text[i] == text.charAt(i);
+            }
+            if (same) {
+                return this;
+            }
+        }
+        if (length > this.text.length) {
+            this.text = new char[Math.max(length, this.text.length * 2)];
+        }
+        int width = 0;
+        for (int i = 0; i < length; i++) {
+            this.text[i] = text.charAt(i);
+            width += font.advance(this.text[i]);
+        }
+        textLength = length;
+        textWidth = width;
+        if (charIndex > length) {
+            charIndex = length;
+            charColumn = 0;
+        }
+        dirty = true;
+        return this;
+    }
+
+    /**
+     * @return the text being drawn
+     */
+    public String getText() {
+        return new String(text, 0, textLength);
+    }
+
+    /**
+     * Sets the color of the text.
+     * @param r red
+     * @param g green
+     * @param b blue
+     * @return this pattern
+     */
+    public LEDMatrixText setColor(int r, int g, int b) {
+        recolor((r << 16) | (g << 8) | b, background);
+        return this;
+    }
+
+    /**
+     * Sets the color of every LED that isn't part of the text, off by default.
+     * @param r red
+     * @param g green
+     * @param b blue
+     * @return this pattern
+     */
+    public LEDMatrixText setBackground(int r, int g, int b) {
+        recolor(color, (r << 16) | (g << 8) | b);
+        return this;
+    }
+
+    private void recolor(int color, int background) {
+        if (frame != null && (color != this.color || background != this.background)) {
+            // Recolors what's already scrolled in, rather than rendering it again
+            final int[] frame = this.frame;
+            for (int i = 0; i < frame.length; i++) {
+                frame[i] = frame[i] == this.color ? color : background;
+            }
+        }
+        this.color = color;
+        this.background = background;
+    }
+
+    /**
+     * Holds the text in place with its top left corner at the given position, which can be outside the matrix to
+     * clip the text.  Stops any marquee.
+     * @param x column of the left of the text
+     * @param y row of the top of the text
+     * @return this pattern
+     */
+    public LEDMatrixText setPosition(int x, int y) {
+        this.x = x;
+        this.y = y;
+        centered = false;
+        speed = 0;
+        dirty = true;
+        return this;
+    }
+
+    /**
+     * Scrolls the text from right to left across the matrix, then scrolls it in again once it's fully out.  The text
+     * is centered vertically.
+     * @param columnsPerSecond how fast the text scrolls, or 0 to hold it in place at the left of the matrix
+     * @return this pattern
+     */
+    public LEDMatrixText scroll(double columnsPerSecond) {
+        speed = Math.max(0, columnsPerSecond);
+        x = 0;
+        centered = true;
+        reset();
+        return this;
+    }
+
+    /**
+     * @return true if the text is scrolling
+     */
+    public boolean isScrolling() {
+        return speed > 0;
+    }
+
+    @Override
+    public void draw(LEDMatrixInterface leds) {
+        if (frame == null || leds.rows() != rows || leds.cols() != cols) {
+            rows = leds.rows();
+            cols = leds.cols();
+            frame = new int[rows * cols];
+            reset();
+        }
+
+        if (speed > 0) {
+            final double time = LEDFrameClock.getDefault().getTime();
+            if (Double.isNaN(startTime)) {
+                startTime = time;
+            }
+            final long target = (long) ((time - startTime) * speed);
+            long behind = target - scrolled;
+            if (behind > cols) {
+                // Everything on screen would scroll off anyway, so skip straight to the last screenful
+                skipColumns(behind - cols);
+                behind = cols;
+            }
+            for (long i = 0; i < behind; i++) {
+                shiftColumn();
+            }
+            scrolled = target;
+        } else if (dirty) {
+            Arrays.fill(frame, background);
+            drawText(frame, rows, cols, font, text, textLength, x, top(), color);
+            dirty = false;
+        }
+
+        LEDBuffer.writeFrame(frame, rows, cols, leds);
+    }
+
+    /**
+     * Starts the marquee over, off the right of the matrix.
+     */
+    @Override
+    public void reset() {
+        startTime = Double.NaN;
+        scrolled = 0;
+        charIndex = 0;
+        charColumn = 0;
+        dirty = true;
+        if (frame != null) {
+            Arrays.fill(frame, background);
+        }
+    }
+
+    private int top() {
+        return centered ? (rows - font.height()) / 2 : y;
+    }
+
+    /**
+     * Shifts the frame left one column and renders the next column of the text on the right.
+     */
+    private void shiftColumn() {
+        final int[] frame = this.frame;
+        final int cols = this.cols;
+        final int last = cols - 1;
+        for (int row = 0; row < frame.length; row += cols) {
+            System.arraycopy(frame, row + 1, frame, row, last);
+            frame[row + last] = background;
+        }
+
+        if (charIndex < textLength) {
+            final int bits = charColumn < 8 ? LEDFont.column(font.glyph(text[charIndex]), charColumn) : 0;
+            final int top = top();
+            for (int y = Math.max(0, -top); bits >>> y != 0 && top + y < rows; y++) {
+                if ((bits & (1 << y)) != 0) {
+                    frame[(top + y) * cols + last] = color;
+                }
+            }
+        }
+        skipColumns(1);
+    }
+
+    /**
+     * Moves the next column of the text along without rendering anything.
+     */
+    private void skipColumns(long columns) {
+        // A full pass is the text plus a matrix-wide gap, so the text is fully out before it comes in again
+        columns %= textWidth + cols;
+        for (long i = 0; i < columns; i++) {
+            charColumn++;
+            final int width = charIndex < textLength ? font.advance(text[charIndex]) : cols;
+            if (charColumn >= width) {
+                charColumn = 0;
+                charIndex = charIndex < textLength ? charIndex + 1 : 0;
+            }
+        }
+    }
+
+    /**
+     * Draws a line of text onto a matrix, setting only the LEDs the glyphs light and clipping anything off the
+     * matrix.  Doesn't update the LEDs.
+     * @param leds the matrix, or a segment of one
+     * @param font the font
+     * @param text the text
+     * @param x column of the left of the text, which can be off the matrix
+     * @param y row of the top of the text, which can be off the matrix
+     * @param rgb the packed 0xRRGGBB color of the text
+     * @return the width of the text in columns, to place more text after it
+     */
+    public static int drawText(LEDMatrixInterface leds, LEDFont font, CharSequence text, int x, int y, int rgb) {
+        final int rows = leds.rows(), cols = leds.cols();
+        final int r = (rgb >> 16) & 0xFF, g = (rgb >> 8) & 0xFF, b = rgb & 0xFF;
+        int left = x;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            final long glyph = font.glyph(c);
+            // Only the columns of the glyph that are on the matrix
+            final int start = Math.max(0, -left), end = Math.min(8, cols - left);
+            for (int column = start; column < end; column++) {
+                final int bits = LEDFont.column(glyph, column);
+                for (int row = Math.max(0, -y); bits >>> row != 0 && y + row < rows; row++) {
+                    if ((bits & (1 << row)) != 0) {
+                        leds.setRGB(left + column, y + row, r, g, b);
+                    }
+                }
+            }
+            left += font.advance(c);
+        }
+        return left - x;
+    }
+
+    private static void drawText(int[] frame, int rows, int cols, LEDFont font, char[] text, int length, int x, int y,
+                                 int rgb) {
+        int left = x;
+        for (int i = 0; i < length && left < cols; i++) {
+            final char c = text[i];
+            final long glyph = font.glyph(c);
+            final int start = Math.max(0, -left), end = Math.min(8, cols - left);
+            for (int column = start; column < end; column++) {
+                final int bits = LEDFont.column(glyph, column);
+                for (int row = Math.max(0, -y); bits >>> row != 0 && y + row < rows; row++) {
+                    if ((bits & (1 << row)) != 0) {
+                        frame[(y + row) * cols + left + column] = rgb;
+                    }
+                }
+            }
+            left += font.advance(c);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package frc.team1891.common.led;
+
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Combines a grid of identically sized {@link LEDMatrix} panels into one large display.  The panels can be on
+ * different {@link LEDStrip}s (and ports), and chained in any order.
+ *
+ * <p>The strip and LED index of every pixel are looked up once when the wall is created, so each write goes straight
+ * to the strip that owns the pixel.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDMatrixWall implements LEDMatrixInterface, LEDReadableStripInterface {
+    private final int numRows, numCols;
+    private final int length;
+    // Every distinct strip behind the wall, updated together
+    private final LEDStrip[] strips;
+    // The strip (index into strips) and the LED index on that strip of each pixel, indexed by y * numCols + x
+    private final byte[] pixelStrips;
+    private final int[] pixelIndices;
+    // Reusable buffer for reading a whole Mat at once, allocated on first use
+    private byte[] matBytes;
+
+    /**
+     * Creates a new {@link LEDMatrixWall} from a grid of panels.
+     * @param tileRows number of panels stacked vertically
+     * @param tileCols number of panels side by side
+     * @param panels the panels, left to right then top to bottom, all with the same dimensions
+     */
+    public LEDMatrixWall(int tileRows, int tileCols, LEDMatrix... panels) {
+        if (panels.length != tileRows * tileCols) {
+            throw new IllegalArgumentException("Expected " + tileRows * tileCols + " panels, got " + panels.length);
+        }
+        final int panelRows = panels[0].rows();
+        final int panelCols = panels[0].cols();
+        this.numRows = tileRows * panelRows;
+        this.numCols = tileCols * panelCols;
+        this.length = numRows * numCols;
+
+        final List<LEDStrip> stripList = new ArrayList<>();
+        for (LEDMatrix panel : panels) {
+            if (panel.rows() != panelRows || panel.cols() != panelCols) {
+                throw new IllegalArgumentException("All panels must be " + panelCols + "x" + panelRows);
+            }
+            if (!stripList.contains(panel.getParentStrip())) {
+                stripList.add(panel.getParentStrip());
+            }
+        }
+        if (stripList.size() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("A wall can span at most " + Byte.MAX_VALUE + " strips");
+        }
+        strips = stripList.toArray(new LEDStrip[0]);
+
+        pixelStrips = new byte[length];
+        pixelIndices = new int[length];
+        for (int y = 0; y < numRows; y++) {
+            for (int x = 0; x < numCols; x++) {
+                final LEDMatrix panel = panels[(y / panelRows) * tileCols + x / panelCols];
+                pixelStrips[y * numCols + x] = (byte) stripList.indexOf(panel.getParentStrip());
+                pixelIndices[y * numCols + x] = panel.stripIndexOf(x % panelCols, y % panelRows);
+            }
+        }
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int rows() {
+        return numRows;
+    }
+
+    @Override
+    public int cols() {
+        return numCols;
+    }
+
+    /**
+     * Sends every strip behind the wall to its LEDs.
+     */
+    @Override
+    public void update() {
+        for (LEDStrip strip : strips) {
+            strip.update();
+        }
+    }
+
+    /**
+     * Sets the pixel at the given index (y * cols + x) to a packed color.
+     * @param index the target pixel
+     * @param rgb packed 0xRRGGBB color
+     */
+    void setPixel(int index, int rgb) {
+        strips[pixelStrips[index]].setPixel(pixelIndices[index], rgb);
+    }
+
+    @Override
+    public void setHue(int x, int y, int hue) {
+        setHSV(x, y, hue, 255, 128);
+    }
+
+    @Override
+    public void setHue(int index, int hue) {
+        setHSV(index, hue, 255, 128);
+    }
+
+    @Override
+    public void setHSV(int x, int y, int hue, int sat, int val) {
+        if (checkX(x) && checkY(y)) {
+            setHSV(y * numCols + x, hue, sat, val);
+        }
+    }
+
+    @Override
+    public void setHSV(int index, int hue, int sat, int val) {
+        if (checkValidIndex(index)) {
+            final LEDStrip strip = strips[pixelStrips[index]];
+            strip.setPixel(pixelIndices[index], strip.convertHSV(hue, sat, val));
+        }
+    }
+
+    @Override
+    public void setRGB(int x, int y, int r, int g, int b) {
+        if (checkX(x) && checkY(y)) {
+            setPixel(y * numCols + x, ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF));
+        }
+    }
+
+    @Override
+    public void setRGB(int index, int r, int g, int b) {
+        if (checkValidIndex(index)) {
+            setPixel(index, ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF));
+        }
+    }
+
+    @Override
+    public int getRGB(int index) {
+        return checkValidIndex(index) ? strips[pixelStrips[index]].getRGB(pixelIndices[index]) : 0;
+    }
+
+    @Override
+    public boolean setMatrixHSV(Mat matrix) {
+        return setMatrix(matrix, true);
+    }
+
+    @Override
+    public boolean setMatrixRGB(Mat matrix) {
+        return setMatrix(matrix, false);
+    }
+
+    private boolean setMatrix(Mat matrix, boolean hsv) {
+        if (!checkMatrix(matrix)) {
+            return false;
+        }
+
+        if (matBytes == null) {
+            matBytes = new byte[length * 3];
+        }
+        // Reads the whole Mat in one call, OpenCV copies it row by row if it isn't continuous (like a submat)
+        matrix.get(0, 0, matBytes);
+        final byte[] bytes = matBytes;
+
+        for (int i = 0, j = 0; i < length; i++, j += 3) {
+            final LEDStrip strip = strips[pixelStrips[i]];
+            final int a = bytes[j] & 0xFF, b = bytes[j + 1] & 0xFF, c = bytes[j + 2] & 0xFF;
+            strip.setPixel(pixelIndices[i], hsv ? strip.convertHSV(a, b, c) : (a << 16) | (b << 8) | c);
+        }
+        return true;
+    }
+
+    @Override
+    public void off() {
+        for (int i = 0; i < length; i++) {
+            setPixel(i, 0);
+        }
+    }
+}
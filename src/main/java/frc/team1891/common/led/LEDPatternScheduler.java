@@ -0,0 +1,291 @@
+package frc.team1891.common.led;
+
+import java.util.Arrays;
+
+/**
+ * Decides which of several requested patterns is shown on an LED strip, segment or matrix.
+ *
+ * <p>Patterns are scheduled with a priority, and each frame only the highest priority one draws.  The newest wins
+ * between equal priorities.  A request lasts until it's cancelled, until its timeout passes, or if it was scheduled
+ * {@link Request#untilFinished() until finished}, until its pattern {@link LEDStripPattern#isFinished() finishes}.
+ * Whatever was showing before comes back when it ends, so an ambient pattern only has to be scheduled once.</p>
+ *
+ * <p>Whenever a different request comes to the top, the LEDs are turned off before it draws, so nothing the previous
+ * pattern left behind shows through a pattern that only draws some of the LEDs, or only draws what changed.  A
+ * restored pattern isn't {@link LEDStripPattern#reset() reset}; it carries on from its own state, drawing onto
+ * cleared LEDs.</p>
+ * <pre>{@code
+ * LEDPatternScheduler scheduler = new LEDPatternScheduler(strip);
+ * scheduler.schedule(LEDStripPatterns.RAINBOW(), 0);
+ * // Later, shows ERROR for two seconds, then the rainbow again
+ * scheduler.schedule(LEDStripPatterns.ERROR(), 10).withTimeout(2);
+ * // Every loop
+ * scheduler.run();
+ * }</pre>
+ *
+ * <p>Requests are kept in a binary heap, so scheduling and cancelling cost O(log n), and running a frame doesn't
+ * allocate.  Timeouts are measured on the default {@link LEDFrameClock}.  To schedule segments of a strip separately,
+ * give each segment its own scheduler, call {@link #draw()} on each, then update the strip once.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDPatternScheduler {
+    /**
+     * A pattern scheduled on a {@link LEDPatternScheduler}.
+     */
+    public static final class Request {
+        private final LEDPatternScheduler scheduler;
+        private final LEDStripPattern stripPattern;
+        private final LEDMatrixPattern matrixPattern;
+        private final int priority;
+        // Breaks ties between equal priorities, newer requests first
+        private final long sequence;
+        private final long scheduledNanos;
+        private long expiresNanos = Long.MAX_VALUE;
+        private boolean untilFinished = false;
+        private boolean started = false;
+        // Position in the scheduler's heap, or -1 once the request has ended
+        private int heapIndex = -1;
+
+        private Request(LEDPatternScheduler scheduler, LEDStripPattern stripPattern, LEDMatrixPattern matrixPattern,
+                        int priority, long sequence) {
+            this.scheduler = scheduler;
+            this.stripPattern = stripPattern;
+            this.matrixPattern = matrixPattern;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.scheduledNanos = LEDFrameClock.getDefault().getTimeNanos();
+        }
+
+        /**
+         * Ends the request once the given time has passed since it was scheduled, whether or not it was showing.
+         * @param seconds how long the request lasts
+         * @return this request
+         */
+        public Request withTimeout(double seconds) {
+            synchronized (scheduler) {
+                expiresNanos = scheduledNanos + (long) (seconds * 1e9);
+            }
+            return this;
+        }
+
+        /**
+         * Ends the request once its pattern finishes, after the pattern's last frame is drawn.
+         * @return this request
+         */
+        public Request untilFinished() {
+            synchronized (scheduler) {
+                untilFinished = true;
+            }
+            return this;
+        }
+
+        /**
+         * Ends the request, showing whatever is scheduled underneath it.
+         */
+        public void cancel() {
+            scheduler.cancel(this);
+        }
+
+        /**
+         * Returns whether the request hasn't ended yet, even if a higher priority request is hiding it.
+         * @return true if the request is still scheduled
+         */
+        public boolean isScheduled() {
+            synchronized (scheduler) {
+                return heapIndex >= 0 && LEDFrameClock.getDefault().getTimeNanos() < expiresNanos;
+            }
+        }
+
+        /**
+         * @return the priority of the request
+         */
+        public int getPriority() {
+            return priority;
+        }
+
+        private boolean precedes(Request other) {
+            return priority != other.priority ? priority > other.priority : sequence > other.sequence;
+        }
+
+        private void draw(LEDStripInterface leds) {
+            if (!started) {
+                started = true;
+                if (stripPattern != null) {
+                    stripPattern.reset();
+                } else {
+                    matrixPattern.reset();
+                }
+            }
+            if (stripPattern != null) {
+                stripPattern.draw(leds);
+            } else {
+                matrixPattern.draw((LEDMatrixInterface) leds);
+            }
+        }
+
+        private boolean isFinished() {
+            return stripPattern != null ? stripPattern.isFinished() : matrixPattern.isFinished();
+        }
+    }
+
+    private final LEDStripInterface leds;
+    // A binary heap of the scheduled requests, the one to show at the top
+    private Request[] heap = new Request[8];
+    private int size = 0;
+    private long nextSequence = 0;
+    // The request drawn last frame, to clear the LEDs when a different one shows, or nothing is scheduled
+    private Request shown = null;
+
+    /**
+     * Creates a new {@link LEDPatternScheduler} drawing onto the given LEDs.
+     * @param leds the strip, segment or matrix to draw onto
+     */
+    public LEDPatternScheduler(LEDStripInterface leds) {
+        this.leds = leds;
+    }
+
+    /**
+     * Schedules a pattern until it's cancelled.  Chain {@link Request#withTimeout(double)} or
+     * {@link Request#untilFinished()} to end it sooner.
+     * @param pattern the pattern
+     * @param priority the highest priority request is shown
+     * @return the request
+     */
+    public synchronized Request schedule(LEDStripPattern pattern, int priority) {
+        return add(new Request(this, pattern, null, priority, nextSequence++));
+    }
+
+    /**
+     * Schedules a matrix pattern until it's cancelled, see {@link #schedule(LEDStripPattern, int)}.
+     * @param pattern the pattern
+     * @param priority the highest priority request is shown
+     * @return the request
+     */
+    public synchronized Request schedule(LEDMatrixPattern pattern, int priority) {
+        if (!(leds instanceof LEDMatrixInterface)) {
+            throw new IllegalArgumentException("Matrix patterns can only be scheduled on a matrix");
+        }
+        return add(new Request(this, null, pattern, priority, nextSequence++));
+    }
+
+    /**
+     * Cancels every request.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].heapIndex = -1;
+            heap[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the request that was drawn last.
+     * @return the shown request, or null if nothing is scheduled
+     */
+    public synchronized Request getShown() {
+        return shown;
+    }
+
+    /**
+     * Draws the highest priority request onto the LEDs, ending requests that timed out or finished.  If nothing is
+     * scheduled the LEDs are turned off.
+     */
+    public synchronized void draw() {
+        final long now = LEDFrameClock.getDefault().getTimeNanos();
+        while (size > 0 && heap[0].expiresNanos <= now) {
+            remove(heap[0]);
+        }
+        if (size == 0) {
+            if (shown != null) {
+                leds.off();
+                shown = null;
+            }
+            return;
+        }
+
+        final Request top = heap[0];
+        if (top != shown && shown != null) {
+            // Clears whatever the last request drew, which the new one may not cover
+            leds.off();
+        }
+        top.draw(leds);
+        shown = top;
+        if (top.untilFinished && top.isFinished()) {
+            remove(top);
+        }
+    }
+
+    /**
+     * Draws the highest priority request and updates the LEDs.
+     */
+    public void run() {
+        draw();
+        leds.update();
+    }
+
+    private synchronized void cancel(Request request) {
+        if (request.heapIndex >= 0) {
+            remove(request);
+        }
+    }
+
+    private Request add(Request request) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = request;
+        request.heapIndex = size;
+        siftUp(size++);
+        return request;
+    }
+
+    private void remove(Request request) {
+        final int index = request.heapIndex;
+        request.heapIndex = -1;
+        final Request last = heap[--size];
+        heap[size] = null;
+        if (index < size) {
+            heap[index] = last;
+            last.heapIndex = index;
+            siftDown(index);
+            siftUp(last.heapIndex);
+        }
+    }
+
+    private void siftUp(int index) {
+        final Request request = heap[index];
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (!request.precedes(heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heap[index].heapIndex = index;
+            index = parent;
+        }
+        heap[index] = request;
+        request.heapIndex = index;
+    }
+
+    private void siftDown(int index) {
+        final Request request = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].precedes(heap[child])) {
+                child++;
+            }
+            if (!heap[child].precedes(request)) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].heapIndex = index;
+            index = child;
+        }
+        heap[index] = request;
+        request.heapIndex = index;
+    }
+}
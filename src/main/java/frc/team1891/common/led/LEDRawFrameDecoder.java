@@ -0,0 +1,80 @@
+package frc.team1891.common.led;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Decodes frames stored back to back as raw RGB bytes, rows * cols * 3 bytes per frame in row major order.
+ *
+ * <p>Opened from a file, the frames are memory mapped, so the operating system pages them in as they play instead of
+ * the whole animation being loaded up front.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDRawFrameDecoder implements LEDFrameDecoder {
+    private final ByteBuffer data;
+    private final int numRows, numCols;
+    private final int length;
+    private final int frameCount;
+
+    /**
+     * Creates a new {@link LEDRawFrameDecoder} reading the given frames.
+     * @param data raw RGB frames
+     * @param numRows number of rows in each frame
+     * @param numCols number of columns in each frame
+     */
+    public LEDRawFrameDecoder(ByteBuffer data, int numRows, int numCols) {
+        this.data = data.slice();
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.length = numRows * numCols;
+        this.frameCount = this.data.limit() / (length * 3);
+    }
+
+    /**
+     * Memory maps a file of raw RGB frames.
+     * @param file the file, e.g. in the deploy directory
+     * @param numRows number of rows in each frame
+     * @param numCols number of columns in each frame
+     * @return the decoder
+     * @throws IOException if the file can't be read
+     */
+    public static LEDRawFrameDecoder open(Path file, int numRows, int numCols) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new LEDRawFrameDecoder(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), numRows, numCols);
+        }
+    }
+
+    @Override
+    public int rows() {
+        return numRows;
+    }
+
+    @Override
+    public int cols() {
+        return numCols;
+    }
+
+    @Override
+    public int frameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Reads a frame, reporting only the pixels that differ from the given frame.
+     */
+    @Override
+    public int decode(int frameIndex, int[] frame, int[] changed) {
+        int changedCount = 0;
+        for (int i = 0, j = frameIndex * length * 3; i < length; i++, j += 3) {
+            final int rgb = ((data.get(j) & 0xFF) << 16) | ((data.get(j + 1) & 0xFF) << 8) | (data.get(j + 2) & 0xFF);
+            if (frame[i] != rgb) {
+                frame[i] = rgb;
+                changed[changedCount++] = i;
+            }
+        }
+        return changedCount;
+    }
+}
@@ -0,0 +1,110 @@
+package frc.team1891.common.led;
+
+/**
+ * An {@link LEDStripInterface} that can read its pixels back, which the range operations that move pixels around
+ * ({@link #copy}, {@link #reverse}, {@link #shift} and {@link #rotate}) need.  Every strip, segment and matrix in this
+ * library is one.
+ */
+@SuppressWarnings("unused")
+public interface LEDReadableStripInterface extends LEDStripInterface {
+    /**
+     * Returns the color of the pixel at the given index.
+     * @param index the target pixel
+     * @return the packed 0xRRGGBB color, or 0 if the index is out of bounds
+     */
+    int getRGB(int index);
+
+    /**
+     * Copies a run of pixels to another part of the LEDs.  Like {@link System#arraycopy}, the two runs may overlap.
+     * @param srcIndex first pixel to copy from
+     * @param destIndex first pixel to copy to
+     * @param count number of pixels to copy
+     */
+    default void copy(int srcIndex, int destIndex, int count) {
+        if (srcIndex < 0) {
+            destIndex -= srcIndex;
+            count += srcIndex;
+            srcIndex = 0;
+        }
+        if (destIndex < 0) {
+            srcIndex -= destIndex;
+            count += destIndex;
+            destIndex = 0;
+        }
+        count = Math.min(count, length() - Math.max(srcIndex, destIndex));
+        if (srcIndex < destIndex) {
+            for (int k = count - 1; k >= 0; k--) {
+                setPackedRGB(destIndex + k, getRGB(srcIndex + k));
+            }
+        } else {
+            for (int k = 0; k < count; k++) {
+                setPackedRGB(destIndex + k, getRGB(srcIndex + k));
+            }
+        }
+    }
+
+    /**
+     * Reverses the order of the pixels in the given range.
+     * @param startIndex start pixel
+     * @param endIndex end pixel (exclusive)
+     */
+    default void reverse(int startIndex, int endIndex) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length(), endIndex);
+        for (int i = startIndex, j = endIndex - 1; i < j; i++, j--) {
+            final int rgb = getRGB(i);
+            setPackedRGB(i, getRGB(j));
+            setPackedRGB(j, rgb);
+        }
+    }
+
+    /**
+     * Moves the pixels in the given range, turning off the pixels left behind.  Pixels moved past the end of the
+     * range are dropped.
+     * @param startIndex start pixel
+     * @param endIndex end pixel (exclusive)
+     * @param amount number of pixels to move by, positive towards the end of the range
+     */
+    default void shift(int startIndex, int endIndex, int amount) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length(), endIndex);
+        final int count = endIndex - startIndex;
+        if (count <= 0 || amount == 0) {
+            return;
+        }
+        if (Math.abs(amount) >= count) {
+            fill(startIndex, endIndex, 0);
+        } else if (amount > 0) {
+            copy(startIndex, startIndex + amount, count - amount);
+            fill(startIndex, startIndex + amount, 0);
+        } else {
+            copy(startIndex - amount, startIndex, count + amount);
+            fill(endIndex + amount, endIndex, 0);
+        }
+    }
+
+    /**
+     * Moves the pixels in the given range, wrapping pixels moved past one end of the range around to the other.
+     * @param startIndex start pixel
+     * @param endIndex end pixel (exclusive)
+     * @param amount number of pixels to move by, positive towards the end of the range
+     */
+    default void rotate(int startIndex, int endIndex, int amount) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length(), endIndex);
+        if (startIndex >= endIndex) {
+            return;
+        }
+        amount = Math.floorMod(amount, endIndex - startIndex);
+        if (amount != 0) {
+            // Three reversals rotate the range in place
+            reverse(startIndex, endIndex);
+            reverse(startIndex, startIndex + amount);
+            reverse(startIndex + amount, endIndex);
+        }
+    }
+
+    private void setPackedRGB(int index, int rgb) {
+        setRGB(index, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+    }
+}
@@ -0,0 +1,221 @@
+package frc.team1891.common.led;
+
+import edu.wpi.first.wpilibj.Notifier;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs LED patterns on a dedicated {@link Notifier} thread, so heavy patterns don't eat into the robot's main loop.
+ *
+ * <p>The render thread draws the selected pattern into an off-screen canvas and publishes a snapshot of it by swapping
+ * buffers through an atomic reference, without locks.  The newest snapshot is then presented to the LEDs, either by
+ * the render thread itself (the default) or by calling {@link #present()} from the main loop, so only one thread ever
+ * touches the LEDs and the HAL.  The main loop only has to pick patterns with {@link #setPattern}.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDRenderer implements AutoCloseable {
+    /** A snapshot of the canvas, and the number of the frame it holds. */
+    private static class Frame {
+        final int[] pixels;
+        long number = 0;
+
+        Frame(int length) {
+            pixels = new int[length];
+        }
+    }
+
+    private final LEDStripInterface target;
+    private final int numRows, numCols;
+    private final int length;
+
+    // Render thread only: the canvas patterns draw into, and the frame being filled
+    private final LEDBuffer canvas;
+    private Frame back;
+    private long canvasVersion = -1;
+    private long frameNumber = 0;
+    // Shared between threads: the newest complete frame
+    private final AtomicReference<Frame> ready;
+    // Presenting thread only: the frame last sent to the LEDs
+    private Frame front;
+
+    private volatile LEDLayer.Drawer pattern = buffer -> {};
+    private volatile boolean presentOnRenderThread = true;
+    private double period = .02;
+    private Notifier notifier;
+
+    private volatile long renderedFrames = 0, presentedFrames = 0, overruns = 0;
+    private volatile double lastFrameTime = 0, maxFrameTime = 0;
+
+    /**
+     * Creates a new {@link LEDRenderer} drawing onto the given LEDs.  Call {@link #start()} to begin rendering.
+     * @param target the LEDs to draw onto
+     */
+    public LEDRenderer(LEDStripInterface target) {
+        this.target = target;
+        if (target instanceof LEDMatrixInterface matrix) {
+            numRows = matrix.rows();
+            numCols = matrix.cols();
+        } else {
+            numRows = 1;
+            numCols = target.length();
+        }
+        length = numRows * numCols;
+
+        canvas = LEDBuffer.matching(target);
+        back = new Frame(length);
+        ready = new AtomicReference<>(new Frame(length));
+        front = new Frame(length);
+    }
+
+    /**
+     * Selects the pattern to render.  Safe to call from any thread.
+     * @param pattern the pattern
+     */
+    public void setPattern(LEDStripPattern pattern) {
+        this.pattern = pattern::draw;
+    }
+
+    /**
+     * Selects the pattern to render.  Safe to call from any thread.
+     * @param pattern the pattern
+     */
+    public void setPattern(LEDMatrixPattern pattern) {
+        this.pattern = pattern::draw;
+    }
+
+    /**
+     * Sets whether the render thread sends each frame to the LEDs itself.  If not, call {@link #present()}
+     * periodically from the thread that owns the LEDs.
+     * @param presentOnRenderThread true to present frames on the render thread
+     */
+    public void setPresentOnRenderThread(boolean presentOnRenderThread) {
+        this.presentOnRenderThread = presentOnRenderThread;
+    }
+
+    /**
+     * Sets how often frames are rendered, taking effect immediately if the renderer is running.
+     * @param framesPerSecond the frame rate
+     * @throws IllegalArgumentException if the frame rate isn't finite and positive
+     */
+    public synchronized void setFrameRate(double framesPerSecond) {
+        if (!(framesPerSecond > 0) || Double.isInfinite(framesPerSecond)) {
+            throw new IllegalArgumentException("Frame rate must be finite and positive, got " + framesPerSecond);
+        }
+        period = 1. / framesPerSecond;
+        if (notifier != null) {
+            notifier.startPeriodic(period);
+        }
+    }
+
+    /**
+     * Starts rendering on the render thread.
+     */
+    public synchronized void start() {
+        if (notifier == null) {
+            notifier = new Notifier(this::renderFrame);
+            notifier.setName("LED Renderer");
+        }
+        notifier.startPeriodic(period);
+    }
+
+    /**
+     * Stops rendering.  The LEDs keep showing the last frame.
+     */
+    public synchronized void stop() {
+        if (notifier != null) {
+            notifier.stop();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (notifier != null) {
+            notifier.close();
+            notifier = null;
+        }
+    }
+
+    /**
+     * Draws one frame of the selected pattern and publishes it.  Runs on the render thread.
+     */
+    void renderFrame() {
+        final long start = System.nanoTime();
+
+        pattern.draw(canvas);
+        // Only publish when the pattern changed something
+        if (canvas.getVersion() != canvasVersion) {
+            canvasVersion = canvas.getVersion();
+            System.arraycopy(canvas.pixels, 0, back.pixels, 0, length);
+            back.number = ++frameNumber;
+            back = ready.getAndSet(back);
+        }
+        renderedFrames++;
+
+        if (presentOnRenderThread) {
+            present();
+        }
+
+        final double frameTime = (System.nanoTime() - start) / 1e9;
+        lastFrameTime = frameTime;
+        if (frameTime > maxFrameTime) {
+            maxFrameTime = frameTime;
+        }
+        if (frameTime > period) {
+            overruns++;
+        }
+    }
+
+    /**
+     * Sends the newest rendered frame to the LEDs, if there is one that hasn't been sent yet.  Only call this from
+     * one thread, and only if frames aren't presented on the render thread.
+     * @return true if a new frame was sent
+     */
+    public boolean present() {
+        // Only swaps when there's a newer frame, so an idle call doesn't take back the frame it last handed over.  The
+        // render thread only ever replaces the ready frame with a newer one, so it's still newer after the check.
+        if (ready.get().number <= front.number) {
+            return false;
+        }
+        final Frame frame = ready.getAndSet(front);
+        front = frame;
+        LEDBuffer.writeFrame(frame.pixels, numRows, numCols, target);
+        target.update();
+        presentedFrames++;
+        return true;
+    }
+
+    /**
+     * @return the number of frames the render thread has drawn
+     */
+    public long getRenderedFrameCount() {
+        return renderedFrames;
+    }
+
+    /**
+     * @return the number of frames sent to the LEDs
+     */
+    public long getPresentedFrameCount() {
+        return presentedFrames;
+    }
+
+    /**
+     * @return the number of frames that took longer than the frame period
+     */
+    public long getOverrunCount() {
+        return overruns;
+    }
+
+    /**
+     * @return how long the last frame took to render, in seconds
+     */
+    public double getLastFrameTime() {
+        return lastFrameTime;
+    }
+
+    /**
+     * @return the longest any frame took to render, in seconds
+     */
+    public double getMaxFrameTime() {
+        return maxFrameTime;
+    }
+}
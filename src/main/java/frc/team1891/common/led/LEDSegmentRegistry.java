@@ -0,0 +1,170 @@
+package frc.team1891.common.led;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Tracks which {@link LEDStripSegment}s of an {@link LEDStrip} own which LEDs.
+ *
+ * <p>Where segments overlap, the one with the highest priority owns the LEDs, and between equal priorities the one
+ * created first does.  Ownership is kept as a sorted table of runs, each a range of LEDs with a single owner, built by
+ * sweeping over the ends of every segment whenever a segment is added, released, or changes priority or direction.
+ * Each segment is then given the runs it owns, so writes to LEDs it doesn't own are dropped before they reach the
+ * strip.</p>
+ */
+class LEDSegmentRegistry {
+    // Highest priority first, then the earliest registered
+    private static final Comparator<LEDStripSegment> PRECEDENCE = Comparator
+            .comparingInt(LEDStripSegment::getPriority).reversed()
+            .thenComparingInt(segment -> segment.registrationOrder);
+
+    private final List<LEDStripSegment> segments = new ArrayList<>();
+    private int nextRegistrationOrder = 0;
+    // The ownership table, sorted and not overlapping: LEDs [runStarts[i], runEnds[i]) belong to runOwners[i]
+    private int[] runStarts = new int[0], runEnds = new int[0];
+    private LEDStripSegment[] runOwners = new LEDStripSegment[0];
+
+    /**
+     * Adds a segment, warning if it overlaps a segment with the same priority, since neither would win.
+     * @param segment the new segment
+     */
+    void register(LEDStripSegment segment) {
+        final int end = segment.startIndex + segment.length();
+        for (LEDStripSegment other : segments) {
+            if (other.getPriority() == segment.getPriority()
+                    && segment.startIndex < other.startIndex + other.length() && other.startIndex < end) {
+                DriverStation.reportWarning("LEDStripSegment [" + segment.startIndex + ", " + end + ") overlaps ["
+                        + other.startIndex + ", " + (other.startIndex + other.length()) + ") with the same priority.  "
+                        + "The first segment keeps the overlapping LEDs", false);
+            }
+        }
+        segment.registrationOrder = nextRegistrationOrder++;
+        segments.add(segment);
+        rebuild();
+    }
+
+    /**
+     * Removes a segment, handing the LEDs it owned to the segments underneath.
+     * @param segment the segment to remove
+     */
+    void release(LEDStripSegment segment) {
+        if (segments.remove(segment)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Returns the segment that owns an LED.
+     * @param index the LED index on the strip
+     * @return the owner, or null if no segment covers the LED
+     */
+    LEDStripSegment ownerOf(int index) {
+        int low = 0, high = runStarts.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (index < runStarts[mid]) {
+                high = mid - 1;
+            } else if (index >= runEnds[mid]) {
+                low = mid + 1;
+            } else {
+                return runOwners[mid];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rebuilds the ownership table and the runs each segment owns.
+     */
+    void rebuild() {
+        final int count = segments.size();
+        // The start and end of each segment, as position << 32 | segment << 1 | (1 if it's a start)
+        long[] events = new long[count * 2];
+        int eventCount = 0;
+        for (int i = 0; i < count; i++) {
+            final LEDStripSegment segment = segments.get(i);
+            if (segment.length() > 0) {
+                events[eventCount++] = ((long) segment.startIndex << 32) | ((long) i << 1) | 1;
+                events[eventCount++] = ((long) (segment.startIndex + segment.length()) << 32) | ((long) i << 1);
+            }
+        }
+        events = Arrays.copyOf(events, eventCount);
+        Arrays.sort(events);
+
+        final TreeSet<LEDStripSegment> active = new TreeSet<>(PRECEDENCE);
+        final List<int[]> runs = new ArrayList<>();
+        final List<LEDStripSegment> owners = new ArrayList<>();
+        int k = 0;
+        while (k < events.length) {
+            final int position = (int) (events[k] >> 32);
+            for (; k < events.length && (int) (events[k] >> 32) == position; k++) {
+                final LEDStripSegment segment = segments.get((int) (events[k] & 0xFFFFFFFFL) >>> 1);
+                if ((events[k] & 1) != 0) {
+                    active.add(segment);
+                } else {
+                    active.remove(segment);
+                }
+            }
+            if (active.isEmpty() || k == events.length) {
+                continue;
+            }
+            final int next = (int) (events[k] >> 32);
+            final LEDStripSegment owner = active.first();
+            final int last = runs.size() - 1;
+            if (last >= 0 && owners.get(last) == owner && runs.get(last)[1] == position) {
+                runs.get(last)[1] = next;
+            } else {
+                runs.add(new int[] {position, next});
+                owners.add(owner);
+            }
+        }
+
+        runStarts = new int[runs.size()];
+        runEnds = new int[runs.size()];
+        for (int i = 0; i < runs.size(); i++) {
+            runStarts[i] = runs.get(i)[0];
+            runEnds[i] = runs.get(i)[1];
+        }
+        runOwners = owners.toArray(new LEDStripSegment[0]);
+
+        for (LEDStripSegment segment : segments) {
+            segment.setOwnedRuns(ownedRunsOf(segment));
+        }
+    }
+
+    /**
+     * Returns the runs a segment owns, in the segment's own indices.
+     * @param segment the segment
+     * @return start and end pairs of each run, in order
+     */
+    private int[] ownedRunsOf(LEDStripSegment segment) {
+        int owned = 0;
+        for (LEDStripSegment owner : runOwners) {
+            if (owner == segment) {
+                owned++;
+            }
+        }
+        final int[] local = new int[owned * 2];
+        final int end = segment.startIndex + segment.length();
+        for (int i = 0, j = 0; i < runOwners.length; i++) {
+            if (runOwners[i] == segment) {
+                if (segment.isReversed) {
+                    // The last run on the strip is the first in the segment
+                    final int slot = local.length - 2 - j;
+                    local[slot] = end - runEnds[i];
+                    local[slot + 1] = end - runStarts[i];
+                } else {
+                    local[j] = runStarts[i] - segment.startIndex;
+                    local[j + 1] = runEnds[i] - segment.startIndex;
+                }
+                j += 2;
+            }
+        }
+        return local;
+    }
+}
@@ -0,0 +1,372 @@
+package frc.team1891.common.led;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.videoio.VideoWriter;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Runs an {@link LEDStrip} without any LEDs, keeping the frames it sends in memory so patterns can be developed and
+ * tested off the robot.
+ *
+ * <p>Frames can be saved as PNGs or recorded to an MJPEG video through OpenCV, published over UDP to a viewer, or
+ * compared against a saved image.  Together with {@link #run(double, double, Runnable)}, which steps a manual
+ * {@link LEDFrameClock}, long runs of a pattern render as fast as they can be drawn:</p>
+ * <pre>{@code
+ * LEDSimulator simulator = new LEDSimulator(64, LEDStrip.LEDMode.GRB);
+ * LEDMatrix matrix = new LEDMatrix(simulator.getStrip(), 0, 8, 8, true);
+ * simulator.setView(matrix).setPixelSize(16);
+ * LEDMatrixPattern pattern = LEDMatrixPatterns.RAINBOW();
+ * simulator.run(10, .02, () -> pattern.run(matrix));
+ * simulator.writePNG(Path.of("rainbow.png"));
+ * }</pre>
+ *
+ * <p>Frames show the colors the LEDs would, after gamma correction, the brightness limit and the power budget.  Images
+ * use the layout of the view, one block of {@link #setPixelSize(int) pixel size} square per LED.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDSimulator implements AutoCloseable {
+    private static final byte[] PACKET_MAGIC = {'B', 'B', 'L', 'F'};
+    private static final int PACKET_HEADER = 16;
+
+    private final LEDStrip strip;
+    private final LEDFrameClock clock = LEDFrameClock.manual();
+    // The colors of the last frame sent, indexed like the strip, or null before the first frame
+    private int[] colors;
+    private long frameCount = 0;
+
+    // The view images are drawn in: the strip index of each pixel, indexed by y * cols + x
+    private int numRows, numCols;
+    private int[] viewIndices;
+    private int pixelSize = 1;
+    // The last frame as a BGR image, and the bytes it's filled from, allocated on first use
+    private Mat image;
+    private byte[] imageBytes;
+
+    private VideoWriter recorder;
+    // The socket frames are published on, where they're sent, and the packet reused for each frame
+    private DatagramSocket socket;
+    private SocketAddress viewer;
+    private DatagramPacket packet;
+    private ByteBuffer packetBytes;
+    private long droppedFrames = 0;
+
+    /**
+     * Creates a new {@link LEDSimulator} with a strip of the given length.
+     * @param length number of LEDs
+     * @param ledMode mode
+     */
+    public LEDSimulator(int length, LEDStrip.LEDMode ledMode) {
+        strip = new LEDStrip(null, length, ledMode);
+        strip.setOutputSink(this::frameSent);
+        numRows = 1;
+        numCols = length;
+        viewIndices = new int[length];
+        for (int i = 0; i < length; i++) {
+            viewIndices[i] = i;
+        }
+    }
+
+    /**
+     * @return the simulated strip, to draw on and build segments and matrices from
+     */
+    public LEDStrip getStrip() {
+        return strip;
+    }
+
+    /**
+     * @return the clock stepped by {@link #run(double, double, Runnable)}
+     */
+    public LEDFrameClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Lays images and published frames out like the given matrix, instead of as a single row of the whole strip.  Can't
+     * be changed while recording.
+     * @param matrix a matrix on the simulated strip
+     * @return this simulator
+     */
+    public LEDSimulator setView(LEDMatrix matrix) {
+        if (matrix.getParentStrip() != strip) {
+            throw new IllegalArgumentException("The matrix isn't on the simulated strip");
+        }
+        final int[] indices = new int[matrix.rows() * matrix.cols()];
+        for (int y = 0, i = 0; y < matrix.rows(); y++) {
+            for (int x = 0; x < matrix.cols(); x++, i++) {
+                indices[i] = matrix.stripIndexOf(x, y);
+            }
+        }
+        numRows = matrix.rows();
+        numCols = matrix.cols();
+        viewIndices = indices;
+        resizeOutputs();
+        return this;
+    }
+
+    /**
+     * Sets how big each LED is drawn in images and videos.  Can't be changed while recording.
+     * @param pixelSize the width and height of each LED, in image pixels
+     * @return this simulator
+     */
+    public LEDSimulator setPixelSize(int pixelSize) {
+        this.pixelSize = Math.max(1, pixelSize);
+        resizeOutputs();
+        return this;
+    }
+
+    private void resizeOutputs() {
+        if (recorder != null) {
+            throw new IllegalStateException("The view can't change size while recording");
+        }
+        image = null;
+        imageBytes = null;
+        packet = null;
+        packetBytes = null;
+    }
+
+    /**
+     * Runs a robot loop at a fixed step on the simulator's clock, as fast as it can.  The clock is the default
+     * {@link LEDFrameClock} while the loop runs.
+     * @param seconds how long to simulate
+     * @param period the time between loops, in seconds
+     * @param loop draws a frame and updates the strip
+     */
+    public void run(double seconds, double period, Runnable loop) {
+        final LEDFrameClock previous = LEDFrameClock.getDefault();
+        LEDFrameClock.setDefault(clock);
+        try {
+            final long steps = Math.round(seconds / period);
+            for (long i = 0; i < steps; i++) {
+                loop.run();
+                clock.advance(period);
+            }
+        } finally {
+            LEDFrameClock.setDefault(previous);
+        }
+    }
+
+    private void frameSent(int[] colors) {
+        this.colors = colors;
+        frameCount++;
+        if (recorder != null) {
+            recorder.write(toMat());
+        }
+        if (socket != null) {
+            publishFrame();
+        }
+    }
+
+    /**
+     * @return the number of frames the strip has sent
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns the color an LED shows.
+     * @param index the LED index on the strip
+     * @return the packed 0xRRGGBB color, or 0 if the index is out of bounds or no frame was sent yet
+     */
+    public int getRGB(int index) {
+        return colors != null && index >= 0 && index < colors.length ? colors[index] : 0;
+    }
+
+    /**
+     * Returns the color an LED of the view shows.
+     * @param x column of the view
+     * @param y row of the view
+     * @return the packed 0xRRGGBB color, or 0 if the coordinate is outside the view or no frame was sent yet
+     */
+    public int getRGB(int x, int y) {
+        if (x < 0 || x >= numCols || y < 0 || y >= numRows) {
+            return 0;
+        }
+        return getRGB(viewIndices[y * numCols + x]);
+    }
+
+    /**
+     * Copies the colors of the last frame, laid out like the view.
+     * @return the packed 0xRRGGBB colors, indexed by y * cols + x
+     */
+    public int[] getFrame() {
+        final int[] frame = new int[viewIndices.length];
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = getRGB(viewIndices[i]);
+        }
+        return frame;
+    }
+
+    /**
+     * Draws the last frame as an image.  The image is reused, so it changes with the next frame.
+     * @return the frame as a BGR image
+     */
+    public Mat toMat() {
+        LEDMatrix.OpenCV.load();
+        final int width = numCols * pixelSize, height = numRows * pixelSize;
+        if (image == null) {
+            image = new Mat(height, width, CvType.CV_8UC3);
+            imageBytes = new byte[width * height * 3];
+        }
+        final byte[] bytes = imageBytes;
+        for (int y = 0; y < height; y++) {
+            final int viewRow = (y / pixelSize) * numCols;
+            for (int x = 0, j = y * width * 3; x < width; x++, j += 3) {
+                final int rgb = getRGB(viewIndices[viewRow + x / pixelSize]);
+                bytes[j] = (byte) rgb;
+                bytes[j + 1] = (byte) (rgb >> 8);
+                bytes[j + 2] = (byte) (rgb >> 16);
+            }
+        }
+        image.put(0, 0, bytes);
+        return image;
+    }
+
+    /**
+     * Saves the last frame as an image.
+     * @param file the image file, its extension picking the format (like .png)
+     * @throws IOException if the image can't be written
+     */
+    public void writePNG(Path file) throws IOException {
+        if (!Imgcodecs.imwrite(file.toString(), toMat())) {
+            throw new IOException("Couldn't write image " + file);
+        }
+    }
+
+    /**
+     * Compares the last frame against a saved image, like one from {@link #writePNG(Path)}.
+     * @param file the expected image
+     * @param tolerance how far any channel can be from the expected image without the pixel counting as different
+     * @return the number of image pixels that differ, or every pixel if the image is a different size
+     * @throws IOException if the image can't be read
+     */
+    public int countDifferences(Path file, int tolerance) throws IOException {
+        LEDMatrix.OpenCV.load();
+        final Mat expected = Imgcodecs.imread(file.toString(), Imgcodecs.IMREAD_COLOR);
+        if (expected.empty()) {
+            throw new IOException("Couldn't read image " + file);
+        }
+        final Mat actual = toMat();
+        final int pixels = actual.rows() * actual.cols();
+        if (expected.rows() != actual.rows() || expected.cols() != actual.cols()) {
+            return Math.max(pixels, expected.rows() * expected.cols());
+        }
+        final byte[] expectedBytes = new byte[pixels * 3];
+        expected.get(0, 0, expectedBytes);
+        int differences = 0;
+        for (int i = 0; i < expectedBytes.length; i += 3) {
+            for (int c = i; c < i + 3; c++) {
+                if (Math.abs((expectedBytes[c] & 0xFF) - (imageBytes[c] & 0xFF)) > tolerance) {
+                    differences++;
+                    break;
+                }
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * Starts recording every frame sent to an MJPEG video.
+     * @param file the video file, usually .avi
+     * @param fps frame rate of the video, normally one over the loop period
+     * @throws IOException if the video can't be opened
+     */
+    public void startRecording(Path file, double fps) throws IOException {
+        LEDMatrix.OpenCV.load();
+        stopRecording();
+        final VideoWriter writer = new VideoWriter(file.toString(), VideoWriter.fourcc('M', 'J', 'P', 'G'), fps,
+                new Size(numCols * pixelSize, numRows * pixelSize), true);
+        if (!writer.isOpened()) {
+            throw new IOException("Couldn't open video " + file);
+        }
+        recorder = writer;
+    }
+
+    /**
+     * Finishes the video being recorded, if any.
+     */
+    public void stopRecording() {
+        if (recorder != null) {
+            recorder.release();
+            recorder = null;
+        }
+    }
+
+    /**
+     * Starts sending every frame to a viewer as a UDP packet.  Each packet is, big endian:
+     * <pre>
+     * magic       4 bytes  "BBLF"
+     * rows        u16
+     * cols        u16
+     * frame       u64      number of frames sent before this one
+     * colors      rows * cols * 3 bytes of RGB, indexed by y * cols + x
+     * </pre>
+     * Publishing is fire and forget: frames that can't be sent, because no viewer is listening or it was closed, are
+     * dropped and counted by {@link #getDroppedFrames()}.
+     * @param viewer where to send the frames, like localhost on the viewer's port
+     * @throws IOException if the socket can't be opened
+     */
+    public void publish(SocketAddress viewer) throws IOException {
+        stopPublishing();
+        socket = new DatagramSocket();
+        this.viewer = viewer;
+    }
+
+    /**
+     * Stops publishing frames.
+     */
+    public void stopPublishing() {
+        if (socket != null) {
+            socket.close();
+            socket = null;
+        }
+        viewer = null;
+        packet = null;
+        packetBytes = null;
+    }
+
+    private void publishFrame() {
+        if (packetBytes == null) {
+            packetBytes = ByteBuffer.allocate(PACKET_HEADER + viewIndices.length * 3);
+            packet = new DatagramPacket(packetBytes.array(), packetBytes.capacity(), viewer);
+        }
+        final ByteBuffer bytes = packetBytes;
+        bytes.clear();
+        bytes.put(PACKET_MAGIC).putShort((short) numRows).putShort((short) numCols).putLong(frameCount - 1);
+        for (int index : viewIndices) {
+            final int rgb = getRGB(index);
+            bytes.put((byte) (rgb >> 16)).put((byte) (rgb >> 8)).put((byte) rgb);
+        }
+        try {
+            socket.send(packet);
+        } catch (IOException e) {
+            droppedFrames++;
+        }
+    }
+
+    /**
+     * @return the number of published frames that couldn't be sent
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Finishes any recording, stops publishing, and detaches from the strip.
+     */
+    @Override
+    public void close() {
+        stopRecording();
+        stopPublishing();
+        strip.setOutputSink(null);
+    }
+}
@@ -2,12 +2,18 @@ package frc.team1891.common.led;
 
 import edu.wpi.first.wpilibj.AddressableLED;
 import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import frc.team1891.common.jni.BullBotsLibJNI;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
 
 /**
  * A wrapper class to handle control over a simple LED strip.
  */
 @SuppressWarnings("unused")
-public class LEDStrip implements LEDStripInterface {
+public class LEDStrip implements LEDReadableStripInterface {
     /** The color channel ordering mode for the LED strip. */
     public enum LEDMode {
         /** Red, Green, Blue ordering. */
@@ -24,6 +30,41 @@ public class LEDStrip implements LEDStripInterface {
         BRG
     }
 
+    /**
+     * Receives each frame an {@link LEDStrip} sends, for running without real LEDs, see {@link LEDSimulator}.
+     */
+    @FunctionalInterface
+    public interface OutputSink {
+        /**
+         * Called at the end of each {@link #update()} that sends a frame.
+         * @param colors the color each LED shows, packed 0xRRGGBB in logical RGB order after gamma correction, the
+         *               brightness limit, the power budget and dithering.  The array belongs to the strip and is only
+         *               valid until the next update.
+         */
+        void frameSent(int[] colors);
+    }
+
+    // The 60 degree region and the remainder within it (scaled to 0-255) of each hue, used by hsvToRGBFixedPoint
+    private static final byte[] HUE_REGION = new byte[180];
+    private static final int[] HUE_REMAINDER = new int[180];
+    static {
+        for (int hue = 0; hue < 180; hue++) {
+            HUE_REGION[hue] = (byte) (hue / 30);
+            HUE_REMAINDER[hue] = (int) Math.round((hue % 30) * (255 / 30.0));
+        }
+    }
+
+    // Gamma table that leaves colors unchanged, shared by every strip without gamma correction
+    private static final int[] LINEAR = new int[256];
+    static {
+        for (int i = 0; i < 256; i++) {
+            LINEAR[i] = i << 8;
+        }
+    }
+    // Thresholds for temporal dithering, in 1/256ths, cycled through over 8 frames
+    private static final int[] DITHER = {0, 128, 64, 192, 32, 160, 96, 224};
+    private static final int POWER_SCALE_ONE = 1 << 16;
+
     /** The color channel ordering mode for this LED strip. */
     protected final LEDMode ledMode;
 
@@ -31,9 +72,57 @@ public class LEDStrip implements LEDStripInterface {
     protected final AddressableLED leds;
     /** The LED data buffer. */
     protected final AddressableLEDBuffer buffer;
+    /**
+     * The framebuffer, holding one packed 0xRRGGBB color per LED.  Colors are kept in logical RGB order and are only
+     * converted to the strip's {@link LEDMode} and brightness limit in {@link #update()}.
+     * <p>Subclasses writing to this directly must call {@link #markDirty(int, int)} for the change to be sent.</p>
+     */
+    protected final int[] pixels;
     private final int length;
+    // Bit offsets into a packed pixel for each channel of the output, in the order the strip expects them
+    private final int firstShift, secondShift, thirdShift;
     private int maxBrightness = (255 * 3) / 2;
     private int maxValue = 255;
+    // Per channel gamma tables, mapping 8 bit colors to 8.8 fixed point output levels
+    private int[] gammaRed = LINEAR, gammaGreen = LINEAR, gammaBlue = LINEAR;
+    private boolean dithering = false;
+    private int ditherFrame = 0;
+
+    // Power budget, in milliamps, or 0 for no budget
+    private double powerBudget = 0;
+    private double channelCurrent = 20, idleCurrent = 1;
+    // The scale applied to the whole frame to stay within the budget, and the scale it is easing towards, 16.16 fixed
+    // point
+    private int powerScale = POWER_SCALE_ONE, powerTarget = POWER_SCALE_ONE;
+    // Estimated current of the last frame sent, in milliamps
+    private double estimatedCurrent = 0;
+
+    private boolean fastHSV = false;
+
+    // Direct buffers shared with the native pipeline, allocated when native rendering is first enabled
+    private boolean nativeRendering = false;
+    private ByteBuffer nativeIn, nativeOut;
+    private IntBuffer nativeInPixels, nativeOutPixels;
+
+    // Where frames are sent besides the AddressableLED, and the colors of the last frame sent, indexed like pixels
+    private OutputSink sink;
+    private int[] output;
+
+    // Palette mode, allocated when first used: the palette, the palette entry of each pixel, and which pixels follow
+    // the palette rather than their own color
+    private int[] palette;
+    private byte[] paletteIndices;
+    private long[] paletteBound;
+    // The range [paletteStart, paletteEnd) holding every pixel that follows the palette
+    private int paletteStart, paletteEnd;
+    private boolean paletteChanged = false;
+
+    // Which segments own which LEDs, where segments overlap
+    private final LEDSegmentRegistry segments = new LEDSegmentRegistry();
+
+    // The range [dirtyStart, dirtyEnd) of pixels changed since the last update
+    private int dirtyStart, dirtyEnd;
+    private long pushedFrames = 0, skippedFrames = 0;
 
     /**
      * Creates a new {@link LEDStrip} with control over an LED strip plugged into the given port.
@@ -51,11 +140,43 @@ public class LEDStrip implements LEDStripInterface {
      * @param ledMode mode
      */
     public LEDStrip(int port, int length, LEDMode ledMode) {
-        leds = new AddressableLED(port);
+        this(new AddressableLED(port), length, ledMode);
+    }
+
+    /**
+     * Creates a new {@link LEDStrip} that outputs to the given controller.
+     * <p>A null controller creates a strip that only renders into its buffer, which lets it run off the robot
+     * (benchmarks and unit tests).</p>
+     * @param leds the WPILib LED controller, or null
+     * @param length number of LEDs
+     * @param ledMode mode
+     */
+    LEDStrip(AddressableLED leds, int length, LEDMode ledMode) {
+        this.leds = leds;
         buffer = new AddressableLEDBuffer(length);
-        leds.setLength(buffer.getLength());
+        if (leds != null) {
+            leds.setLength(buffer.getLength());
+        }
+        pixels = new int[length];
         this.length = length;
         this.ledMode = ledMode;
+
+        final int r = 16, g = 8, b = 0;
+        final int[] shifts = switch (ledMode) {
+            case RGB -> new int[] {r, g, b};
+            case RBG -> new int[] {r, b, g};
+            case GRB -> new int[] {g, r, b};
+            case GBR -> new int[] {g, b, r};
+            case BGR -> new int[] {b, g, r};
+            case BRG -> new int[] {b, r, g};
+        };
+        firstShift = shifts[0];
+        secondShift = shifts[1];
+        thirdShift = shifts[2];
+
+        // The first update always sends the whole strip
+        dirtyStart = 0;
+        dirtyEnd = length;
     }
 
     @Override
@@ -66,33 +187,488 @@ public class LEDStrip implements LEDStripInterface {
     /**
      * Limit the brightness of the LED strip.
      *
-     * Note, this limits the brightness when it takes the color input.  Any colors set before setting the brightness
-     * won't change.
+     * Note, the limit is applied to the whole framebuffer when it is sent to the LEDs, so it also affects colors that
+     * were set before the brightness was changed.
      *
      * @param brightness [0,765] the max sum brightness the R, G, and B channels can reach
      */
     public void setMaxBrightness(int brightness) {
+        brightness = Math.max(0, Math.min(255 * 3, brightness));
+        if (brightness != maxBrightness) {
+            markDirty(0, length);
+        }
         maxBrightness = brightness;
         maxValue = (int) (255 * (brightness / (double) (255 * 3)));
     }
 
+    /**
+     * Returns the value (HSV) used when only a hue is set, which follows the max brightness.
+     * @return the value [0, 255]
+     */
+    int getHueValue() {
+        return maxValue;
+    }
+
+    /**
+     * Applies the same gamma correction to every channel when the strip is rendered, so fades look even to the eye
+     * rather than jumping at the dim end.  2.2 to 2.8 suits most LEDs, and 1 turns gamma correction off.
+     * @param gamma the gamma exponent
+     */
+    public void setGamma(double gamma) {
+        setGamma(gamma, gamma, gamma);
+    }
+
+    /**
+     * Applies gamma correction to each channel when the strip is rendered, see {@link #setGamma(double)}.
+     * @param red gamma exponent of the red channel
+     * @param green gamma exponent of the green channel
+     * @param blue gamma exponent of the blue channel
+     */
+    public void setGamma(double red, double green, double blue) {
+        gammaRed = gammaTable(red);
+        gammaGreen = gammaTable(green);
+        gammaBlue = gammaTable(blue);
+        markDirty(0, length);
+    }
+
+    private static int[] gammaTable(double gamma) {
+        if (gamma == 1) {
+            return LINEAR;
+        }
+        final int[] table = new int[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = (int) Math.round(Math.pow(i / 255., gamma) * (255 << 8));
+        }
+        return table;
+    }
+
+    /**
+     * Enables temporal dithering, which alternates between the two nearest output levels over several frames to
+     * show colors in between, adding effective bit depth to dim colors after gamma correction and the brightness
+     * limit.  The whole strip is sent on every {@link #update()} while dithering.
+     * @param enabled true to dither
+     */
+    public void setDithering(boolean enabled) {
+        dithering = enabled;
+        markDirty(0, length);
+    }
+
+    /**
+     * Limits the estimated current of the whole strip.  When a frame would draw more than the budget, every pixel is
+     * dimmed by the same amount until it fits, keeping the frame's colors and contrast.  The strip dims immediately
+     * when a frame gets brighter, but recovers gradually over several updates so flickering content doesn't make the
+     * brightness pump.
+     * <p>The current is estimated from {@link #setCurrentPerChannel(double)} and {@link #setIdleCurrent(double)}, so
+     * set those to match the LEDs.  A budget of {@link Double#POSITIVE_INFINITY} only estimates the current, see
+     * {@link #getEstimatedCurrent()}.</p>
+     * @param amps the most current the strip should draw, or 0 to remove the budget
+     */
+    public void setPowerBudget(double amps) {
+        powerBudget = Math.max(0, amps * 1000);
+        if (powerBudget == 0) {
+            powerScale = powerTarget = POWER_SCALE_ONE;
+        }
+        markDirty(0, length);
+    }
+
+    /**
+     * Sets the current one color channel of one LED draws at full brightness, used by
+     * {@link #setPowerBudget(double)}.  Defaults to 20 mA, typical of WS2812 LEDs.
+     * @param milliamps current of a fully lit channel
+     */
+    public void setCurrentPerChannel(double milliamps) {
+        channelCurrent = Math.max(0, milliamps);
+        markDirty(0, length);
+    }
+
+    /**
+     * Sets the current each LED draws while off, used by {@link #setPowerBudget(double)}.  Defaults to 1 mA.
+     * @param milliamps current of an LED that is off
+     */
+    public void setIdleCurrent(double milliamps) {
+        idleCurrent = Math.max(0, milliamps);
+        markDirty(0, length);
+    }
+
+    /**
+     * Returns the estimated current of the last frame sent to the LEDs, after any dimming to fit the power budget.
+     * Only estimated while a budget is set with {@link #setPowerBudget(double)}.
+     * @return the estimated current in amps
+     */
+    public double getEstimatedCurrent() {
+        return estimatedCurrent / 1000;
+    }
+
+    /**
+     * Returns how much the whole strip is dimmed to fit the power budget.
+     * @return the brightness scale, 1 when not dimmed
+     */
+    public double getPowerScale() {
+        return powerScale / (double) POWER_SCALE_ONE;
+    }
+
     /**
      * Starts sending data to the leds.
      */
     public void start() {
-        leds.start();
+        if (leds != null) {
+            leds.start();
+        }
     }
 
     /**
      * Stops the leds from updating.
      */
     public void stop() {
-        leds.stop();
+        if (leds != null) {
+            leds.stop();
+        }
     }
 
+    /**
+     * Sends the framebuffer to the LED strip.
+     * <p>Only the pixels changed since the last update are rendered into the buffer, and if nothing changed the call
+     * to the HAL is skipped entirely.</p>
+     */
     @Override
     public void update() {
-        leds.setData(buffer);
+        if (paletteChanged) {
+            markDirty(paletteStart, paletteEnd);
+            paletteChanged = false;
+        }
+        if (dithering) {
+            markDirty(0, length);
+            ditherFrame++;
+        }
+        if (powerScale != powerTarget) {
+            // Still recovering from being dimmed
+            markDirty(0, length);
+        }
+        if (dirtyStart >= dirtyEnd) {
+            skippedFrames++;
+            return;
+        }
+        if (paletteIndices != null) {
+            resolvePalette(Math.max(dirtyStart, paletteStart), Math.min(dirtyEnd, paletteEnd));
+        }
+        if (powerBudget > 0) {
+            limitPower();
+        }
+        render(dirtyStart, dirtyEnd);
+        if (leds != null) {
+            leds.setData(buffer);
+        }
+        if (sink != null) {
+            sink.frameSent(output);
+        }
+        pushedFrames++;
+        dirtyStart = length;
+        dirtyEnd = 0;
+    }
+
+    /**
+     * Estimates the current of the whole frame in one pass over the framebuffer, and picks the scale that keeps it
+     * within the power budget.  The estimate is of the output levels after gamma correction and the brightness limit.
+     */
+    private void limitPower() {
+        final int[] pixels = this.pixels;
+        final int[] gammaRed = this.gammaRed, gammaGreen = this.gammaGreen, gammaBlue = this.gammaBlue;
+        final int limit = maxBrightness << 8;
+        long levels = 0;
+        for (int i = 0; i < length; i++) {
+            final int rgb = pixels[i];
+            final int sum = gammaRed[(rgb >> 16) & 0xFF] + gammaGreen[(rgb >> 8) & 0xFF] + gammaBlue[rgb & 0xFF];
+            levels += Math.min(sum, limit);
+        }
+
+        final double idle = idleCurrent * length;
+        final double load = channelCurrent * levels / (255 << 8);
+        final double available = Math.max(0, powerBudget - idle);
+        powerTarget = load <= available ? POWER_SCALE_ONE : (int) (POWER_SCALE_ONE * available / load);
+
+        final int previousScale = powerScale;
+        if (powerTarget < powerScale) {
+            powerScale = powerTarget;
+        } else if (powerTarget > powerScale) {
+            // Close an eighth of the gap each update
+            powerScale += Math.max(1, (powerTarget - powerScale) >> 3);
+        }
+        if (powerScale != previousScale) {
+            markDirty(0, length);
+        }
+        estimatedCurrent = idle + load * powerScale / POWER_SCALE_ONE;
+    }
+
+    /**
+     * Marks a range of pixels as changed, so they are sent on the next {@link #update()}.
+     * @param startIndex start pixel
+     * @param endIndex end pixel (exclusive)
+     */
+    public void markDirty(int startIndex, int endIndex) {
+        dirtyStart = Math.max(0, Math.min(dirtyStart, startIndex));
+        dirtyEnd = Math.min(length, Math.max(dirtyEnd, endIndex));
+    }
+
+    /**
+     * Returns whether any pixels changed since the last update.
+     * @return true if the next {@link #update()} will send data
+     */
+    public boolean isDirty() {
+        return dirtyStart < dirtyEnd;
+    }
+
+    /**
+     * Returns the number of calls to {@link #update()} that sent data to the LEDs.
+     * @return pushed frame count
+     */
+    public long getPushedFrameCount() {
+        return pushedFrames;
+    }
+
+    /**
+     * Returns the number of calls to {@link #update()} that were skipped because nothing changed.
+     * @return skipped frame count
+     */
+    public long getSkippedFrameCount() {
+        return skippedFrames;
+    }
+
+    /**
+     * Sends every frame to the given sink as well as the LEDs.  The whole strip is sent on the next update.
+     * <p>Rendering stays in Java while a sink is set.</p>
+     * @param sink where to send frames, or null to stop
+     */
+    public void setOutputSink(OutputSink sink) {
+        this.sink = sink;
+        if (sink != null && output == null) {
+            output = new int[length];
+        }
+        markDirty(0, length);
+    }
+
+    /**
+     * Moves the channel reordering and brightness limiting done in {@link #update()} into the native driver
+     * ({@link BullBotsLibJNI#processFrame}).  If the driver isn't available the strip keeps rendering in Java.
+     * @param enabled true to render natively
+     * @return true if native rendering is now enabled
+     */
+    public boolean setNativeRendering(boolean enabled) {
+        if (enabled && !BullBotsLibJNI.isLibraryLoaded()) {
+            enabled = false;
+        }
+        if (enabled && nativeIn == null) {
+            nativeIn = ByteBuffer.allocateDirect(length * Integer.BYTES).order(ByteOrder.nativeOrder());
+            nativeOut = ByteBuffer.allocateDirect(length * Integer.BYTES).order(ByteOrder.nativeOrder());
+            nativeInPixels = nativeIn.asIntBuffer();
+            nativeOutPixels = nativeOut.asIntBuffer();
+        }
+        nativeRendering = enabled;
+        return enabled;
+    }
+
+    /**
+     * Copies part of the framebuffer into the {@link AddressableLEDBuffer} in a single pass: gamma correction, the
+     * brightness limit, the power budget, dithering, and reordering the channels for the {@link LEDMode}.
+     * <p>Output levels are kept in 8.8 fixed point until the end.  Pixels brighter than the limit are scaled down
+     * proportionally, keeping their hue.</p>
+     * @param startIndex start pixel
+     * @param endIndex end pixel (exclusive)
+     */
+    void render(int startIndex, int endIndex) {
+        final boolean linear = gammaRed == LINEAR && gammaGreen == LINEAR && gammaBlue == LINEAR;
+        final int powerScale = this.powerScale;
+        if (nativeRendering && linear && !dithering && powerScale == POWER_SCALE_ONE && sink == null
+                && renderNative(startIndex, endIndex)) {
+            return;
+        }
+
+        final int[] pixels = this.pixels, output = sink != null ? this.output : null;
+        final int[] gammaRed = this.gammaRed, gammaGreen = this.gammaGreen, gammaBlue = this.gammaBlue;
+        final int limit = maxBrightness << 8;
+        for (int i = startIndex; i < endIndex; i++) {
+            final int rgb = pixels[i];
+            int red = gammaRed[(rgb >> 16) & 0xFF];
+            int green = gammaGreen[(rgb >> 8) & 0xFF];
+            int blue = gammaBlue[rgb & 0xFF];
+            final int sum = red + green + blue;
+            if (sum > limit) {
+                // limit / sum in 16.16 fixed point
+                final long scale = ((long) limit << 16) / sum;
+                red = (int) ((red * scale) >> 16);
+                green = (int) ((green * scale) >> 16);
+                blue = (int) ((blue * scale) >> 16);
+            }
+            if (powerScale != POWER_SCALE_ONE) {
+                red = (int) (((long) red * powerScale) >> 16);
+                green = (int) (((long) green * powerScale) >> 16);
+                blue = (int) (((long) blue * powerScale) >> 16);
+            }
+
+            // Round to 8 bits, or dither between the two nearest levels
+            final int threshold = dithering ? DITHER[(ditherFrame + i) & 7] : 128;
+            red = Math.min(255, (red + threshold) >> 8);
+            green = Math.min(255, (green + threshold) >> 8);
+            blue = Math.min(255, (blue + threshold) >> 8);
+
+            final int out = (red << 16) | (green << 8) | blue;
+            if (output != null) {
+                output[i] = out;
+            }
+            buffer.setRGB(i, (out >> firstShift) & 0xFF, (out >> secondShift) & 0xFF, (out >> thirdShift) & 0xFF);
+        }
+    }
+
+    private boolean renderNative(int startIndex, int endIndex) {
+        nativeInPixels.put(startIndex, pixels, startIndex, endIndex - startIndex);
+        if (BullBotsLibJNI.processFrame(nativeIn, nativeOut, startIndex, endIndex - startIndex, 0, 0,
+                ledMode.ordinal(), maxBrightness) != 0) {
+            return false;
+        }
+        for (int i = startIndex; i < endIndex; i++) {
+            final int out = nativeOutPixels.get(i);
+            buffer.setRGB(i, (out >> 16) & 0xFF, (out >> 8) & 0xFF, out & 0xFF);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the {@link LEDStripSegment} that owns the LED at the given index, the one with the highest priority of
+     * the {@link LEDStripSegment#claim() claimed} segments covering it.
+     * @param index the target pixel
+     * @return the owning segment, or null if no claimed segment covers the LED
+     */
+    public LEDStripSegment getSegmentOwner(int index) {
+        return segments.ownerOf(index);
+    }
+
+    LEDSegmentRegistry getSegmentRegistry() {
+        return segments;
+    }
+
+    /**
+     * Returns the color of the pixel at the given index, as it was set (before the brightness limit).
+     * @param index the target pixel
+     * @return the packed 0xRRGGBB color, or 0 if the index is out of bounds
+     */
+    @Override
+    public int getRGB(int index) {
+        if (!checkValidIndex(index)) {
+            return 0;
+        }
+        return isPaletteBound(index) ? palette[paletteIndices[index] & 0xFF] : pixels[index];
+    }
+
+    /**
+     * Sets a color of the palette.  Every pixel set to this palette entry changes color on the next
+     * {@link #update()}, which makes fading or flashing many pixels at once as cheap as changing one color.
+     * @param entry the palette entry [0, 255]
+     * @param r red
+     * @param g green
+     * @param b blue
+     */
+    public void setPaletteRGB(int entry, int r, int g, int b) {
+        setPaletteColor(entry, ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF));
+    }
+
+    /**
+     * Sets a color of the palette from HSV, see {@link #setPaletteRGB(int, int, int, int)}.
+     * @param entry the palette entry [0, 255]
+     * @param hue hue
+     * @param sat saturation
+     * @param val value
+     */
+    public void setPaletteHSV(int entry, int hue, int sat, int val) {
+        setPaletteColor(entry, convertHSV(hue, sat, val));
+    }
+
+    /**
+     * Returns a color of the palette.
+     * @param entry the palette entry [0, 255]
+     * @return the packed 0xRRGGBB color
+     */
+    public int getPaletteRGB(int entry) {
+        return palette == null ? 0 : palette[entry & 0xFF];
+    }
+
+    private void setPaletteColor(int entry, int rgb) {
+        allocatePalette();
+        if (palette[entry & 0xFF] != rgb) {
+            palette[entry & 0xFF] = rgb;
+            paletteChanged = true;
+        }
+    }
+
+    /**
+     * Sets the pixel at the given index to follow a palette entry.  The pixel keeps following the palette until its
+     * color is set some other way.
+     * @param index the target pixel
+     * @param entry the palette entry [0, 255]
+     */
+    public void setPaletteIndex(int index, int entry) {
+        if (checkValidIndex(index)) {
+            setRangePaletteIndex(index, index + 1, entry);
+        }
+    }
+
+    /**
+     * Sets the pixels in the given range to follow a palette entry.
+     * @param startIndex start pixel
+     * @param endIndex end pixel (exclusive)
+     * @param entry the palette entry [0, 255]
+     */
+    public void setRangePaletteIndex(int startIndex, int endIndex, int entry) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
+        if (startIndex >= endIndex) {
+            return;
+        }
+        allocatePalette();
+        Arrays.fill(paletteIndices, startIndex, endIndex, (byte) entry);
+        for (int i = startIndex; i < endIndex; i++) {
+            paletteBound[i >> 6] |= 1L << i;
+        }
+        paletteStart = Math.min(paletteStart, startIndex);
+        paletteEnd = Math.max(paletteEnd, endIndex);
+        markDirty(startIndex, endIndex);
+    }
+
+    /**
+     * Returns the palette entry the pixel at the given index follows.
+     * @param index the target pixel
+     * @return the palette entry [0, 255], or -1 if the pixel doesn't follow the palette
+     */
+    public int getPaletteIndex(int index) {
+        return checkValidIndex(index) && isPaletteBound(index) ? paletteIndices[index] & 0xFF : -1;
+    }
+
+    private void allocatePalette() {
+        if (palette == null) {
+            palette = new int[256];
+            paletteIndices = new byte[length];
+            paletteBound = new long[(length + 63) >> 6];
+            paletteStart = length;
+            paletteEnd = 0;
+        }
+    }
+
+    private boolean isPaletteBound(int index) {
+        return paletteBound != null && (paletteBound[index >> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Looks up the color of every pixel in the range that follows the palette.
+     * @param startIndex start pixel
+     * @param endIndex end pixel (exclusive)
+     */
+    private void resolvePalette(int startIndex, int endIndex) {
+        final int[] palette = this.palette;
+        final byte[] indices = paletteIndices;
+        final long[] bound = paletteBound;
+        for (int i = startIndex; i < endIndex; i++) {
+            if ((bound[i >> 6] & (1L << i)) != 0) {
+                pixels[i] = palette[indices[i] & 0xFF];
+            }
+        }
     }
 
     @Override
@@ -105,13 +681,249 @@ public class LEDStrip implements LEDStripInterface {
     @Override
     public void setHSV(int index, int hue, int sat, int val) {
         if (checkValidIndex(index)) {
-            buffer.setHSV(index, hue, sat, Math.min(val, maxValue));
+            setPixel(index, convertHSV(hue, sat, val));
         }
+    }
 
-        if (sat == 0) {
-            setRGB(index, val, val, val);
+    @Override
+    public void setRGB(int index, int r, int g, int b) {
+        setPixel(index, ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF));
+    }
+
+    @Override
+    public void setRangeHue(int startIndex, int endIndex, int hue) {
+        setRangeHSV(startIndex, endIndex, hue, 255, maxValue);
+    }
+
+    @Override
+    public void setRangeHSV(int startIndex, int endIndex, int hue, int sat, int val) {
+        fill(startIndex, endIndex, convertHSV(hue, sat, val));
+    }
+
+    @Override
+    public void fill(int startIndex, int endIndex, int rgb) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
+        if (startIndex >= endIndex) {
+            return;
+        }
+        unbindPalette(startIndex, endIndex);
+        rgb &= 0xFFFFFF;
+        // Only the pixels between the first and last that change are marked dirty
+        final int[] pixels = this.pixels;
+        while (startIndex < endIndex && pixels[startIndex] == rgb) {
+            startIndex++;
+        }
+        while (endIndex > startIndex && pixels[endIndex - 1] == rgb) {
+            endIndex--;
+        }
+        if (startIndex < endIndex) {
+            Arrays.fill(pixels, startIndex, endIndex, rgb);
+            markDirty(startIndex, endIndex);
+        }
+    }
+
+    @Override
+    public void blit(int[] colors, int colorsIndex, int destIndex, int count) {
+        blit(colors, colorsIndex, destIndex, count, false);
+    }
+
+    /**
+     * Sets a run of pixels from an array of packed colors, optionally in reverse order, so reversed segments can blit
+     * with one call.
+     * @param colors packed 0xRRGGBB colors
+     * @param colorsIndex index of the first color to use
+     * @param destIndex first pixel to set
+     * @param count number of pixels to set
+     * @param reversed true to set the last pixel of the run to the first color
+     */
+    void blit(int[] colors, int colorsIndex, int destIndex, int count, boolean reversed) {
+        final int cutStart = Math.max(0, -destIndex);
+        final int cutEnd = Math.max(0, destIndex + count - length);
+        count -= cutStart + cutEnd;
+        if (count <= 0) {
+            return;
+        }
+        destIndex += cutStart;
+        colorsIndex += reversed ? cutEnd : cutStart;
+        unbindPalette(destIndex, destIndex + count);
+
+        final int[] pixels = this.pixels;
+        int changedStart = length, changedEnd = 0;
+        for (int k = 0; k < count; k++) {
+            final int i = reversed ? destIndex + count - 1 - k : destIndex + k;
+            final int rgb = colors[colorsIndex + k] & 0xFFFFFF;
+            if (pixels[i] != rgb) {
+                pixels[i] = rgb;
+                changedStart = Math.min(changedStart, i);
+                changedEnd = Math.max(changedEnd, i + 1);
+            }
+        }
+        if (changedStart < changedEnd) {
+            markDirty(changedStart, changedEnd);
+        }
+    }
+
+    @Override
+    public void copy(int srcIndex, int destIndex, int count) {
+        if (srcIndex < 0) {
+            destIndex -= srcIndex;
+            count += srcIndex;
+            srcIndex = 0;
+        }
+        if (destIndex < 0) {
+            srcIndex -= destIndex;
+            count += destIndex;
+            destIndex = 0;
+        }
+        count = Math.min(count, length - Math.max(srcIndex, destIndex));
+        if (count <= 0) {
+            return;
+        }
+        if (paletteIndices != null) {
+            // Copy the colors the palette pixels show, the copies don't follow the palette
+            resolvePalette(Math.max(srcIndex, paletteStart), Math.min(srcIndex + count, paletteEnd));
+        }
+        System.arraycopy(pixels, srcIndex, pixels, destIndex, count);
+        unbindPalette(destIndex, destIndex + count);
+        markDirty(destIndex, destIndex + count);
+    }
+
+    @Override
+    public void gradient(int startIndex, int endIndex, int rgbA, int rgbB) {
+        gradient(startIndex, endIndex, rgbA, rgbB, startIndex, endIndex);
+    }
+
+    /**
+     * Sets only the pixels in [clipStart, clipEnd) of a gradient, so a segment can draw its part of a gradient that
+     * runs past it with the same colors as the whole gradient.
+     * @param startIndex start pixel of the whole gradient
+     * @param endIndex end pixel of the whole gradient (exclusive)
+     * @param rgbA packed 0xRRGGBB color of the start pixel
+     * @param rgbB packed 0xRRGGBB color of the last pixel
+     * @param clipStart first pixel to set
+     * @param clipEnd end of the pixels to set (exclusive)
+     */
+    void gradient(int startIndex, int endIndex, int rgbA, int rgbB, int clipStart, int clipEnd) {
+        clipStart = Math.max(Math.max(0, startIndex), clipStart);
+        clipEnd = Math.min(Math.min(length, endIndex), clipEnd);
+        if (clipStart >= clipEnd) {
+            return;
+        }
+        unbindPalette(clipStart, clipEnd);
+
+        // Each channel in 16.16 fixed point, the same as LEDStripInterface.gradient
+        final int steps = Math.max(1, endIndex - startIndex - 1);
+        final int stepR = ((((rgbB >> 16) & 0xFF) - ((rgbA >> 16) & 0xFF)) << 16) / steps;
+        final int stepG = ((((rgbB >> 8) & 0xFF) - ((rgbA >> 8) & 0xFF)) << 16) / steps;
+        final int stepB = (((rgbB & 0xFF) - (rgbA & 0xFF)) << 16) / steps;
+        int r = (((rgbA >> 16) & 0xFF) << 16) + stepR * (clipStart - startIndex) + 0x8000;
+        int g = (((rgbA >> 8) & 0xFF) << 16) + stepG * (clipStart - startIndex) + 0x8000;
+        int b = ((rgbA & 0xFF) << 16) + stepB * (clipStart - startIndex) + 0x8000;
+        final int[] pixels = this.pixels;
+        for (int i = clipStart; i < clipEnd; i++, r += stepR, g += stepG, b += stepB) {
+            pixels[i] = (r & 0xFF0000) | ((g >> 8) & 0xFF00) | (b >> 16);
+        }
+        markDirty(clipStart, clipEnd);
+    }
+
+    @Override
+    public void reverse(int startIndex, int endIndex) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
+        if (endIndex - startIndex < 2) {
+            return;
+        }
+        if (paletteIndices != null) {
+            resolvePalette(Math.max(startIndex, paletteStart), Math.min(endIndex, paletteEnd));
+        }
+        unbindPalette(startIndex, endIndex);
+        final int[] pixels = this.pixels;
+        for (int i = startIndex, j = endIndex - 1; i < j; i++, j--) {
+            final int rgb = pixels[i];
+            pixels[i] = pixels[j];
+            pixels[j] = rgb;
+        }
+        markDirty(startIndex, endIndex);
+    }
+
+    /**
+     * Makes the pixels in the range stop following the palette, a word of the bitset at a time.
+     * @param startIndex start pixel
+     * @param endIndex end pixel (exclusive)
+     */
+    private void unbindPalette(int startIndex, int endIndex) {
+        if (paletteBound == null) {
+            return;
+        }
+        startIndex = Math.max(startIndex, paletteStart);
+        endIndex = Math.min(endIndex, paletteEnd);
+        while (startIndex < endIndex) {
+            final int wordEnd = Math.min(endIndex, ((startIndex >> 6) + 1) << 6);
+            long mask = -1L << startIndex;
+            if ((wordEnd & 63) != 0) {
+                mask &= -1L >>> (64 - wordEnd);
+            }
+            paletteBound[startIndex >> 6] &= ~mask;
+            startIndex = wordEnd;
+        }
+    }
+
+    /**
+     * Enables a fixed-point HSV conversion that replaces the floating point rounding and divisions in
+     * {@link #setHSV(int, int, int, int)} with small lookup tables.  The output is identical either way.
+     * @param enabled true to use the fixed-point conversion
+     */
+    public void setFastHSV(boolean enabled) {
+        fastHSV = enabled;
+    }
+
+    /**
+     * Converts an HSV color to a packed 0xRRGGBB color, using the conversion selected by {@link #setFastHSV(boolean)}.
+     * @param hue hue
+     * @param sat saturation
+     * @param val value
+     * @return the packed color
+     */
+    int convertHSV(int hue, int sat, int val) {
+        return fastHSV ? hsvToRGBFixedPoint(hue, sat, val) : hsvToRGB(hue, sat, val);
+    }
+
+    /**
+     * Sets the pixel at the given index to a packed color.
+     * @param index the target pixel
+     * @param rgb packed 0xRRGGBB color
+     */
+    void setPixel(int index, int rgb) {
+        if (!checkValidIndex(index)) {
             return;
         }
+        if (paletteBound != null) {
+            // The pixel stops following the palette
+            paletteBound[index >> 6] &= ~(1L << index);
+        }
+        if (pixels[index] != rgb) {
+            pixels[index] = rgb;
+            if (index < dirtyStart) {
+                dirtyStart = index;
+            }
+            if (index >= dirtyEnd) {
+                dirtyEnd = index + 1;
+            }
+        }
+    }
+
+    /**
+     * Converts an HSV color to a packed 0xRRGGBB color.
+     * @param hue hue [0, 180)
+     * @param sat saturation [0, 255]
+     * @param val value [0, 255]
+     * @return the packed color
+     */
+    static int hsvToRGB(int hue, int sat, int val) {
+        if (sat == 0) {
+            return packRGB(val, val, val);
+        }
 
         // The below algorithm is copied from Color.fromHSV and moved here for
         // performance reasons.
@@ -137,62 +949,65 @@ public class LEDStrip implements LEDStripInterface {
         // Goes from 0 to chroma as hue increases
         final int X = (chroma * remainder) >> 8;
 
-        switch (region) {
-            case 0:
-                setRGB(index, val, X + m, m);
-                break;
-            case 1:
-                setRGB(index, val - X, val, m);
-                break;
-            case 2:
-                setRGB(index, m, val, X + m);
-                break;
-            case 3:
-                setRGB(index, m, val - X, val);
-                break;
-            case 4:
-                setRGB(index, X + m, m, val);
-                break;
-            default:
-                setRGB(index, val, m, val - X);
-                break;
-        }
+        return switch (region) {
+            case 0 -> packRGB(val, X + m, m);
+            case 1 -> packRGB(val - X, val, m);
+            case 2 -> packRGB(m, val, X + m);
+            case 3 -> packRGB(m, val - X, val);
+            case 4 -> packRGB(X + m, m, val);
+            default -> packRGB(val, m, val - X);
+        };
     }
 
-    @Override
-    public void setRGB(int index, int r, int g, int b) {
-        if (checkValidIndex(index)) {
-            int[] rgb = limitRGBBrightness(fromRGBToCustomMode(r, g, b));
-            buffer.setRGB(index, rgb[0], rgb[1], rgb[2]);
+    /**
+     * Same as {@link #hsvToRGB(int, int, int)}, but only using integer math and lookup tables.  Colors outside the
+     * normal HSV ranges fall back to {@link #hsvToRGB(int, int, int)}.
+     * @param hue hue [0, 180)
+     * @param sat saturation [0, 255]
+     * @param val value [0, 255]
+     * @return the packed color
+     */
+    static int hsvToRGBFixedPoint(int hue, int sat, int val) {
+        if (hue < 0 || hue >= 180 || (sat & ~0xFF) != 0 || (val & ~0xFF) != 0) {
+            return hsvToRGB(hue, sat, val);
         }
+        if (sat == 0) {
+            return packRGB(val, val, val);
+        }
+
+        // (x + 1 + (x >> 8)) >> 8 is exactly x / 255 for 0 <= x <= 255 * 255
+        final int product = sat * val;
+        final int chroma = (product + 1 + (product >> 8)) >> 8;
+        final int m = val - chroma;
+        final int X = (chroma * HUE_REMAINDER[hue]) >> 8;
+
+        return switch (HUE_REGION[hue]) {
+            case 0 -> packRGB(val, X + m, m);
+            case 1 -> packRGB(val - X, val, m);
+            case 2 -> packRGB(m, val, X + m);
+            case 3 -> packRGB(m, val - X, val);
+            case 4 -> packRGB(X + m, m, val);
+            default -> packRGB(val, m, val - X);
+        };
+    }
+
+    private static int packRGB(int r, int g, int b) {
+        return ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF);
     }
 
     @Override
     public void off() {
-        for (var i = 0; i < length; ++i) {
-            buffer.setRGB(i, 0, 0, 0);
+        if (paletteBound != null) {
+            Arrays.fill(paletteBound, 0);
+            paletteStart = length;
+            paletteEnd = 0;
         }
-    }
-
-//    private int[] limitRGBBrightness(int r, int g, int b) {
-    private int[] limitRGBBrightness(int[] rgb) {
-        int sum = rgb[0] + rgb[1] + rgb[2];
-        if (sum > maxBrightness) {
-            rgb[0] = rgb[0] / (sum / maxBrightness);
-            rgb[1] = rgb[1] / (sum / maxBrightness);
-            rgb[2] = rgb[2] / (sum / maxBrightness);
+        for (int i = 0; i < length; i++) {
+            if (pixels[i] != 0) {
+                Arrays.fill(pixels, i, length, 0);
+                markDirty(i, length);
+                return;
+            }
         }
-        return rgb;
-    }
-
-    private int[] fromRGBToCustomMode(int r, int g, int b) {
-        return switch (ledMode) {
-            case RGB -> new int[] {r, g, b};
-            case RBG -> new int[] {r, b, g};
-            case GRB -> new int[] {g, r, b};
-            case GBR -> new int[] {g, b, r};
-            case BGR -> new int[] {b, g, r};
-            case BRG -> new int[] {b, r, g};
-        };
     }
 }
@@ -85,9 +85,7 @@ public interface LEDStripInterface {
      * @param b blue
      */
     default void setRangeRGB(int startIndex, int endIndex, int r, int g, int b) {
-        for (var i = startIndex; i < endIndex; i++) {
-            setRGB(i, r, g, b);
-        }
+        fill(startIndex, endIndex, ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF));
     }
 
     /**
@@ -118,6 +116,68 @@ public interface LEDStripInterface {
         setRangeRGB(0, length(), r, g, b);
     }
 
+    /**
+     * Sets all the pixels in the given range to a packed color.  Pixels outside the LEDs are skipped, as are those of
+     * every other range operation.
+     * @param startIndex start pixel
+     * @param endIndex end pixel (exclusive)
+     * @param rgb packed 0xRRGGBB color
+     */
+    default void fill(int startIndex, int endIndex, int rgb) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length(), endIndex);
+        for (int i = startIndex; i < endIndex; i++) {
+            setPackedRGB(i, rgb);
+        }
+    }
+
+    /**
+     * Sets a run of pixels from an array of packed colors.
+     * @param colors packed 0xRRGGBB colors
+     * @param colorsIndex index of the first color to use
+     * @param destIndex first pixel to set
+     * @param count number of pixels to set
+     */
+    default void blit(int[] colors, int colorsIndex, int destIndex, int count) {
+        if (destIndex < 0) {
+            colorsIndex -= destIndex;
+            count += destIndex;
+            destIndex = 0;
+        }
+        count = Math.min(count, length() - destIndex);
+        for (int k = 0; k < count; k++) {
+            setPackedRGB(destIndex + k, colors[colorsIndex + k]);
+        }
+    }
+
+    /**
+     * Sets the pixels in the given range to a gradient, blending evenly in RGB from one color at the start pixel to
+     * the other at the last pixel.
+     * @param startIndex start pixel
+     * @param endIndex end pixel (exclusive)
+     * @param rgbA packed 0xRRGGBB color of the start pixel
+     * @param rgbB packed 0xRRGGBB color of the last pixel
+     */
+    default void gradient(int startIndex, int endIndex, int rgbA, int rgbB) {
+        // Each channel in 16.16 fixed point
+        final int steps = Math.max(1, endIndex - startIndex - 1);
+        final int stepR = ((((rgbB >> 16) & 0xFF) - ((rgbA >> 16) & 0xFF)) << 16) / steps;
+        final int stepG = ((((rgbB >> 8) & 0xFF) - ((rgbA >> 8) & 0xFF)) << 16) / steps;
+        final int stepB = (((rgbB & 0xFF) - (rgbA & 0xFF)) << 16) / steps;
+        final int first = Math.max(0, startIndex);
+        final int end = Math.min(length(), endIndex);
+        int r = (((rgbA >> 16) & 0xFF) << 16) + stepR * (first - startIndex) + 0x8000;
+        int g = (((rgbA >> 8) & 0xFF) << 16) + stepG * (first - startIndex) + 0x8000;
+        int b = ((rgbA & 0xFF) << 16) + stepB * (first - startIndex) + 0x8000;
+        for (int i = first; i < end; i++, r += stepR, g += stepG, b += stepB) {
+            setRGB(i, r >> 16, g >> 16, b >> 16);
+        }
+    }
+
+    private void setPackedRGB(int index, int rgb) {
+        setRGB(index, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+    }
+
     /**
      * Turns all pixels off.
      */
@@ -138,7 +198,7 @@ public interface LEDStripInterface {
      * @param hueB second hue
      */
     default void flashHue(int index, double timeInterval, int hueA, int hueB) {
-        if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+        if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
             setHue(index, hueA);
         } else {
             setHue(index, hueB);
@@ -157,7 +217,7 @@ public interface LEDStripInterface {
      * @param valB second value
      */
     default void flashHSV(int index, double timeInterval, int hueA, int satA, int valA, int hueB, int satB, int valB) {
-        if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+        if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
             setHSV(index, hueA, satA, valA);
         } else {
             setHSV(index, hueB, satB, valB);
@@ -176,7 +236,7 @@ public interface LEDStripInterface {
      * @param bB second blue
      */
     default void flashRGB(int index, double timeInterval, int rA, int gA, int bA, int rB, int gB, int bB) {
-        if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+        if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
             setRGB(index, rA, gA, bA);
         } else {
             setRGB(index, rB, gB, bB);
@@ -192,7 +252,7 @@ public interface LEDStripInterface {
      * @param hueB second hue
      */
     default void flashRangeHue(int startIndex, int endIndex, double timeInterval, int hueA, int hueB) {
-        if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+        if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
             setRangeHue(startIndex, endIndex, hueA);
         } else {
             setRangeHue(startIndex, endIndex, hueB);
@@ -212,7 +272,7 @@ public interface LEDStripInterface {
      * @param valB second value
      */
     default void flashRangeHSV(int startIndex, int endIndex, double timeInterval, int hueA, int satA, int valA, int hueB, int satB, int valB) {
-        if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+        if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
             setRangeHSV(startIndex, endIndex, hueA, satA, valA);
         } else {
             setRangeHSV(startIndex, endIndex, hueB, satB, valB);
@@ -232,7 +292,7 @@ public interface LEDStripInterface {
      * @param bB second blue
      */
     default void flashRangeRGB(int startIndex, int endIndex, double timeInterval, int rA, int gA, int bA, int rB, int gB, int bB) {
-        if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+        if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
             setRangeRGB(startIndex, endIndex, rA, gA, bA);
         } else {
             setRangeRGB(startIndex, endIndex, rB, gB, bB);
@@ -246,7 +306,7 @@ public interface LEDStripInterface {
      * @param hueB second hue
      */
     default void flashAllHue(double timeInterval, int hueA, int hueB) {
-        if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+        if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
             setAllHue(hueA);
         } else {
             setAllHue(hueB);
@@ -264,7 +324,7 @@ public interface LEDStripInterface {
      * @param valB second value
      */
     default void flashAllHSV(double timeInterval, int hueA, int satA, int valA, int hueB, int satB, int valB) {
-        if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+        if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
             setAllHSV(hueA, satA, valA);
         } else {
             setAllHSV(hueB, satB, valB);
@@ -282,7 +342,7 @@ public interface LEDStripInterface {
      * @param bB second blue
      */
     default void flashAllRGB(double timeInterval, int rA, int gA, int bA, int rB, int gB, int bB) {
-        if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+        if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
             setAllRGB(rA, gA, bA);
         } else {
             setAllRGB(rB, gB, bB);
@@ -126,7 +126,7 @@ public interface LEDStripPattern {
 
         @Override
         public void draw(LEDStripInterface leds) {
-            if ((System.currentTimeMillis() % (int) (timeInterval * 2000)) < (int) (timeInterval * 1000)) {
+            if (LEDFrameClock.getDefault().isFirstHalf(timeInterval)) {
                 pattern1.draw(leds);
             } else {
                 pattern2.draw(leds);
@@ -9,14 +9,17 @@ public class LEDStripPatterns {
     public static final LEDStripPattern NONE = leds -> {};
     /** Turns the LEDs off */
     public static final LEDStripPattern OFF = LEDStripInterface::off;
+    /** How fast the rainbow moves, in hue steps (of 180) per second. */
+    public static final int RAINBOW_SPEED = 50;
     /**
      * Animates a simple rainbow moving along the LED strip.
      * @return the rainbow pattern
      */
     public static LEDStripPattern RAINBOW() {
         return new LEDStripPattern() {
-            private int firstHue = 0;
             public void draw(LEDStripInterface leds) {
+                // Move the rainbow by time so it runs at the same speed at any loop rate
+                final int firstHue = (int) (LEDFrameClock.getDefault().getTimeMillis() * RAINBOW_SPEED / 1000 % 180);
                 for (var i = 0; i < leds.length(); i++) {
                     // Calculate the hue - hue is easier for rainbows because the color
                     // shape is a circle so only one value needs to precess
@@ -24,10 +27,6 @@ public class LEDStripPatterns {
                     // Set the value
                     leds.setHue(i, hue);
                 }
-                // Increase to make the rainbow "move"
-                firstHue ++;
-                // Check bounds
-                firstHue %= 180;
             }
         };
     }
@@ -1,10 +1,28 @@
 package frc.team1891.common.led;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * A wrapper class to handle control only a specific segment of an {@link LEDStrip}.
+ *
+ * <p>Range operations like {@link #fill} and {@link #copy} are passed on to the parent strip as one range operation,
+ * reversed if the segment is.</p>
+ *
+ * <p>Segments of the same strip can overlap, and by default each one writes straight through to the strip.  Segments
+ * that {@link #claim() claim} their LEDs take part in deciding who owns them: where claimed segments overlap, the one
+ * with the highest priority owns the LEDs and writes from the others are dropped, so the LEDs don't flicker between
+ * them and hidden pixels aren't drawn at all.  Overlapping claimed segments with the same priority are reported when
+ * the second claims its LEDs, and the first one keeps them.  See {@link LEDStrip#getSegmentOwner(int)}.</p>
+ *
+ * <p><b>A claim lasts until {@link #release()} is called.</b>  A claimed segment that is simply dropped keeps its LEDs
+ * for as long as the strip exists, hiding the segments under it, so release segments claimed in commands or pattern
+ * factories once they're done.  Each claim and release also rebuilds the strip's ownership table, so claim segments
+ * once rather than every loop.</p>
  */
 @SuppressWarnings("unused")
-public class LEDStripSegment implements LEDStripInterface {
+public class LEDStripSegment implements LEDReadableStripInterface {
     /** The starting index of this segment on the parent strip. */
     public final int startIndex;
     private final int length;
@@ -13,6 +31,14 @@ public class LEDStripSegment implements LEDStripInterface {
     /** Whether this segment's indexing is reversed. */
     protected boolean isReversed = false;
 
+    private int priority;
+    // Whether the segment is in its parent strip's registry, and its place in the registration order for ties
+    private boolean registered;
+    int registrationOrder;
+    // The runs of this segment's pixels that it owns, as start and end pairs in order
+    private int[] ownedRuns;
+    private boolean ownsAll = true;
+
     /**
      * Creates a new {@link LEDStripSegment} with the given location and size.
      * @param parentStrip the parent LEDStrip this is a part of
@@ -20,52 +46,46 @@ public class LEDStripSegment implements LEDStripInterface {
      * @param length the length of the segment
      */
     public LEDStripSegment(LEDStrip parentStrip, int startIndex, int length) {
+        this(parentStrip, startIndex, length, 0);
+    }
+
+    /**
+     * Creates a new {@link LEDStripSegment} with the given location, size and priority.
+     * @param parentStrip the parent LEDStrip this is a part of
+     * @param startIndex the first index of segment on the parent LEDStrip
+     * @param length the length of the segment
+     * @param priority once {@link #claim() claimed}, where this segment overlaps other claimed segments, the one with
+     *                 the highest priority owns the LEDs
+     */
+    public LEDStripSegment(LEDStrip parentStrip, int startIndex, int length, int priority) {
         this.parentStrip = parentStrip;
         this.startIndex = startIndex;
         this.length = length;
+        this.priority = priority;
+        this.ownedRuns = new int[] {0, length};
     }
 
     /**
-     * Combines two segments to behave as one
-     * @param segmentA the first segment
-     * @param segmentB the second segment
+     * Combines segments to behave as one, indexed through each segment in order.  The segments can be on different
+     * strips, and reversed, which must be done before they are combined.
+     * @param segments the segments, in order
      * @return the combined segment
      */
-    public static LEDStripSegment combine(LEDStripSegment segmentA, LEDStripSegment segmentB) {
-        return new LEDStripSegment(segmentA.parentStrip, segmentA.startIndex, segmentA.length() + segmentB.length()) {
-            @Override
-            public void setHue(int index, int hue) {
-                if (segmentA.checkValidIndex(index)) {
-                    segmentA.setHue(index, hue);
-                } else {
-                    segmentB.setHue(index - segmentA.length(), hue);
-                }
-            }
-
-            @Override
-            public void setHSV(int index, int hue, int sat, int val) {
-                if (segmentA.checkValidIndex(index)) {
-                    segmentA.setHSV(index, hue, sat, val);
-                } else {
-                    segmentB.setHSV(index - segmentA.length(), hue, sat, val);
-                }
-            }
-
-            @Override
-            public void setRGB(int index, int r, int g, int b) {
-                if (segmentA.checkValidIndex(index)) {
-                    segmentA.setRGB(index, r, g, b);
-                } else {
-                    segmentB.setRGB(index - segmentA.length(), r, g, b);
-                }
-            }
-
-            @Override
-            public void off() {
-                segmentA.off();
-                segmentB.off();
+    public static LEDStripSegment combine(LEDStripSegment... segments) {
+        if (segments.length == 0) {
+            throw new IllegalArgumentException("Combining needs at least one segment");
+        }
+        final List<LEDStripSegment> parts = new ArrayList<>();
+        int length = 0;
+        for (LEDStripSegment segment : segments) {
+            if (segment instanceof CompositeSegment composite) {
+                parts.addAll(Arrays.asList(composite.parts));
+            } else {
+                parts.add(segment);
             }
-        };
+            length += segment.length();
+        }
+        return new CompositeSegment(parts.toArray(new LEDStripSegment[0]), length);
     }
 
     /**
@@ -74,6 +94,91 @@ public class LEDStripSegment implements LEDStripInterface {
      */
     public void setReversed(boolean reverse) {
         this.isReversed = reverse;
+        if (registered) {
+            parentStrip.getSegmentRegistry().rebuild();
+        }
+    }
+
+    /**
+     * Returns the priority of this segment where it overlaps other segments.
+     * @return the priority
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the priority of this segment.  Where segments overlap, the one with the highest priority owns the LEDs.
+     * @param priority the priority
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
+        if (registered) {
+            parentStrip.getSegmentRegistry().rebuild();
+        }
+    }
+
+    /**
+     * Claims this segment's LEDs on its parent strip, so where it overlaps other claimed segments, the one with the
+     * highest priority owns the LEDs.  The claim lasts until {@link #release()} is called.
+     * @return this segment
+     */
+    public LEDStripSegment claim() {
+        if (!registered) {
+            registered = true;
+            parentStrip.getSegmentRegistry().register(this);
+        }
+        return this;
+    }
+
+    /**
+     * Gives up this segment's claim on its LEDs, so segments underneath it own them again.  The segment can still be
+     * written to, but no longer takes part in deciding who owns what.
+     */
+    public void release() {
+        if (registered) {
+            registered = false;
+            parentStrip.getSegmentRegistry().release(this);
+            setOwnedRuns(new int[] {0, length});
+        }
+    }
+
+    /**
+     * Returns whether any pixel of this segment is shown, rather than all of them being owned by higher priority
+     * segments.  Patterns drawn only on hidden segments can be skipped.
+     * @return true if writes to this segment can change the LEDs
+     */
+    public boolean isVisible() {
+        return ownedRuns.length > 0;
+    }
+
+    /**
+     * Returns whether this segment owns the pixel at the given index.
+     * @param index the pixel on this segment
+     * @return true if writes to the pixel reach the LEDs
+     */
+    public boolean ownsPixel(int index) {
+        if (!checkValidIndex(index)) {
+            return false;
+        }
+        if (ownsAll) {
+            return true;
+        }
+        for (int k = 0; k < ownedRuns.length && ownedRuns[k] <= index; k += 2) {
+            if (index < ownedRuns[k + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the runs of this segment that it owns, called by the {@link LEDSegmentRegistry}.
+     * @param runs start and end pairs, in order
+     */
+    void setOwnedRuns(int[] runs) {
+        ownedRuns = runs;
+        ownsAll = runs.length == 2 && runs[0] <= 0 && runs[1] >= length;
     }
 
     @Override
@@ -88,32 +193,165 @@ public class LEDStripSegment implements LEDStripInterface {
 
     @Override
     public void setHue(int index, int hue) {
-        if (checkValidIndex(index)) {
+        if (ownsPixel(index)) {
             parentStrip.setHue(calculateIndex(index), hue);
         }
     }
 
     @Override
     public void setHSV(int index, int hue, int sat, int val) {
-        if (checkValidIndex(index)) {
+        if (ownsPixel(index)) {
             parentStrip.setHSV(calculateIndex(index), hue, sat, val);
         }
     }
 
     @Override
     public void setRGB(int index, int r, int g, int b) {
-        if (checkValidIndex(index)) {
+        if (ownsPixel(index)) {
             parentStrip.setRGB(calculateIndex(index), r, g, b);
         }
     }
 
     @Override
-    public void off() {
-        for (var i = 0; i < length; ++i) {
-            parentStrip.setRGB(startIndex + i, 0, 0, 0);
+    public int getRGB(int index) {
+        return checkValidIndex(index) ? parentStrip.getRGB(calculateIndex(index)) : 0;
+    }
+
+    // The range operations below are done once for each owned run the range covers, usually just one
+
+    @Override
+    public void setRangeHue(int startIndex, int endIndex, int hue) {
+        for (int k = 0; k < ownedRuns.length; k += 2) {
+            final int start = Math.max(startIndex, ownedRuns[k]), end = Math.min(endIndex, ownedRuns[k + 1]);
+            if (start < end) {
+                final int parentStart = parentStartOf(start, end);
+                parentStrip.setRangeHue(parentStart, parentStart + end - start, hue);
+            }
+        }
+    }
+
+    @Override
+    public void setRangeHSV(int startIndex, int endIndex, int hue, int sat, int val) {
+        for (int k = 0; k < ownedRuns.length; k += 2) {
+            final int start = Math.max(startIndex, ownedRuns[k]), end = Math.min(endIndex, ownedRuns[k + 1]);
+            if (start < end) {
+                final int parentStart = parentStartOf(start, end);
+                parentStrip.setRangeHSV(parentStart, parentStart + end - start, hue, sat, val);
+            }
+        }
+    }
+
+    @Override
+    public void fill(int startIndex, int endIndex, int rgb) {
+        for (int k = 0; k < ownedRuns.length; k += 2) {
+            final int start = Math.max(startIndex, ownedRuns[k]), end = Math.min(endIndex, ownedRuns[k + 1]);
+            if (start < end) {
+                final int parentStart = parentStartOf(start, end);
+                parentStrip.fill(parentStart, parentStart + end - start, rgb);
+            }
+        }
+    }
+
+    @Override
+    public void blit(int[] colors, int colorsIndex, int destIndex, int count) {
+        for (int k = 0; k < ownedRuns.length; k += 2) {
+            final int start = Math.max(destIndex, ownedRuns[k]), end = Math.min(destIndex + count, ownedRuns[k + 1]);
+            if (start < end) {
+                parentStrip.blit(colors, colorsIndex + start - destIndex, parentStartOf(start, end), end - start,
+                        isReversed);
+            }
+        }
+    }
+
+    @Override
+    public void copy(int srcIndex, int destIndex, int count) {
+        if (srcIndex < 0) {
+            destIndex -= srcIndex;
+            count += srcIndex;
+            srcIndex = 0;
+        }
+        if (destIndex < 0) {
+            srcIndex -= destIndex;
+            count += destIndex;
+            destIndex = 0;
+        }
+        count = Math.min(count, length - Math.max(srcIndex, destIndex));
+        if (count <= 0) {
+            return;
+        }
+        if (ownsAll) {
+            parentStrip.copy(parentStartOf(srcIndex, srcIndex + count), parentStartOf(destIndex, destIndex + count), count);
+        } else {
+            LEDReadableStripInterface.super.copy(srcIndex, destIndex, count);
+        }
+    }
+
+    @Override
+    public void gradient(int startIndex, int endIndex, int rgbA, int rgbB) {
+        gradient(startIndex, endIndex, rgbA, rgbB, startIndex, endIndex);
+    }
+
+    /**
+     * Sets only the pixels in [clipStart, clipEnd) of a gradient, see {@link LEDStrip#gradient(int, int, int, int, int, int)}.
+     * @param startIndex start pixel of the whole gradient
+     * @param endIndex end pixel of the whole gradient (exclusive)
+     * @param rgbA packed 0xRRGGBB color of the start pixel
+     * @param rgbB packed 0xRRGGBB color of the last pixel
+     * @param clipStart first pixel to set
+     * @param clipEnd end of the pixels to set (exclusive)
+     */
+    void gradient(int startIndex, int endIndex, int rgbA, int rgbB, int clipStart, int clipEnd) {
+        for (int k = 0; k < ownedRuns.length; k += 2) {
+            final int start = Math.max(clipStart, ownedRuns[k]), end = Math.min(clipEnd, ownedRuns[k + 1]);
+            if (start >= end) {
+                continue;
+            }
+            if (isReversed) {
+                // The gradient runs the other way along the parent strip
+                parentStrip.gradient(parentStartOf(startIndex, endIndex), this.startIndex + length - startIndex, rgbB,
+                        rgbA, parentStartOf(start, end), this.startIndex + length - start);
+            } else {
+                parentStrip.gradient(this.startIndex + startIndex, this.startIndex + endIndex, rgbA, rgbB,
+                        this.startIndex + start, this.startIndex + end);
+            }
+        }
+    }
+
+    @Override
+    public void reverse(int startIndex, int endIndex) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
+        if (startIndex >= endIndex) {
+            return;
+        }
+        if (ownsAll) {
+            final int parentStart = parentStartOf(startIndex, endIndex);
+            parentStrip.reverse(parentStart, parentStart + endIndex - startIndex);
+        } else {
+            LEDReadableStripInterface.super.reverse(startIndex, endIndex);
         }
     }
 
+    @Override
+    public void rotate(int startIndex, int endIndex, int amount) {
+        startIndex = Math.max(0, startIndex);
+        endIndex = Math.min(length, endIndex);
+        if (startIndex >= endIndex) {
+            return;
+        }
+        if (ownsAll) {
+            final int parentStart = parentStartOf(startIndex, endIndex);
+            parentStrip.rotate(parentStart, parentStart + endIndex - startIndex, isReversed ? -amount : amount);
+        } else {
+            LEDReadableStripInterface.super.rotate(startIndex, endIndex, amount);
+        }
+    }
+
+    @Override
+    public void off() {
+        fill(0, length, 0);
+    }
+
     /**
      * Returns the correct index according to the parentStrip
      * @param index on this strip
@@ -122,4 +360,293 @@ public class LEDStripSegment implements LEDStripInterface {
     private int calculateIndex(int index) {
         return isReversed ? startIndex + length - 1 - index : startIndex + index;
     }
+
+    /**
+     * Returns the first index on the parentStrip of a range, which is where the range ends if the segment is reversed
+     * @param startIndex start of the range on this strip
+     * @param endIndex end of the range on this strip (exclusive)
+     * @return first index of the range on the parent strip
+     */
+    private int parentStartOf(int startIndex, int endIndex) {
+        return isReversed ? this.startIndex + length - endIndex : this.startIndex + startIndex;
+    }
+
+    /**
+     * Any number of segments behaving as one, possibly on different strips.  Combining combined segments flattens
+     * them, so there is only ever one level of parts.
+     *
+     * <p>The part and LED index of every pixel are looked up once when the segments are combined, so a pixel write
+     * goes straight to its strip.  Range operations find the first part they cover with a binary search, then become
+     * one range operation on each part they cover.  Copies and reversals that cross between parts fall back to going
+     * pixel by pixel.</p>
+     */
+    private static class CompositeSegment extends LEDStripSegment {
+        private final LEDStripSegment[] parts;
+        // The index in this segment where each part starts
+        private final int[] partStarts;
+        // Every distinct strip behind the parts, updated together
+        private final LEDStrip[] strips;
+        // The part and the LED index on that part's strip of each pixel
+        private final int[] pixelParts;
+        private final int[] pixelIndices;
+
+        private CompositeSegment(LEDStripSegment[] parts, int length) {
+            super(parts[0].parentStrip, parts[0].startIndex, length, 0);
+            this.parts = parts;
+            partStarts = new int[parts.length];
+            pixelParts = new int[length];
+            pixelIndices = new int[length];
+            final List<LEDStrip> stripList = new ArrayList<>();
+            for (int p = 0, index = 0; p < parts.length; p++) {
+                final LEDStripSegment part = parts[p];
+                partStarts[p] = index;
+                for (int i = 0; i < part.length(); i++, index++) {
+                    pixelParts[index] = p;
+                    pixelIndices[index] = part.calculateIndex(i);
+                }
+                if (!stripList.contains(part.parentStrip)) {
+                    stripList.add(part.parentStrip);
+                }
+            }
+            strips = stripList.toArray(new LEDStrip[0]);
+        }
+
+        /**
+         * Returns the part holding a pixel.
+         * @param index the pixel, clamped to this segment
+         * @return the index of the part
+         */
+        private int partOf(int index) {
+            int low = 0, high = parts.length - 1;
+            while (low < high) {
+                final int mid = (low + high + 1) >>> 1;
+                if (partStarts[mid] <= index) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the part holding a whole range, if there is one.
+         * @param startIndex start of the range
+         * @param endIndex end of the range (exclusive)
+         * @return the index of the part, or -1 if the range crosses between parts
+         */
+        private int partHolding(int startIndex, int endIndex) {
+            final int p = partOf(startIndex);
+            return startIndex >= partStarts[p] && endIndex <= partStarts[p] + parts[p].length() ? p : -1;
+        }
+
+        /**
+         * Claims the LEDs of every part, see {@link LEDStripSegment#claim()}.
+         * @return this segment
+         */
+        @Override
+        public LEDStripSegment claim() {
+            for (LEDStripSegment part : parts) {
+                part.claim();
+            }
+            return this;
+        }
+
+        @Override
+        public void release() {
+            for (LEDStripSegment part : parts) {
+                part.release();
+            }
+        }
+
+        @Override
+        public void update() {
+            for (LEDStrip strip : strips) {
+                strip.update();
+            }
+        }
+
+        @Override
+        public void setHue(int index, int hue) {
+            if (checkValidIndex(index)) {
+                final LEDStripSegment part = parts[pixelParts[index]];
+                if (part.ownsAll) {
+                    part.parentStrip.setHue(pixelIndices[index], hue);
+                } else {
+                    part.setHue(index - partStarts[pixelParts[index]], hue);
+                }
+            }
+        }
+
+        @Override
+        public void setHSV(int index, int hue, int sat, int val) {
+            if (checkValidIndex(index)) {
+                final LEDStripSegment part = parts[pixelParts[index]];
+                if (part.ownsAll) {
+                    part.parentStrip.setHSV(pixelIndices[index], hue, sat, val);
+                } else {
+                    part.setHSV(index - partStarts[pixelParts[index]], hue, sat, val);
+                }
+            }
+        }
+
+        @Override
+        public void setRGB(int index, int r, int g, int b) {
+            if (checkValidIndex(index)) {
+                final LEDStripSegment part = parts[pixelParts[index]];
+                if (part.ownsAll) {
+                    part.parentStrip.setRGB(pixelIndices[index], r, g, b);
+                } else {
+                    part.setRGB(index - partStarts[pixelParts[index]], r, g, b);
+                }
+            }
+        }
+
+        @Override
+        public int getRGB(int index) {
+            return checkValidIndex(index) ? parts[pixelParts[index]].parentStrip.getRGB(pixelIndices[index]) : 0;
+        }
+
+        @Override
+        public boolean isVisible() {
+            for (LEDStripSegment part : parts) {
+                if (part.isVisible()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean ownsPixel(int index) {
+            return checkValidIndex(index) && parts[pixelParts[index]].ownsPixel(index - partStarts[pixelParts[index]]);
+        }
+
+        // Range operations are passed to each part they cover, which clamps them to itself
+
+        @Override
+        public void setRangeHue(int startIndex, int endIndex, int hue) {
+            startIndex = Math.max(0, startIndex);
+            for (int p = partOf(startIndex); p < parts.length && partStarts[p] < endIndex; p++) {
+                parts[p].setRangeHue(startIndex - partStarts[p], endIndex - partStarts[p], hue);
+            }
+        }
+
+        @Override
+        public void setRangeHSV(int startIndex, int endIndex, int hue, int sat, int val) {
+            startIndex = Math.max(0, startIndex);
+            for (int p = partOf(startIndex); p < parts.length && partStarts[p] < endIndex; p++) {
+                parts[p].setRangeHSV(startIndex - partStarts[p], endIndex - partStarts[p], hue, sat, val);
+            }
+        }
+
+        @Override
+        public void fill(int startIndex, int endIndex, int rgb) {
+            startIndex = Math.max(0, startIndex);
+            for (int p = partOf(startIndex); p < parts.length && partStarts[p] < endIndex; p++) {
+                parts[p].fill(startIndex - partStarts[p], endIndex - partStarts[p], rgb);
+            }
+        }
+
+        @Override
+        public void blit(int[] colors, int colorsIndex, int destIndex, int count) {
+            if (destIndex < 0) {
+                colorsIndex -= destIndex;
+                count += destIndex;
+                destIndex = 0;
+            }
+            final int endIndex = destIndex + count;
+            for (int p = partOf(destIndex); p < parts.length && partStarts[p] < endIndex; p++) {
+                final int start = Math.max(destIndex, partStarts[p]);
+                parts[p].blit(colors, colorsIndex + start - destIndex, start - partStarts[p], endIndex - start);
+            }
+        }
+
+        @Override
+        void gradient(int startIndex, int endIndex, int rgbA, int rgbB, int clipStart, int clipEnd) {
+            clipStart = Math.max(0, clipStart);
+            for (int p = partOf(clipStart); p < parts.length && partStarts[p] < clipEnd; p++) {
+                parts[p].gradient(startIndex - partStarts[p], endIndex - partStarts[p], rgbA, rgbB,
+                        clipStart - partStarts[p], clipEnd - partStarts[p]);
+            }
+        }
+
+        @Override
+        public void copy(int srcIndex, int destIndex, int count) {
+            if (srcIndex < 0) {
+                destIndex -= srcIndex;
+                count += srcIndex;
+                srcIndex = 0;
+            }
+            if (destIndex < 0) {
+                srcIndex -= destIndex;
+                count += destIndex;
+                destIndex = 0;
+            }
+            count = Math.min(count, length() - Math.max(srcIndex, destIndex));
+            if (count <= 0) {
+                return;
+            }
+            final int p = partHolding(Math.min(srcIndex, destIndex), Math.max(srcIndex, destIndex) + count);
+            if (p >= 0) {
+                parts[p].copy(srcIndex - partStarts[p], destIndex - partStarts[p], count);
+            } else if (srcIndex < destIndex) {
+                for (int k = count - 1; k >= 0; k--) {
+                    setPixel(destIndex + k, getRGB(srcIndex + k));
+                }
+            } else {
+                for (int k = 0; k < count; k++) {
+                    setPixel(destIndex + k, getRGB(srcIndex + k));
+                }
+            }
+        }
+
+        @Override
+        public void reverse(int startIndex, int endIndex) {
+            startIndex = Math.max(0, startIndex);
+            endIndex = Math.min(length(), endIndex);
+            if (startIndex >= endIndex) {
+                return;
+            }
+            final int p = partHolding(startIndex, endIndex);
+            if (p >= 0) {
+                parts[p].reverse(startIndex - partStarts[p], endIndex - partStarts[p]);
+            } else {
+                for (int i = startIndex, j = endIndex - 1; i < j; i++, j--) {
+                    final int rgb = getRGB(i);
+                    setPixel(i, getRGB(j));
+                    setPixel(j, rgb);
+                }
+            }
+        }
+
+        @Override
+        public void rotate(int startIndex, int endIndex, int amount) {
+            startIndex = Math.max(0, startIndex);
+            endIndex = Math.min(length(), endIndex);
+            if (startIndex >= endIndex) {
+                return;
+            }
+            final int p = partHolding(startIndex, endIndex);
+            if (p >= 0) {
+                parts[p].rotate(startIndex - partStarts[p], endIndex - partStarts[p], amount);
+            } else {
+                amount = Math.floorMod(amount, endIndex - startIndex);
+                reverse(startIndex, endIndex);
+                reverse(startIndex, startIndex + amount);
+                reverse(startIndex + amount, endIndex);
+            }
+        }
+
+        @Override
+        public void off() {
+            for (LEDStripSegment part : parts) {
+                part.off();
+            }
+        }
+
+        private void setPixel(int index, int rgb) {
+            setRGB(index, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+        }
+    }
 }
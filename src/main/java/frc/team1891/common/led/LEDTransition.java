@@ -0,0 +1,229 @@
+package frc.team1891.common.led;
+
+/**
+ * Shows one pattern at a time on an LED strip or matrix, blending from the old pattern to the new one over a duration
+ * instead of cutting straight to it.
+ *
+ * <pre>{@code
+ * LEDTransition transition = new LEDTransition(strip);
+ * transition.show(LEDStripPatterns.RAINBOW());
+ * // Later, fades to red over half a second
+ * transition.transitionTo(LEDStripPattern.setRGB(255, 0, 0), LEDTransition.Type.FADE, .5);
+ * // Every loop
+ * transition.run();
+ * }</pre>
+ *
+ * <p>While a transition runs, both patterns keep animating: each draws into its own off-screen {@link LEDBuffer}, and
+ * the two are blended onto the target in a single pass.  The buffers are allocated with the transition, so a frame
+ * costs at most two pattern draws and one blend pass and doesn't allocate.  Outside of a transition the pattern draws
+ * straight onto the target.  Progress is measured on the default {@link LEDFrameClock}.</p>
+ */
+@SuppressWarnings("unused")
+public class LEDTransition {
+    /** How the new pattern replaces the old one. */
+    public enum Type {
+        /** Switches immediately. */
+        CUT,
+        /** Crossfades every LED at once. */
+        FADE,
+        /** Uncovers the new pattern from the start of the strip, or the left of the matrix. */
+        WIPE,
+        /** Switches LEDs one at a time in a scattered order. */
+        DISSOLVE,
+        /** Slides the new pattern in from the start of the strip, or the left of the matrix, pushing the old one out. */
+        SLIDE
+    }
+
+    private final LEDStripInterface target;
+    private final int numRows, numCols;
+    private final int length;
+    // Off-screen buffers the two patterns draw into during a transition, and the blended frame, packed 0xRRGGBB
+    private final LEDBuffer outgoingBuffer, incomingBuffer;
+    private final int[] frame;
+
+    // The pattern being shown, or transitioned to; only one of the pair is set
+    private LEDStripPattern stripPattern;
+    private LEDMatrixPattern matrixPattern;
+    // The pattern being transitioned from
+    private LEDStripPattern outgoingStripPattern;
+    private LEDMatrixPattern outgoingMatrixPattern;
+
+    private Type type = Type.CUT;
+    private boolean transitioning = false;
+    private long startNanos, durationNanos;
+    // Progress of the current transition, out of 256
+    private int progress = 256;
+
+    /**
+     * Creates a new {@link LEDTransition} drawing onto the given LEDs.
+     * @param target the LEDs to draw onto
+     */
+    public LEDTransition(LEDStripInterface target) {
+        this.target = target;
+        if (target instanceof LEDMatrixInterface matrix) {
+            numRows = matrix.rows();
+            numCols = matrix.cols();
+        } else {
+            numRows = 1;
+            numCols = target.length();
+        }
+        length = numRows * numCols;
+        outgoingBuffer = LEDBuffer.matching(target);
+        incomingBuffer = LEDBuffer.matching(target);
+        frame = new int[length];
+    }
+
+    /**
+     * Cuts straight to a pattern, ending any transition.
+     * @param pattern the pattern to show
+     */
+    public void show(LEDStripPattern pattern) {
+        transitionTo(pattern, Type.CUT, 0);
+    }
+
+    /**
+     * Cuts straight to a matrix pattern, ending any transition.
+     * @param pattern the pattern to show
+     */
+    public void show(LEDMatrixPattern pattern) {
+        transitionTo(pattern, Type.CUT, 0);
+    }
+
+    /**
+     * Starts a transition from the current pattern to a new one.  If a transition is already running, it ends and the
+     * pattern it was transitioning to is transitioned from.
+     * @param pattern the new pattern
+     * @param type how the new pattern replaces the old one
+     * @param seconds how long the transition takes
+     */
+    public void transitionTo(LEDStripPattern pattern, Type type, double seconds) {
+        start(type, seconds);
+        stripPattern = pattern;
+        matrixPattern = null;
+        pattern.reset();
+    }
+
+    /**
+     * Starts a transition from the current pattern to a new matrix pattern, see
+     * {@link #transitionTo(LEDStripPattern, Type, double)}.
+     * @param pattern the new pattern
+     * @param type how the new pattern replaces the old one
+     * @param seconds how long the transition takes
+     */
+    public void transitionTo(LEDMatrixPattern pattern, Type type, double seconds) {
+        if (!(target instanceof LEDMatrixInterface)) {
+            throw new IllegalArgumentException("Matrix patterns can only be shown on a matrix");
+        }
+        start(type, seconds);
+        stripPattern = null;
+        matrixPattern = pattern;
+        pattern.reset();
+    }
+
+    private void start(Type type, double seconds) {
+        final boolean showing = stripPattern != null || matrixPattern != null;
+        this.type = type;
+        durationNanos = (long) (seconds * 1e9);
+        transitioning = showing && type != Type.CUT && durationNanos > 0;
+        outgoingStripPattern = transitioning ? stripPattern : null;
+        outgoingMatrixPattern = transitioning ? matrixPattern : null;
+        startNanos = LEDFrameClock.getDefault().getTimeNanos();
+        progress = transitioning ? 0 : 256;
+    }
+
+    /**
+     * @return true while a transition is running
+     */
+    public boolean isTransitioning() {
+        return transitioning;
+    }
+
+    /**
+     * @return how far through the current transition the last frame was, from 0 to 1, or 1 if none is running
+     */
+    public double getProgress() {
+        return progress / 256.0;
+    }
+
+    /**
+     * Draws the current pattern onto the target, or the blend of both patterns during a transition, without updating
+     * the LEDs.
+     */
+    public void draw() {
+        if (transitioning) {
+            final long elapsed = LEDFrameClock.getDefault().getTimeNanos() - startNanos;
+            progress = (int) Math.min(256, Math.max(0, (elapsed << 8) / durationNanos));
+            if (progress >= 256) {
+                transitioning = false;
+                outgoingStripPattern = null;
+                outgoingMatrixPattern = null;
+            }
+        }
+        if (!transitioning) {
+            drawPattern(stripPattern, matrixPattern, target);
+            return;
+        }
+
+        drawPattern(outgoingStripPattern, outgoingMatrixPattern, outgoingBuffer);
+        drawPattern(stripPattern, matrixPattern, incomingBuffer);
+        blend();
+        LEDBuffer.writeFrame(frame, numRows, numCols, target);
+    }
+
+    /**
+     * Draws the current pattern, or the blend of both patterns during a transition, and updates the LEDs.
+     */
+    public void run() {
+        draw();
+        target.update();
+    }
+
+    private static void drawPattern(LEDStripPattern stripPattern, LEDMatrixPattern matrixPattern,
+                                    LEDStripInterface leds) {
+        if (stripPattern != null) {
+            stripPattern.draw(leds);
+        } else if (matrixPattern != null) {
+            matrixPattern.draw((LEDMatrixInterface) leds);
+        }
+    }
+
+    /**
+     * Blends the two off-screen buffers into the frame, by the current progress.
+     */
+    private void blend() {
+        final int[] from = outgoingBuffer.pixels, to = incomingBuffer.pixels, frame = this.frame;
+        final int progress = this.progress;
+        switch (type) {
+            case FADE -> {
+                for (int i = 0; i < length; i++) {
+                    final int a = from[i], b = to[i];
+                    final int r = (a >> 16) & 0xFF, g = (a >> 8) & 0xFF, bl = a & 0xFF;
+                    frame[i] = ((r + (((((b >> 16) & 0xFF) - r) * progress) >> 8)) << 16)
+                            | ((g + (((((b >> 8) & 0xFF) - g) * progress) >> 8)) << 8)
+                            | (bl + ((((b & 0xFF) - bl) * progress) >> 8));
+                }
+            }
+            case WIPE -> {
+                final int edge = (numCols * progress) >> 8;
+                for (int row = 0; row < length; row += numCols) {
+                    System.arraycopy(to, row, frame, row, edge);
+                    System.arraycopy(from, row + edge, frame, row + edge, numCols - edge);
+                }
+            }
+            case DISSOLVE -> {
+                for (int i = 0; i < length; i++) {
+                    // A fixed scattered order: the top byte of the index times the golden ratio
+                    frame[i] = (i * 0x9E3779B1) >>> 24 < progress ? to[i] : from[i];
+                }
+            }
+            case SLIDE -> {
+                final int shift = (numCols * progress) >> 8;
+                for (int row = 0; row < length; row += numCols) {
+                    System.arraycopy(to, row + numCols - shift, frame, row, shift);
+                    System.arraycopy(from, row, frame, row + shift, numCols - shift);
+                }
+            }
+            case CUT -> System.arraycopy(to, 0, frame, 0, length);
+        }
+    }
+}
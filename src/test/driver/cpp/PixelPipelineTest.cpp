@@ -0,0 +1,58 @@
+#include <gtest/gtest.h>
+
+#include "driverheader.h"
+
+TEST(PixelPipelineTest, HSVToRGB) {
+  EXPECT_EQ(0x808080u, bbl_hsv_to_rgb(45, 0, 128));
+  EXPECT_EQ(0xFF0000u, bbl_hsv_to_rgb(0, 255, 255));
+  EXPECT_EQ(0x00FF00u, bbl_hsv_to_rgb(60, 255, 255));
+  EXPECT_EQ(0x0000FFu, bbl_hsv_to_rgb(120, 255, 255));
+  // hue 15 is half way through the first region
+  EXPECT_EQ(0xFF7F00u, bbl_hsv_to_rgb(15, 255, 255));
+}
+
+TEST(PixelPipelineTest, ChannelOrder) {
+  const uint32_t src[] = {0x0A141E};
+  uint32_t dst[1];
+
+  ASSERT_EQ(0, bbl_process_frame(src, dst, 0, 1, 0, 0, BBL_ORDER_RGB, 765));
+  EXPECT_EQ(0x0A141Eu, dst[0]);
+  ASSERT_EQ(0, bbl_process_frame(src, dst, 0, 1, 0, 0, BBL_ORDER_GRB, 765));
+  EXPECT_EQ(0x140A1Eu, dst[0]);
+  ASSERT_EQ(0, bbl_process_frame(src, dst, 0, 1, 0, 0, BBL_ORDER_BRG, 765));
+  EXPECT_EQ(0x1E0A14u, dst[0]);
+}
+
+TEST(PixelPipelineTest, BrightnessLimit) {
+  const uint32_t src[] = {0xFFFFFF, 0x643219};
+  uint32_t dst[2];
+
+  ASSERT_EQ(0, bbl_process_frame(src, dst, 0, 2, 0, 0, BBL_ORDER_RGB, 200));
+  // scaled by 200 / 765, 255 * 200 / 765 = 66.7
+  EXPECT_EQ(0x434343u, dst[0]);
+  // under the limit, unchanged
+  EXPECT_EQ(0x643219u, dst[1]);
+
+  ASSERT_EQ(0, bbl_process_frame(src, dst, 0, 2, 0, 0, BBL_ORDER_RGB, 0));
+  EXPECT_EQ(0u, dst[0]);
+}
+
+TEST(PixelPipelineTest, Serpentine) {
+  const uint32_t src[] = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+  uint32_t dst[9];
+
+  ASSERT_EQ(0, bbl_process_frame(src, dst, 0, 9, 3, BBL_FLAG_SERPENTINE, BBL_ORDER_RGB, 765));
+  const uint32_t expected[] = {0, 1, 2, 5, 4, 3, 6, 7, 8};
+  for (int i = 0; i < 9; i++) {
+    EXPECT_EQ(expected[i], dst[i]) << "index " << i;
+  }
+}
+
+TEST(PixelPipelineTest, InvalidArguments) {
+  const uint32_t src[] = {0};
+  uint32_t dst[1];
+
+  EXPECT_GT(0, bbl_process_frame(nullptr, dst, 0, 1, 0, 0, BBL_ORDER_RGB, 765));
+  EXPECT_GT(0, bbl_process_frame(src, dst, 0, 1, 0, 0, 6, 765));
+  EXPECT_GT(0, bbl_process_frame(src, dst, 0, 1, 0, BBL_FLAG_SERPENTINE, BBL_ORDER_RGB, 765));
+}
@@ -0,0 +1,78 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LEDFrameClockTest {
+    @AfterEach
+    public void restoreClock() {
+        LEDFrameClock.setDefault(LEDFrameClock.realTime());
+    }
+
+    @Test
+    public void testAlternatingPatternFollowsClock() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDBuffer leds = new LEDBuffer(2);
+        LEDStripPattern pattern = new LEDStripPattern.AlternatingPattern(.25, LEDStripPattern.setRGB(255, 0, 0));
+
+        pattern.draw(leds);
+        assertEquals(0xFFFF0000, leds.getARGB(0));
+        clock.advance(.25);
+        pattern.draw(leds);
+        assertEquals(0, leds.getARGB(0));
+        // Drawing again in the same frame gives the same result
+        pattern.draw(leds);
+        assertEquals(0, leds.getARGB(0));
+        clock.advance(.25);
+        pattern.draw(leds);
+        assertEquals(0xFFFF0000, leds.getARGB(1));
+    }
+
+    @Test
+    public void testRainbowIsTimeBased() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDBuffer a = new LEDBuffer(4), b = new LEDBuffer(4);
+        LEDStripPattern rainbow = LEDStripPatterns.RAINBOW();
+
+        // Drawing many times in one frame doesn't move the rainbow
+        rainbow.draw(a);
+        rainbow.draw(a);
+        rainbow.draw(b);
+        assertEquals(a.getARGB(0), b.getARGB(0));
+
+        // One second later it has moved by the rainbow speed
+        clock.advance(1);
+        rainbow.draw(a);
+        LEDBuffer expected = new LEDBuffer(1);
+        expected.setHue(0, LEDStripPatterns.RAINBOW_SPEED);
+        assertEquals(expected.getARGB(0), a.getARGB(0));
+    }
+
+    @Test
+    public void testTimeOnlyMovesOnTick() throws InterruptedException {
+        LEDFrameClock clock = LEDFrameClock.realTime();
+        LEDFrameClock.setDefault(clock);
+        LEDStrip strip = new LEDStrip(null, 2, LEDStrip.LEDMode.GRB);
+
+        // Until it's ticked, a real time clock follows the system clock
+        long before = clock.getTimeNanos();
+        Thread.sleep(2);
+        assertTrue(clock.getTimeNanos() > before);
+
+        clock.tick();
+        long frame = clock.getTimeNanos();
+        strip.setRGB(0, 255, 0, 0);
+        strip.update();
+        Thread.sleep(2);
+        // Updating strips doesn't start a new frame, so everything drawn in a loop sees the same time
+        assertEquals(frame, clock.getTimeNanos());
+        assertEquals(1, clock.getFrameCount());
+        clock.tick();
+        assertTrue(clock.getTimeNanos() > frame);
+    }
+}
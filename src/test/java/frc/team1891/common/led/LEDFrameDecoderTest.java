@@ -0,0 +1,188 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LEDFrameDecoderTest {
+    private static final int ROWS = 4, COLS = 5;
+
+    @AfterEach
+    public void restoreClock() {
+        LEDFrameClock.setDefault(LEDFrameClock.realTime());
+    }
+
+    /** Frames where a few random pixels change each frame, with some solid fills. */
+    private static int[][] randomFrames(int count) {
+        Random random = new Random(1891);
+        int[][] frames = new int[count][ROWS * COLS];
+        for (int f = 0; f < count; f++) {
+            if (f > 0) {
+                frames[f] = frames[f - 1].clone();
+            }
+            if (f % 7 == 3) {
+                Arrays.fill(frames[f], 2, 15, random.nextInt(0x1000000));
+            }
+            for (int n = 0; n < 3; n++) {
+                frames[f][random.nextInt(ROWS * COLS)] = random.nextInt(0x1000000);
+            }
+        }
+        return frames;
+    }
+
+    @Test
+    public void testDeltaRoundTripAndSeek() {
+        int[][] frames = randomFrames(40);
+        LEDDeltaFrameEncoder encoder = new LEDDeltaFrameEncoder(ROWS, COLS, 10);
+        for (int[] frame : frames) {
+            encoder.addFrame(frame);
+        }
+        LEDDeltaFrameDecoder decoder = new LEDDeltaFrameDecoder(ByteBuffer.wrap(encoder.toByteArray()), ROWS, COLS);
+        assertEquals(40, decoder.frameCount());
+
+        int[] frame = new int[ROWS * COLS];
+        int[] changed = new int[ROWS * COLS];
+        for (int f = 0; f < 40; f++) {
+            int[] before = frame.clone();
+            int count = decoder.decode(f, frame, changed);
+            assertArrayEquals(frames[f], frame, "frame " + f);
+            if (count != LEDFrameDecoder.ALL_CHANGED) {
+                // Every pixel that changed is reported
+                for (int i = 0; i < frame.length; i++) {
+                    if (before[i] != frame[i]) {
+                        boolean found = false;
+                        for (int c = 0; c < count; c++) {
+                            found |= changed[c] == i;
+                        }
+                        assertTrue(found, "pixel " + i + " of frame " + f);
+                    }
+                }
+            }
+        }
+
+        // Jumping around lands on the right frame
+        for (int f : new int[] {5, 3, 27, 28, 12, 39, 0}) {
+            decoder.decode(f, frame, changed);
+            assertArrayEquals(frames[f], frame, "frame " + f);
+        }
+    }
+
+    @Test
+    public void testRawFrames() {
+        int[][] frames = randomFrames(6);
+        ByteBuffer data = ByteBuffer.allocate(6 * ROWS * COLS * 3);
+        for (int[] frame : frames) {
+            for (int rgb : frame) {
+                data.put((byte) (rgb >> 16)).put((byte) (rgb >> 8)).put((byte) rgb);
+            }
+        }
+        data.flip();
+        LEDRawFrameDecoder decoder = new LEDRawFrameDecoder(data, ROWS, COLS);
+        assertEquals(6, decoder.frameCount());
+
+        int[] frame = new int[ROWS * COLS];
+        int[] changed = new int[ROWS * COLS];
+        for (int f : new int[] {0, 1, 2, 5, 4}) {
+            decoder.decode(f, frame, changed);
+            assertArrayEquals(frames[f], frame, "frame " + f);
+        }
+    }
+
+    @Test
+    public void testAnimatedPatternStreamsFrames() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        int[][] frames = randomFrames(12);
+        LEDDeltaFrameEncoder encoder = new LEDDeltaFrameEncoder(ROWS, COLS, 5);
+        for (int[] frame : frames) {
+            encoder.addFrame(frame);
+        }
+        LEDMatrixPattern pattern = new LEDMatrixPattern.AnimatedLEDMatrixPattern(
+                LEDMatrixPattern.AnimatedLEDMatrixPattern.RunType.ONCE, 10,
+                new LEDDeltaFrameDecoder(ByteBuffer.wrap(encoder.toByteArray()), ROWS, COLS));
+        LEDBuffer leds = new LEDBuffer(ROWS, COLS);
+
+        for (int f = 0; f < 12; f++) {
+            pattern.draw(leds);
+            for (int i = 0; i < ROWS * COLS; i++) {
+                assertEquals(frames[f][i], leds.getARGB(i) & 0xFFFFFF, "frame " + f);
+            }
+            clock.advance(.1);
+        }
+        pattern.draw(leds);
+        assertTrue(pattern.isFinished());
+    }
+
+    @Test
+    public void testAnimatedPatternRedrawsAfterOverdraw() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        int[][] frames = randomFrames(4);
+        LEDDeltaFrameEncoder encoder = new LEDDeltaFrameEncoder(ROWS, COLS, 5);
+        for (int[] frame : frames) {
+            encoder.addFrame(frame);
+        }
+        LEDMatrixPattern pattern = new LEDMatrixPattern.AnimatedLEDMatrixPattern(
+                LEDMatrixPattern.AnimatedLEDMatrixPattern.RunType.CONTINUOUS, 10,
+                new LEDDeltaFrameDecoder(ByteBuffer.wrap(encoder.toByteArray()), ROWS, COLS));
+        LEDBuffer leds = new LEDBuffer(ROWS, COLS);
+
+        pattern.draw(leds);
+        // Something else covers the animation, within the same frame and then across a delta frame
+        leds.setAllRGB(255, 255, 255);
+        pattern.draw(leds);
+        for (int i = 0; i < ROWS * COLS; i++) {
+            assertEquals(frames[0][i], leds.getARGB(i) & 0xFFFFFF, "same frame");
+        }
+        leds.setAllRGB(255, 255, 255);
+        clock.advance(.1);
+        pattern.draw(leds);
+        for (int i = 0; i < ROWS * COLS; i++) {
+            assertEquals(frames[1][i], leds.getARGB(i) & 0xFFFFFF, "next frame");
+        }
+    }
+
+    @Test
+    public void testAnimationFile() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        // Few colors get a palette, many are stored as RGB
+        int[][] fewColors = randomFrames(20);
+        int[][] manyColors = new int[20][ROWS * COLS];
+        for (int f = 0; f < 20; f++) {
+            for (int i = 0; i < ROWS * COLS; i++) {
+                manyColors[f][i] = (f * ROWS * COLS + i) * 0x010203 & 0xFFFFFF;
+            }
+        }
+
+        for (int[][] source : new int[][][] {manyColors, fewColors}) {
+            LEDAnimationEncoder encoder = new LEDAnimationEncoder(1, ROWS * COLS, 10,
+                    LEDMatrixPattern.AnimatedLEDMatrixPattern.RunType.CONTINUOUS).setKeyframeInterval(6);
+            for (int[] frame : source) {
+                encoder.addFrame(frame);
+            }
+            LEDAnimation animation = new LEDAnimation(ByteBuffer.wrap(encoder.toByteArray()));
+            assertEquals(source == fewColors, animation.getPalette() != null);
+            assertEquals(20, animation.frameCount());
+            assertEquals(10, animation.getFPS());
+
+            LEDStripPattern pattern = animation.createStripPattern();
+            LEDBuffer leds = new LEDBuffer(ROWS * COLS);
+            // Play through twice, to loop back to the start
+            for (int f = 0; f < 40; f++) {
+                pattern.draw(leds);
+                for (int i = 0; i < ROWS * COLS; i++) {
+                    assertEquals(source[f % 20][i], leds.getARGB(i) & 0xFFFFFF, "frame " + f);
+                }
+                clock.advance(.1);
+            }
+        }
+    }
+}
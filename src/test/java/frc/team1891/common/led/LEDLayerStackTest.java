@@ -0,0 +1,46 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class LEDLayerStackTest {
+    @Test
+    public void testBlendModes() {
+        LEDStrip strip = new LEDStrip(null, 4, LEDStrip.LEDMode.RGB);
+        LEDLayerStack stack = new LEDLayerStack(strip);
+        stack.addLayer(new LEDLayer(4, 0, LEDStripPattern.setRGB(100, 100, 100)));
+        LEDLayer top = stack.addLayer(new LEDLayer(4, 1, leds -> leds.setRGB(0, 200, 0, 50)));
+
+        stack.draw();
+        assertEquals(0xC80032, strip.getRGB(0));
+        assertEquals(0x646464, strip.getRGB(1));
+
+        top.setBlendMode(LEDLayer.BlendMode.ADD);
+        stack.draw();
+        assertEquals(0xFF6496, strip.getRGB(0));
+
+        top.setBlendMode(LEDLayer.BlendMode.MULTIPLY);
+        stack.draw();
+        assertEquals(0x4E0013, strip.getRGB(0));
+
+        top.setBlendMode(LEDLayer.BlendMode.MAX);
+        stack.draw();
+        assertEquals(0xC86464, strip.getRGB(0));
+
+        top.setBlendMode(LEDLayer.BlendMode.NORMAL).setOpacity(0);
+        stack.draw();
+        assertEquals(0x646464, strip.getRGB(0));
+    }
+
+    @Test
+    public void testUnchangedFrameIsSkipped() {
+        LEDStrip strip = new LEDStrip(null, 4, LEDStrip.LEDMode.RGB);
+        LEDLayerStack stack = new LEDLayerStack(strip);
+        stack.addLayer(new LEDLayer(4, 0, LEDStripPattern.setRGB(100, 100, 100)));
+
+        stack.draw();
+        assertFalse(stack.composite());
+    }
+}
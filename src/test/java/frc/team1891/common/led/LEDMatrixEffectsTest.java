@@ -0,0 +1,131 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LEDMatrixEffectsTest {
+    @AfterEach
+    public void restoreClock() {
+        LEDFrameClock.setDefault(LEDFrameClock.realTime());
+    }
+
+    @Test
+    public void testLifeBlinkerAcrossWords() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        // Wide enough that the blinker straddles two words of the bit-packed board
+        LEDBuffer leds = new LEDBuffer(3, 70);
+        LEDMatrixEffects.Life life = new LEDMatrixEffects.Life(10, 0, 255, 0);
+        life.draw(leds);
+        life.clear();
+        life.setAlive(63, 1, true);
+        life.setAlive(64, 1, true);
+        life.setAlive(65, 1, true);
+
+        clock.advance(.1);
+        life.draw(leds);
+        assertTrue(life.isAlive(64, 0));
+        assertTrue(life.isAlive(64, 1));
+        assertTrue(life.isAlive(64, 2));
+        assertFalse(life.isAlive(63, 1));
+        assertEquals(0x00FF00, leds.getRGB(2 * 70 + 64));
+        assertEquals(0, leds.getRGB(70 + 63));
+
+        clock.advance(.1);
+        life.draw(leds);
+        assertTrue(life.isAlive(63, 1));
+        assertTrue(life.isAlive(65, 1));
+        assertFalse(life.isAlive(64, 0));
+    }
+
+    @Test
+    public void testFireRisesFromBottom() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDBuffer leds = new LEDBuffer(16, 8);
+        LEDMatrixEffect fire = LEDMatrixEffects.FIRE();
+        for (int i = 0; i < 60; i++) {
+            fire.draw(leds);
+            clock.advance(.034);
+        }
+        int bottom = 0, top = 0;
+        for (int x = 0; x < 8; x++) {
+            bottom += (leds.getRGB(15 * 8 + x) >> 16) & 0xFF;
+            top += (leds.getRGB(x) >> 16) & 0xFF;
+        }
+        assertTrue(bottom > 8 * 200, "Bottom " + bottom);
+        assertTrue(top < bottom / 4, "Top " + top);
+    }
+
+    @Test
+    public void testRainFalls() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDBuffer leds = new LEDBuffer(8, 8);
+        LEDMatrixEffects.Rain rain = new LEDMatrixEffects.Rain(30, 1, 0, 0, 255);
+        rain.draw(leds);
+        assertEquals(0, rain.getDropCount());
+        clock.advance(.034);
+        rain.draw(leds);
+        // Every column starts a drop, drawn at the top
+        assertEquals(8, rain.getDropCount());
+        assertEquals(0x0000FF, leds.getRGB(3));
+
+        // Drops are replaced as they fall off the bottom, so the pool never overflows
+        for (int i = 0; i < 300; i++) {
+            clock.advance(.034);
+            rain.draw(leds);
+        }
+        assertTrue(rain.getDropCount() <= 8 * 2 * (8 + 4));
+    }
+
+    @Test
+    public void testPlasmaMovesAndRepeats() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDBuffer a = new LEDBuffer(8, 8), b = new LEDBuffer(8, 8);
+        LEDMatrixEffect plasma = LEDMatrixEffects.PLASMA();
+        plasma.draw(a);
+        clock.advance(1);
+        plasma.draw(b);
+        int changed = 0;
+        for (int i = 0; i < 64; i++) {
+            if (a.getRGB(i) != b.getRGB(i)) {
+                changed++;
+            }
+        }
+        assertTrue(changed > 32, "Changed " + changed);
+        // One period later, at .25 periods a second, the colors come back
+        clock.advance(3);
+        plasma.draw(b);
+        for (int i = 0; i < 64; i++) {
+            assertEquals(a.getRGB(i), b.getRGB(i));
+        }
+    }
+
+    @Test
+    public void testResetReplaysSeed() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDBuffer leds = new LEDBuffer(8, 8);
+        LEDMatrixEffect life = LEDMatrixEffects.LIFE().setSeed(42);
+        life.draw(leds);
+        int[] first = new int[64];
+        for (int i = 0; i < 64; i++) {
+            first[i] = leds.getRGB(i);
+        }
+        clock.advance(.5);
+        life.draw(leds);
+
+        // Starting over gives the same first board
+        life.reset();
+        life.draw(leds);
+        for (int i = 0; i < 64; i++) {
+            assertEquals(first[i], leds.getRGB(i));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LEDMatrixLayoutTest {
+    @Test
+    public void testSerpentine() {
+        int[] map = new LEDMatrixLayout(3, 4).withSerpentine(true).buildIndexMap();
+        assertArrayEquals(new int[] {
+                0, 1, 2, 3,
+                7, 6, 5, 4,
+                8, 9, 10, 11
+        }, map);
+    }
+
+    @Test
+    public void testColumnMajorFlipped() {
+        int[] map = new LEDMatrixLayout(2, 3)
+                .withOrder(LEDMatrixLayout.Order.COLUMN_MAJOR)
+                .withSerpentine(true)
+                .withFlip(true, false)
+                .buildIndexMap();
+        // Starts at the top right, running down then up each column
+        assertArrayEquals(new int[] {
+                4, 3, 0,
+                5, 2, 1
+        }, map);
+    }
+
+    @Test
+    public void testTiles() {
+        // Two 2x2 panels side by side
+        int[] map = new LEDMatrixLayout(2, 4).withTiles(1, 2, false).buildIndexMap();
+        assertArrayEquals(new int[] {
+                0, 1, 4, 5,
+                2, 3, 6, 7
+        }, map);
+    }
+
+    @Test
+    public void testInverseMap() {
+        LEDMatrixLayout layout = new LEDMatrixLayout(8, 6)
+                .withSerpentine(true)
+                .withRotation(LEDMatrixLayout.Rotation.CLOCKWISE_90)
+                .withTiles(2, 2, true);
+        LEDMatrix matrix = new LEDMatrix(new LEDStrip(null, 48, LEDStrip.LEDMode.RGB), 0, layout);
+        for (int y = 0; y < matrix.rows(); y++) {
+            for (int x = 0; x < matrix.cols(); x++) {
+                int index = matrix.oneDimensionalIndexOf(x, y);
+                assertEquals(x, matrix.xOf(index));
+                assertEquals(y, matrix.yOf(index));
+            }
+        }
+        assertEquals(-1, matrix.xOf(48));
+        assertEquals(-1, matrix.yOf(-1));
+    }
+}
@@ -0,0 +1,105 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LEDMatrixSegmentTest {
+    private static LEDMatrix matrix(int rows, int cols, boolean serpentine) {
+        return new LEDMatrix(new LEDStrip(null, rows * cols, LEDStrip.LEDMode.GRB), 0, rows, cols, serpentine);
+    }
+
+    private static int rgbAt(LEDMatrix matrix, int x, int y) {
+        return matrix.getRGB(matrix.oneDimensionalIndexOf(x, y));
+    }
+
+    @Test
+    public void testStartIndexOnSerpentineOddRow() {
+        final LEDMatrix matrix = matrix(4, 8, true);
+        // Row major index 9 is (1, 1), even though the LED wired there is index 14
+        final LEDMatrixSegment segment = new LEDMatrixSegment(matrix, 9, 3, 2);
+        segment.setRGB(0, 0, 255, 0, 0);
+        segment.setRGB(2, 1, 0, 0, 255);
+        assertEquals(0xFF0000, rgbAt(matrix, 1, 1));
+        assertEquals(0x0000FF, rgbAt(matrix, 3, 2));
+        assertEquals(0xFF0000, segment.getRGB(0));
+    }
+
+    @Test
+    public void testNegativeSize() {
+        final LEDMatrix matrix = matrix(4, 4, true);
+        assertThrows(IllegalArgumentException.class, () -> new LEDMatrixSegment(matrix, 0, 0, -1, 2));
+        final LEDMatrixSegment segment = new LEDMatrixSegment(matrix, 0, 0, 2, 2);
+        assertThrows(IllegalArgumentException.class, () -> new LEDMatrixSegment(segment, 0, 0, 2, -1));
+    }
+
+    @Test
+    public void testClippingAndNesting() {
+        final LEDMatrix matrix = matrix(4, 4, true);
+        final LEDMatrixSegment outer = new LEDMatrixSegment(matrix, 2, 1, 4, 4);
+        final LEDMatrixSegment inner = new LEDMatrixSegment(outer, 1, 1, 3, 3);
+        inner.setAllRGB(0, 255, 0);
+        int lit = 0;
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                if (rgbAt(matrix, x, y) != 0) {
+                    lit++;
+                }
+            }
+        }
+        // Only (3, 2) and (3, 3) of the inner segment land on the matrix
+        assertEquals(2, lit);
+        assertEquals(0x00FF00, rgbAt(matrix, 3, 2));
+        assertEquals(0x00FF00, rgbAt(matrix, 3, 3));
+        assertEquals(0, inner.getRGB(2));
+    }
+
+    @Test
+    public void testTransforms() {
+        final LEDMatrix matrix = matrix(4, 6, false);
+        final LEDMatrixSegment segment = new LEDMatrixSegment(matrix, 0, 0, 6, 4);
+
+        final LEDMatrixSegment clockwise = segment.rotated(LEDMatrixLayout.Rotation.CLOCKWISE_90);
+        assertEquals(6, clockwise.rows());
+        assertEquals(4, clockwise.cols());
+        // The top left of an upright image lands in the top right corner
+        clockwise.setRGB(0, 0, 255, 0, 0);
+        assertEquals(0xFF0000, rgbAt(matrix, 5, 0));
+        clockwise.setRGB(3, 5, 0, 0, 255);
+        assertEquals(0x0000FF, rgbAt(matrix, 0, 3));
+
+        matrix.off();
+        final LEDMatrixSegment turned = segment.rotated(LEDMatrixLayout.Rotation.COUNTERCLOCKWISE_90)
+                .flipped(true, false);
+        // A quarter turn back and a mirror is a transpose
+        turned.setRGB(1, 0, 0, 255, 0);
+        turned.setRGB(3, 5, 0, 0, 255);
+        assertEquals(0x00FF00, rgbAt(matrix, 0, 1));
+        assertEquals(0x0000FF, rgbAt(matrix, 5, 3));
+
+        matrix.off();
+        final LEDMatrixSegment scaled = segment.scaled(2).rotated(LEDMatrixLayout.Rotation.ROTATE_180);
+        assertEquals(2, scaled.rows());
+        assertEquals(3, scaled.cols());
+        scaled.setRGB(0, 0, 255, 255, 255);
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 6; x++) {
+                assertEquals(x >= 4 && y >= 2 ? 0xFFFFFF : 0, rgbAt(matrix, x, y), "(" + x + ", " + y + ")");
+            }
+        }
+        assertEquals(0xFFFFFF, scaled.getRGB(0));
+    }
+
+    @Test
+    public void testFramesWriteThroughIndexMap() {
+        final LEDMatrix matrix = matrix(4, 4, true);
+        final LEDMatrixSegment segment = new LEDMatrixSegment(matrix, 1, 0, 2, 3).flipped(false, true);
+        final LEDBuffer buffer = new LEDBuffer(3, 2);
+        buffer.setRGB(0, 1, 2, 3);
+        buffer.setRGB(5, 4, 5, 6);
+        buffer.copyTo(segment);
+        assertEquals(0x010203, rgbAt(matrix, 1, 2));
+        assertEquals(0x040506, rgbAt(matrix, 2, 0));
+    }
+}
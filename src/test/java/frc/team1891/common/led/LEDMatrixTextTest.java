@@ -0,0 +1,91 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LEDMatrixTextTest {
+    @AfterEach
+    public void restoreClock() {
+        LEDFrameClock.setDefault(LEDFrameClock.realTime());
+    }
+
+    private static int[] pixels(LEDBuffer leds) {
+        final int[] pixels = new int[leds.length()];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = leds.getRGB(i);
+        }
+        return pixels;
+    }
+
+    @Test
+    public void testFontColumns() {
+        final LEDFont font = LEDFont.FONT_5X7;
+        // 'L' is a full left column and a bottom row
+        final long glyph = font.glyph('L');
+        assertEquals(0x7F, LEDFont.column(glyph, 0));
+        assertEquals(0x40, LEDFont.column(glyph, 1));
+        assertEquals(6, font.advance('L'));
+        assertEquals(2, font.advance('!'));
+        assertEquals(3, font.advance(' '));
+        assertEquals(font.glyph('?'), font.glyph('\u00E9'));
+    }
+
+    @Test
+    public void testDrawTextClipsToSegment() {
+        final LEDStrip strip = new LEDStrip(null, 8 * 16, LEDStrip.LEDMode.GRB);
+        final LEDMatrix matrix = new LEDMatrix(strip, 0, 8, 16, false);
+        final LEDMatrixSegment segment = new LEDMatrixSegment(matrix, 0, 4, 8);
+        final int width = LEDMatrixText.drawText(segment, LEDFont.FONT_5X7, "LL", 0, 0, 0xFF0000);
+        assertEquals(12, width);
+        for (int y = 0; y < 7; y++) {
+            assertEquals(0xFF0000, strip.getRGB(y * 16));
+        }
+        // The bottom row of the first 'L' is cut off at the edge of the segment, and the second isn't drawn at all
+        assertEquals(0xFF0000, strip.getRGB(6 * 16 + 3));
+        for (int y = 0; y < 8; y++) {
+            for (int x = 4; x < 16; x++) {
+                assertEquals(0, strip.getRGB(y * 16 + x));
+            }
+        }
+    }
+
+    @Test
+    public void testMarqueeMatchesHeldText() {
+        final LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        final String text = "Hi 1891!";
+        final int cols = 12;
+        final LEDBuffer scrolling = new LEDBuffer(9, cols), held = new LEDBuffer(9, cols);
+        final LEDMatrixText marquee = new LEDMatrixText(LEDFont.FONT_5X7, text, 0, 255, 0).scroll(8);
+        final LEDMatrixText reference = new LEDMatrixText(LEDFont.FONT_5X7, text, 0, 255, 0);
+        final int cycle = LEDFont.FONT_5X7.width(text) + cols;
+
+        for (int scrolled = 0; scrolled < 2 * cycle; scrolled++) {
+            marquee.draw(scrolling);
+            reference.setPosition(cols - scrolled % cycle, 1).draw(held);
+            assertArrayEquals(pixels(held), pixels(scrolling), "After " + scrolled + " columns");
+            clock.advance(.125);
+        }
+
+        // Catching up after a long pause lands in the same place
+        clock.advance(.125 * (cycle + 5));
+        marquee.draw(scrolling);
+        reference.setPosition(cols - 5, 1).draw(held);
+        assertArrayEquals(pixels(held), pixels(scrolling));
+    }
+
+    @Test
+    public void testRecolorAndBackground() {
+        final LEDBuffer leds = new LEDBuffer(7, 6);
+        final LEDMatrixText text = new LEDMatrixText(LEDFont.FONT_5X7, "L", 255, 0, 0);
+        text.draw(leds);
+        text.setColor(0, 0, 255).setBackground(0, 10, 0);
+        text.draw(leds);
+        assertEquals(0x0000FF, leds.getRGB(0));
+        assertEquals(0x000A00, leds.getRGB(1));
+        assertEquals(0x0000FF, leds.getRGB(6 * 6 + 4));
+    }
+}
@@ -0,0 +1,25 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LEDMatrixWallTest {
+    @Test
+    public void testWall() {
+        LEDStrip stripA = new LEDStrip(null, 8, LEDStrip.LEDMode.RGB);
+        LEDStrip stripB = new LEDStrip(null, 4, LEDStrip.LEDMode.RGB);
+        // The right panel is first on strip A, the left panel is alone on strip B
+        LEDMatrix left = new LEDMatrix(stripB, 0, 2, 2, true);
+        LEDMatrix right = new LEDMatrix(stripA, 4, 2, 2, false);
+        LEDMatrixWall wall = new LEDMatrixWall(1, 2, left, right);
+
+        assertEquals(2, wall.rows());
+        assertEquals(4, wall.cols());
+        wall.setRGB(0, 1, 255, 0, 0);
+        wall.setRGB(3, 1, 0, 0, 255);
+
+        assertEquals(0xFF0000, stripB.getRGB(3));
+        assertEquals(0x0000FF, stripA.getRGB(7));
+    }
+}
@@ -0,0 +1,62 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LEDNativeParityTest {
+    @Test
+    public void testStripRenderMatchesJava() {
+        Random random = new Random(1891);
+        for (LEDStrip.LEDMode mode : LEDStrip.LEDMode.values()) {
+            for (int brightness : new int[] {765, 382, 100, 1}) {
+                LEDStrip javaStrip = new LEDStrip(null, 300, mode);
+                LEDStrip nativeStrip = new LEDStrip(null, 300, mode);
+                assertTrue(nativeStrip.setNativeRendering(true));
+                javaStrip.setMaxBrightness(brightness);
+                nativeStrip.setMaxBrightness(brightness);
+
+                for (int i = 0; i < 300; i++) {
+                    int r = random.nextInt(256), g = random.nextInt(256), b = random.nextInt(256);
+                    javaStrip.setRGB(i, r, g, b);
+                    nativeStrip.setRGB(i, r, g, b);
+                }
+                javaStrip.update();
+                nativeStrip.update();
+
+                for (int i = 0; i < 300; i++) {
+                    assertEquals(javaStrip.buffer.getRed(i), nativeStrip.buffer.getRed(i));
+                    assertEquals(javaStrip.buffer.getGreen(i), nativeStrip.buffer.getGreen(i));
+                    assertEquals(javaStrip.buffer.getBlue(i), nativeStrip.buffer.getBlue(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMatrixHSVMatchesJava() {
+        int rows = 8, cols = 32;
+        int[] hsv = new int[rows * cols];
+        for (int i = 0; i < hsv.length; i++) {
+            hsv[i] = ((i % 180) << 16) | ((255 - i % 256) << 8) | (i * 7 % 256);
+        }
+
+        for (boolean serpentine : new boolean[] {false, true}) {
+            LEDStrip javaStrip = new LEDStrip(null, rows * cols + 5, LEDStrip.LEDMode.RGB);
+            LEDStrip nativeStrip = new LEDStrip(null, rows * cols + 5, LEDStrip.LEDMode.RGB);
+            LEDMatrix javaMatrix = new LEDMatrix(javaStrip, 5, rows, cols, serpentine);
+            LEDMatrix nativeMatrix = new LEDMatrix(nativeStrip, 5, rows, cols, serpentine);
+            assertTrue(nativeMatrix.setNativeRendering(true));
+
+            assertTrue(javaMatrix.setPixelsHSV(hsv));
+            assertTrue(nativeMatrix.setPixelsHSV(hsv));
+
+            for (int i = 0; i < rows * cols + 5; i++) {
+                assertEquals(javaStrip.getRGB(i), nativeStrip.getRGB(i));
+            }
+        }
+    }
+}
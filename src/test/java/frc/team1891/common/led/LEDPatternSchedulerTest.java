@@ -0,0 +1,130 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LEDPatternSchedulerTest {
+    @AfterEach
+    public void restoreClock() {
+        LEDFrameClock.setDefault(LEDFrameClock.realTime());
+    }
+
+    @Test
+    public void testAlertPreemptsAndRestoresAmbient() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDBuffer leds = new LEDBuffer(4);
+        LEDPatternScheduler scheduler = new LEDPatternScheduler(leds);
+
+        LEDPatternScheduler.Request ambient = scheduler.schedule(LEDStripPattern.setRGB(0, 0, 255), 0);
+        scheduler.run();
+        assertEquals(0x0000FF, leds.getRGB(0));
+
+        LEDPatternScheduler.Request alert = scheduler.schedule(LEDStripPattern.setRGB(255, 0, 0), 10).withTimeout(1);
+        // A lower priority request scheduled later stays hidden
+        scheduler.schedule(LEDStripPattern.setRGB(0, 255, 0), 5).withTimeout(.5);
+        scheduler.run();
+        assertEquals(0xFF0000, leds.getRGB(0));
+        assertSame(alert, scheduler.getShown());
+
+        clock.advance(1);
+        scheduler.run();
+        assertEquals(0x0000FF, leds.getRGB(3));
+        assertFalse(alert.isScheduled());
+        assertTrue(ambient.isScheduled());
+
+        ambient.cancel();
+        scheduler.run();
+        assertEquals(0, leds.getRGB(0));
+        assertNull(scheduler.getShown());
+    }
+
+    @Test
+    public void testRestoredPartialPatternDoesNotShowAlert() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDBuffer leds = new LEDBuffer(4);
+        LEDPatternScheduler scheduler = new LEDPatternScheduler(leds);
+
+        // Only ever draws the first LED
+        scheduler.schedule((LEDStripPattern) strip -> strip.setRGB(0, 0, 0, 255), 0);
+        scheduler.run();
+        scheduler.schedule(LEDStripPattern.setRGB(255, 0, 0), 10).withTimeout(1);
+        scheduler.run();
+        assertEquals(0xFF0000, leds.getRGB(3));
+
+        clock.advance(1);
+        scheduler.run();
+        assertEquals(0x0000FF, leds.getRGB(0));
+        for (int i = 1; i < 4; i++) {
+            assertEquals(0, leds.getRGB(i), "LED " + i);
+        }
+    }
+
+    @Test
+    public void testUntilFinished() {
+        LEDBuffer leds = new LEDBuffer(2);
+        LEDPatternScheduler scheduler = new LEDPatternScheduler(leds);
+        int[] resets = new int[1];
+        LEDStripPattern twoFrames = new LEDStripPattern() {
+            private int frames = 0;
+
+            @Override
+            public void draw(LEDStripInterface leds) {
+                frames++;
+                leds.setAllRGB(frames, 0, 0);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return frames >= 2;
+            }
+
+            @Override
+            public void reset() {
+                frames = 0;
+                resets[0]++;
+            }
+        };
+
+        scheduler.schedule(LEDStripPattern.setRGB(0, 0, 255), 0);
+        LEDPatternScheduler.Request request = scheduler.schedule(twoFrames, 1).untilFinished();
+        scheduler.draw();
+        assertEquals(0x010000, leds.getRGB(0));
+        scheduler.draw();
+        assertEquals(0x020000, leds.getRGB(0));
+        assertFalse(request.isScheduled());
+        scheduler.draw();
+        assertEquals(0x0000FF, leds.getRGB(0));
+        assertEquals(1, resets[0]);
+    }
+
+    @Test
+    public void testManyRequestsKeepOrder() {
+        LEDBuffer leds = new LEDBuffer(1);
+        LEDPatternScheduler scheduler = new LEDPatternScheduler(leds);
+        LEDPatternScheduler.Request[] requests = new LEDPatternScheduler.Request[50];
+        for (int i = 0; i < requests.length; i++) {
+            // Priorities out of order, with repeats
+            requests[i] = scheduler.schedule(LEDStripPattern.setRGB(0, 0, i), (i * 7) % 13);
+        }
+        for (int i = 0; i < requests.length; i++) {
+            scheduler.draw();
+            LEDPatternScheduler.Request shown = scheduler.getShown();
+            for (LEDPatternScheduler.Request other : requests) {
+                if (other.isScheduled()) {
+                    assertTrue(other.getPriority() <= shown.getPriority());
+                }
+            }
+            shown.cancel();
+        }
+        scheduler.draw();
+        assertNull(scheduler.getShown());
+    }
+}
@@ -0,0 +1,53 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LEDRendererTest {
+    @Test
+    public void testHandoff() {
+        LEDStrip strip = new LEDStrip(null, 4, LEDStrip.LEDMode.RGB);
+        LEDRenderer renderer = new LEDRenderer(strip);
+        renderer.setPresentOnRenderThread(false);
+
+        // Nothing rendered yet
+        assertFalse(renderer.present());
+
+        renderer.setPattern(LEDStripPattern.setRGB(10, 20, 30));
+        renderer.renderFrame();
+        assertEquals(0, strip.getRGB(0));
+        assertTrue(renderer.present());
+        assertEquals(0x0A141E, strip.getRGB(3));
+        // The same frame isn't presented again, however many idle calls there are
+        assertFalse(renderer.present());
+        assertFalse(renderer.present());
+        assertFalse(renderer.present());
+
+        // Only the newest of several frames is presented
+        renderer.setPattern(LEDStripPattern.setRGB(1, 2, 3));
+        renderer.renderFrame();
+        renderer.setPattern(LEDStripPattern.setRGB(4, 5, 6));
+        renderer.renderFrame();
+        assertTrue(renderer.present());
+        assertEquals(0x040506, strip.getRGB(0));
+        assertFalse(renderer.present());
+        assertFalse(renderer.present());
+
+        assertEquals(3, renderer.getRenderedFrameCount());
+        assertEquals(2, renderer.getPresentedFrameCount());
+    }
+
+    @Test
+    public void testFrameRateMustBePositive() {
+        LEDRenderer renderer = new LEDRenderer(new LEDStrip(null, 4, LEDStrip.LEDMode.RGB));
+        assertThrows(IllegalArgumentException.class, () -> renderer.setFrameRate(0));
+        assertThrows(IllegalArgumentException.class, () -> renderer.setFrameRate(-50));
+        assertThrows(IllegalArgumentException.class, () -> renderer.setFrameRate(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> renderer.setFrameRate(Double.POSITIVE_INFINITY));
+        renderer.setFrameRate(100);
+    }
+}
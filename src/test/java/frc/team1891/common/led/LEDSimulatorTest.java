@@ -0,0 +1,98 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LEDSimulatorTest {
+    @Test
+    public void testFramesFollowOutput() {
+        LEDSimulator simulator = new LEDSimulator(4, LEDStrip.LEDMode.GRB);
+        LEDStrip strip = simulator.getStrip();
+        strip.setMaxBrightness(255);
+
+        strip.setRGB(0, 255, 0, 0);
+        strip.setRGB(1, 255, 255, 255);
+        strip.update();
+        assertEquals(1, simulator.getFrameCount());
+        // Colors are in RGB order whatever the mode, after the brightness limit
+        assertEquals(0xFF0000, simulator.getRGB(0));
+        assertEquals(0x555555, simulator.getRGB(1));
+
+        // Frames that send nothing aren't counted
+        strip.update();
+        assertEquals(1, simulator.getFrameCount());
+    }
+
+    @Test
+    public void testFixedStepAndMatrixView() {
+        LEDSimulator simulator = new LEDSimulator(6, LEDStrip.LEDMode.RGB);
+        LEDMatrix matrix = new LEDMatrix(simulator.getStrip(), 2, 2, 2, true);
+        simulator.setView(matrix);
+        LEDMatrixPattern flash = new LEDMatrixPattern.AlternatingPattern(1,
+                LEDMatrixPattern.setRGB(255, 0, 0), LEDMatrixPattern.setRGB(0, 0, 255));
+
+        // Ten simulated seconds take no real time
+        simulator.run(10, .02, () -> flash.run(matrix));
+        assertEquals(10, simulator.getClock().getTime(), 1e-6);
+        // The last frame, at 9.98 seconds, is in the second half
+        assertArrayEquals(new int[] {0x0000FF, 0x0000FF, 0x0000FF, 0x0000FF}, simulator.getFrame());
+
+        matrix.setRGB(1, 1, 0, 255, 0);
+        matrix.update();
+        // Serpentine wiring puts (1, 1) on the first LED of the second row, strip index 4
+        assertEquals(0x00FF00, simulator.getRGB(1, 1));
+        assertEquals(0x00FF00, simulator.getRGB(4));
+    }
+
+    @Test
+    public void testPublish() throws Exception {
+        try (DatagramSocket viewer = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+             LEDSimulator simulator = new LEDSimulator(3, LEDStrip.LEDMode.RGB)) {
+            viewer.setSoTimeout(2000);
+            simulator.publish(new InetSocketAddress(InetAddress.getLoopbackAddress(), viewer.getLocalPort()));
+            simulator.getStrip().setRGB(2, 1, 2, 3);
+            simulator.getStrip().update();
+
+            DatagramPacket packet = new DatagramPacket(new byte[64], 64);
+            viewer.receive(packet);
+            ByteBuffer bytes = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
+            assertEquals(16 + 9, packet.getLength());
+            assertEquals('B', bytes.get());
+            bytes.position(4);
+            assertEquals(1, bytes.getShort());
+            assertEquals(3, bytes.getShort());
+            assertEquals(0, bytes.getLong());
+            bytes.position(16 + 6);
+            assertEquals(1, bytes.get());
+            assertEquals(2, bytes.get());
+            assertEquals(3, bytes.get());
+        }
+    }
+
+    @Test
+    public void testPublishWithoutViewer() throws Exception {
+        // A port nothing is listening on anymore
+        InetSocketAddress closed;
+        try (DatagramSocket viewer = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            closed = new InetSocketAddress(InetAddress.getLoopbackAddress(), viewer.getLocalPort());
+        }
+        try (LEDSimulator simulator = new LEDSimulator(3, LEDStrip.LEDMode.RGB)) {
+            simulator.publish(closed);
+            LEDStrip strip = simulator.getStrip();
+            strip.setRGB(0, 255, 0, 0);
+            strip.update();
+            strip.setRGB(0, 0, 255, 0);
+            strip.update();
+            assertEquals(2, simulator.getFrameCount());
+            assertEquals(0x00FF00, simulator.getRGB(0));
+        }
+    }
+}
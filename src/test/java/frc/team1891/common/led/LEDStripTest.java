@@ -0,0 +1,298 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LEDStripTest {
+    @Test
+    public void testChannelOrder() {
+        LEDStrip strip = new LEDStrip(null, 1, LEDStrip.LEDMode.GBR);
+        strip.setMaxBrightness(765);
+        strip.setRGB(0, 10, 20, 30);
+        strip.update();
+
+        assertEquals(20, strip.buffer.getRed(0));
+        assertEquals(30, strip.buffer.getGreen(0));
+        assertEquals(10, strip.buffer.getBlue(0));
+    }
+
+    @Test
+    public void testBrightnessLimit() {
+        LEDStrip strip = new LEDStrip(null, 2, LEDStrip.LEDMode.RGB);
+        strip.setMaxBrightness(200);
+        strip.setRGB(0, 255, 255, 255);
+        strip.setRGB(1, 100, 50, 25);
+        strip.update();
+
+        // scaled by 200 / 765, 255 * 200 / 765 = 66.7
+        assertEquals(67, strip.buffer.getRed(0));
+        assertEquals(67, strip.buffer.getGreen(0));
+        assertEquals(67, strip.buffer.getBlue(0));
+        // under the limit, unchanged
+        assertEquals(100, strip.buffer.getRed(1));
+        assertEquals(50, strip.buffer.getGreen(1));
+        assertEquals(25, strip.buffer.getBlue(1));
+        // the framebuffer keeps the requested color
+        assertEquals(0xFFFFFF, strip.getRGB(0));
+
+        // low limits scale instead of dividing by zero
+        strip.setMaxBrightness(0);
+        strip.update();
+        assertEquals(0, strip.buffer.getRed(0));
+        strip.setMaxBrightness(1);
+        strip.update();
+        assertEquals(0, strip.buffer.getRed(0));
+        assertEquals(1, strip.buffer.getRed(1));
+    }
+
+    @Test
+    public void testGammaAndDithering() {
+        LEDStrip strip = new LEDStrip(null, 1, LEDStrip.LEDMode.RGB);
+        strip.setMaxBrightness(765);
+        strip.setGamma(2.2);
+        strip.setRGB(0, 255, 128, 20);
+        strip.update();
+        assertEquals(255, strip.buffer.getRed(0));
+        assertEquals(56, strip.buffer.getGreen(0));
+        assertEquals(1, strip.buffer.getBlue(0));
+
+        // 20 is 0.94 levels after gamma, dithering shows it as 1 on 7 of every 8 frames
+        strip.setDithering(true);
+        int sum = 0;
+        for (int frame = 0; frame < 8; frame++) {
+            strip.update();
+            sum += strip.buffer.getBlue(0);
+        }
+        assertEquals(7, sum);
+    }
+
+    @Test
+    public void testPowerBudget() {
+        LEDStrip strip = new LEDStrip(null, 10, LEDStrip.LEDMode.RGB);
+        strip.setMaxBrightness(765);
+        strip.setCurrentPerChannel(20);
+        strip.setIdleCurrent(1);
+        // 10 mA idle, leaving 300 mA for 600 mA of full white
+        strip.setPowerBudget(.31);
+        for (int i = 0; i < 10; i++) {
+            strip.setRGB(i, 255, 255, 255);
+        }
+        strip.update();
+        assertEquals(.5, strip.getPowerScale(), .001);
+        assertEquals(.31, strip.getEstimatedCurrent(), .001);
+        assertEquals(128, strip.buffer.getRed(0));
+
+        // Recovers gradually once the frame gets darker
+        for (int i = 0; i < 10; i++) {
+            strip.setRGB(i, 50, 50, 50);
+        }
+        strip.update();
+        double scale = strip.getPowerScale();
+        assertTrue(scale > .5 && scale < 1);
+        for (int frame = 0; frame < 200; frame++) {
+            strip.update();
+        }
+        assertEquals(1, strip.getPowerScale(), 0);
+        assertEquals(50, strip.buffer.getRed(0));
+        // Settled, so nothing more is sent
+        long pushed = strip.getPushedFrameCount();
+        strip.update();
+        assertEquals(pushed, strip.getPushedFrameCount());
+    }
+
+    @Test
+    public void testRangeOperations() {
+        LEDStrip strip = new LEDStrip(null, 8, LEDStrip.LEDMode.RGB);
+        strip.fill(-2, 3, 0x0000FF);
+        strip.blit(new int[] {1, 2, 3}, 0, 6, 3);
+        assertEquals(0x0000FF, strip.getRGB(0));
+        assertEquals(0x0000FF, strip.getRGB(2));
+        assertEquals(0, strip.getRGB(3));
+        assertEquals(2, strip.getRGB(7));
+
+        strip.gradient(0, 5, 0x000000, 0xFF0040);
+        assertEquals(0x000000, strip.getRGB(0));
+        assertEquals(0x800020, strip.getRGB(2));
+        assertEquals(0xFF0040, strip.getRGB(4));
+
+        strip.blit(new int[] {1, 2, 3, 4, 5, 6, 7, 8}, 0, 0, 8);
+        strip.copy(0, 2, 4);
+        assertEquals(1, strip.getRGB(2));
+        assertEquals(4, strip.getRGB(5));
+        strip.blit(new int[] {1, 2, 3, 4, 5, 6, 7, 8}, 0, 0, 8);
+        strip.shift(0, 8, -3);
+        assertEquals(4, strip.getRGB(0));
+        assertEquals(8, strip.getRGB(4));
+        assertEquals(0, strip.getRGB(5));
+        strip.blit(new int[] {1, 2, 3, 4, 5, 6, 7, 8}, 0, 0, 8);
+        strip.rotate(0, 8, 3);
+        assertEquals(6, strip.getRGB(0));
+        assertEquals(1, strip.getRGB(3));
+        assertEquals(5, strip.getRGB(7));
+
+        // Filling with the colors already there doesn't send a frame
+        strip.update();
+        long pushed = strip.getPushedFrameCount();
+        strip.fill(0, 1, 6);
+        strip.update();
+        assertEquals(pushed, strip.getPushedFrameCount());
+    }
+
+    @Test
+    public void testSegmentRangeOperations() {
+        LEDStrip strip = new LEDStrip(null, 10, LEDStrip.LEDMode.RGB);
+        LEDStripSegment a = new LEDStripSegment(strip, 0, 4);
+        LEDStripSegment b = new LEDStripSegment(strip, 6, 4);
+        b.setReversed(true);
+        LEDStripSegment combined = LEDStripSegment.combine(a, b);
+
+        combined.blit(new int[] {1, 2, 3, 4, 5, 6, 7, 8}, 0, 0, 8);
+        assertEquals(4, strip.getRGB(3));
+        assertEquals(0, strip.getRGB(4));
+        assertEquals(8, strip.getRGB(6));
+        assertEquals(5, strip.getRGB(9));
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i + 1, combined.getRGB(i));
+        }
+
+        combined.rotate(0, 8, 1);
+        assertEquals(8, combined.getRGB(0));
+        assertEquals(1, combined.getRGB(1));
+        assertEquals(7, strip.getRGB(6));
+
+        // Only the pixels of the segments are touched
+        combined.fill(-5, 20, 0x00FF00);
+        assertEquals(0, strip.getRGB(4));
+        assertEquals(0x00FF00, strip.getRGB(9));
+
+        b.gradient(0, 4, 0x000000, 0x0000FF);
+        assertEquals(0x0000FF, strip.getRGB(6));
+        assertEquals(0x000000, strip.getRGB(9));
+    }
+
+    @Test
+    public void testCombineManySegments() {
+        LEDStrip stripA = new LEDStrip(null, 6, LEDStrip.LEDMode.RGB);
+        LEDStrip stripB = new LEDStrip(null, 4, LEDStrip.LEDMode.RGB);
+        LEDStripSegment reversed = new LEDStripSegment(stripA, 3, 3);
+        reversed.setReversed(true);
+        LEDStripSegment combined = LEDStripSegment.combine(
+                LEDStripSegment.combine(new LEDStripSegment(stripA, 0, 2), reversed),
+                new LEDStripSegment(stripB, 1, 3));
+        assertEquals(8, combined.length());
+
+        combined.blit(new int[] {1, 2, 3, 4, 5, 6, 7, 8}, 0, 0, 8);
+        assertEquals(2, stripA.getRGB(1));
+        assertEquals(5, stripA.getRGB(3));
+        assertEquals(3, stripA.getRGB(5));
+        assertEquals(6, stripB.getRGB(1));
+        assertEquals(8, stripB.getRGB(3));
+
+        combined.fill(1, 7, 0xFFFFFF);
+        assertEquals(1, combined.getRGB(0));
+        assertEquals(0xFFFFFF, combined.getRGB(1));
+        assertEquals(0xFFFFFF, stripA.getRGB(3));
+        assertEquals(0xFFFFFF, stripB.getRGB(2));
+        assertEquals(8, combined.getRGB(7));
+
+        combined.setRGB(4, 0, 0, 9);
+        assertEquals(9, stripA.getRGB(3));
+    }
+
+    @Test
+    public void testSegmentPriority() {
+        LEDStrip strip = new LEDStrip(null, 10, LEDStrip.LEDMode.RGB);
+        // Segments that don't claim their LEDs write straight through
+        LEDStripSegment unclaimed = new LEDStripSegment(strip, 0, 10, 5);
+        assertNull(strip.getSegmentOwner(2));
+
+        LEDStripSegment ambient = new LEDStripSegment(strip, 0, 10, 0).claim();
+        LEDStripSegment alert = new LEDStripSegment(strip, 3, 4, 1).claim();
+        assertEquals(ambient, strip.getSegmentOwner(2));
+        assertEquals(alert, strip.getSegmentOwner(3));
+        assertEquals(ambient, strip.getSegmentOwner(7));
+
+        alert.fill(0, 4, 0xFF0000);
+        ambient.fill(0, 10, 0x0000FF);
+        ambient.setRGB(4, 0, 255, 0);
+        assertEquals(0x0000FF, strip.getRGB(2));
+        assertEquals(0xFF0000, strip.getRGB(3));
+        assertEquals(0xFF0000, strip.getRGB(4));
+        assertEquals(0x0000FF, strip.getRGB(7));
+        assertFalse(ambient.ownsPixel(5));
+
+        // Hidden entirely under a higher priority segment
+        LEDStripSegment hidden = new LEDStripSegment(strip, 4, 2, -1).claim();
+        assertFalse(hidden.isVisible());
+
+        alert.release();
+        assertEquals(ambient, strip.getSegmentOwner(4));
+        ambient.fill(0, 10, 0x0000FF);
+        assertEquals(0x0000FF, strip.getRGB(4));
+        unclaimed.setRGB(4, 0, 255, 0);
+        assertEquals(0x00FF00, strip.getRGB(4));
+    }
+
+    @Test
+    public void testUnchangedFramesAreSkipped() {
+        LEDStrip strip = new LEDStrip(null, 10, LEDStrip.LEDMode.RGB);
+        LEDStripPattern pattern = LEDStripPattern.setRGB(0, 0, 255);
+
+        pattern.run(strip);
+        pattern.run(strip);
+        pattern.run(strip);
+        assertEquals(1, strip.getPushedFrameCount());
+        assertEquals(2, strip.getSkippedFrameCount());
+
+        new LEDStripSegment(strip, 4, 2).setRGB(1, 255, 0, 0);
+        assertTrue(strip.isDirty());
+        strip.update();
+        assertEquals(2, strip.getPushedFrameCount());
+        assertFalse(strip.isDirty());
+    }
+
+    @Test
+    public void testPalette() {
+        LEDStrip strip = new LEDStrip(null, 100, LEDStrip.LEDMode.RGB);
+        strip.setMaxBrightness(765);
+        strip.setPaletteRGB(1, 255, 0, 0);
+        strip.setRangePaletteIndex(10, 90, 1);
+        strip.update();
+        assertEquals(0xFF0000, strip.getRGB(50));
+        assertEquals(0, strip.getRGB(5));
+
+        // Changing the palette recolors every pixel using it
+        strip.setRGB(20, 0, 0, 255);
+        strip.setPaletteRGB(1, 0, 255, 0);
+        assertEquals(0x00FF00, strip.getRGB(50));
+        strip.update();
+        assertEquals(255, strip.buffer.getGreen(89));
+        assertEquals(0, strip.buffer.getRed(89));
+        assertEquals(1, strip.getPaletteIndex(89));
+        // Pixels set directly no longer follow the palette
+        assertEquals(0x0000FF, strip.getRGB(20));
+        assertEquals(-1, strip.getPaletteIndex(20));
+
+        strip.off();
+        strip.setPaletteRGB(1, 1, 2, 3);
+        strip.update();
+        assertEquals(0, strip.getRGB(50));
+    }
+
+    @Test
+    public void testFixedPointHSVMatchesHSV() {
+        for (int hue = -30; hue < 210; hue++) {
+            for (int sat = 0; sat < 256; sat++) {
+                for (int val = 0; val < 256; val++) {
+                    final int h = hue, s = sat, v = val;
+                    assertEquals(LEDStrip.hsvToRGB(h, s, v), LEDStrip.hsvToRGBFixedPoint(h, s, v),
+                            () -> "hsv(" + h + ", " + s + ", " + v + ")");
+                }
+            }
+        }
+    }
+}
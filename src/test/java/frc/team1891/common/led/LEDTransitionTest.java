@@ -0,0 +1,113 @@
+package frc.team1891.common.led;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LEDTransitionTest {
+    @AfterEach
+    public void restoreClock() {
+        LEDFrameClock.setDefault(LEDFrameClock.realTime());
+    }
+
+    @Test
+    public void testHueMatchesTargetBrightness() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDStrip direct = new LEDStrip(null, 8, LEDStrip.LEDMode.GRB);
+        LEDStrip blended = new LEDStrip(null, 8, LEDStrip.LEDMode.GRB);
+        direct.setMaxBrightness(382);
+        blended.setMaxBrightness(382);
+        LEDStripPattern rainbow = LEDStripPatterns.RAINBOW();
+        LEDTransition transition = new LEDTransition(blended);
+
+        transition.show(rainbow);
+        // Fading between two copies of the same pattern shouldn't change its brightness
+        transition.transitionTo(rainbow, LEDTransition.Type.FADE, 1);
+        clock.advance(.5);
+        transition.draw();
+        assertTrue(transition.isTransitioning());
+        rainbow.draw(direct);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(direct.getRGB(i), blended.getRGB(i), "LED " + i);
+        }
+    }
+
+    @Test
+    public void testFade() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDBuffer leds = new LEDBuffer(4);
+        LEDTransition transition = new LEDTransition(leds);
+
+        transition.show(LEDStripPattern.setRGB(200, 0, 0));
+        transition.draw();
+        assertEquals(0xC80000, leds.getRGB(0));
+
+        transition.transitionTo(LEDStripPattern.setRGB(0, 0, 100), LEDTransition.Type.FADE, 1);
+        transition.draw();
+        assertEquals(0xC80000, leds.getRGB(0));
+        clock.advance(.5);
+        transition.draw();
+        assertTrue(transition.isTransitioning());
+        assertEquals(0x640032, leds.getRGB(3));
+        clock.advance(.5);
+        transition.draw();
+        assertFalse(transition.isTransitioning());
+        assertEquals(0x000064, leds.getRGB(0));
+    }
+
+    @Test
+    public void testWipeAndSlide() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDBuffer leds = new LEDBuffer(2, 4);
+        LEDTransition transition = new LEDTransition(leds);
+        // Colors each LED by its column, so sliding can be seen
+        LEDMatrixPattern columns = matrix -> {
+            for (int y = 0; y < matrix.rows(); y++) {
+                for (int x = 0; x < matrix.cols(); x++) {
+                    matrix.setRGB(x, y, x + 1, 0, 0);
+                }
+            }
+        };
+
+        transition.show(LEDMatrixPattern.setRGB(0, 0, 255));
+        transition.transitionTo(columns, LEDTransition.Type.WIPE, 1);
+        clock.advance(.5);
+        transition.draw();
+        assertEquals(0x010000, leds.getRGB(4));
+        assertEquals(0x020000, leds.getRGB(5));
+        assertEquals(0x0000FF, leds.getRGB(6));
+
+        transition.show(LEDMatrixPattern.setRGB(0, 0, 255));
+        transition.transitionTo(columns, LEDTransition.Type.SLIDE, 1);
+        clock.advance(.25);
+        transition.draw();
+        assertEquals(0x040000, leds.getRGB(0));
+        assertEquals(0x0000FF, leds.getRGB(1));
+    }
+
+    @Test
+    public void testDissolve() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDBuffer leds = new LEDBuffer(256);
+        LEDTransition transition = new LEDTransition(leds);
+
+        transition.show(LEDStripPattern.setRGB(255, 0, 0));
+        transition.transitionTo(LEDStripPattern.setRGB(0, 255, 0), LEDTransition.Type.DISSOLVE, 1);
+        clock.advance(.5);
+        transition.draw();
+        int switched = 0;
+        for (int i = 0; i < leds.length(); i++) {
+            if (leds.getRGB(i) == 0x00FF00) {
+                switched++;
+            }
+        }
+        assertTrue(switched > 96 && switched < 160, "Switched " + switched);
+    }
+}
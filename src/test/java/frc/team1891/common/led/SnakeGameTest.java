@@ -0,0 +1,82 @@
+package frc.team1891.common.led;
+
+import frc.team1891.common.led.LEDMatrixPatterns.SnakeGamePattern.Direction;
+import frc.team1891.common.led.LEDMatrixPatterns.SnakeGamePattern.SnakeGame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SnakeGameTest {
+    @AfterEach
+    public void restoreClock() {
+        LEDFrameClock.setDefault(LEDFrameClock.realTime());
+    }
+
+    @Test
+    public void testMovesAndHitsWall() {
+        SnakeGame game = new SnakeGame(4, 3);
+        // Starts on the left of the middle row, heading right
+        assertEquals(4, game.head());
+        game.update();
+        assertEquals(5, game.head());
+        assertEquals(2, game.length());
+        game.update();
+        game.update();
+        assertFalse(game.isOver());
+        game.update();
+        assertTrue(game.isOver());
+    }
+
+    @Test
+    public void testDirectionQueue() {
+        SnakeGame game = new SnakeGame(8, 8);
+        // Reversing is ignored, and a held button only queues once
+        game.queueDirection(Direction.LEFT);
+        game.queueDirection(Direction.UP);
+        game.queueDirection(Direction.UP);
+        game.queueDirection(Direction.RIGHT);
+        game.update();
+        assertEquals(3 * 8, game.head());
+        game.update();
+        assertEquals(3 * 8 + 1, game.head());
+        game.update();
+        assertEquals(3 * 8 + 2, game.head());
+    }
+
+    @Test
+    public void testFillingTheBoardEndsTheGame() {
+        SnakeGame game = new SnakeGame(2, 1);
+        // The only free cell gets the fruit
+        assertEquals(1, game.fruit());
+        game.update();
+        assertEquals(1, game.getScore());
+        assertEquals(-1, game.fruit());
+        assertTrue(game.isOver());
+        assertEquals(1, game.getHighScore());
+
+        game.reset();
+        assertFalse(game.isOver());
+        assertEquals(1, game.getHighScore());
+    }
+
+    @Test
+    public void testPatternDrawsBoard() {
+        LEDFrameClock clock = LEDFrameClock.manual();
+        LEDFrameClock.setDefault(clock);
+        LEDBuffer leds = new LEDBuffer(3, 5);
+        LEDMatrixPatterns.SnakeGamePattern snake = new LEDMatrixPatterns.SnakeGamePattern(1,
+                () -> false, () -> false, () -> false, () -> false);
+
+        snake.draw(leds);
+        // The head is green, on the left of the middle row
+        assertEquals(0x00FF00, leds.getRGB(5));
+        clock.advance(.02);
+        snake.draw(leds);
+        assertEquals(0x00FF00, leds.getRGB(6));
+        assertEquals(0x00FF03, leds.getRGB(5));
+        assertFalse(snake.isFinished());
+    }
+}
@@ -0,0 +1,41 @@
+package frc.team1891.common.led;
+
+import frc.team1891.common.led.LEDMatrixPattern.AnimatedLEDMatrixPattern.RunType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Encodes images into an {@link LEDAnimation} file with an {@link LEDAnimationEncoder}, from the command line.
+ *
+ * <pre>
+ * ./gradlew encodeLEDAnimation --args="&lt;output&gt; &lt;rows&gt; &lt;cols&gt; &lt;fps&gt; &lt;once|loop&gt; &lt;images or a gif...&gt;"
+ * </pre>
+ *
+ * <p>This is a build tool, not part of the library jar.</p>
+ */
+public class EncodeLEDAnimation {
+    /**
+     * Encodes images into an animation file.
+     * @param args output file, rows, cols, fps, "once" or "loop", then the images in order, or one animated image
+     * @throws IOException if an image can't be read or the output can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 6) {
+            System.err.println("Usage: encodeLEDAnimation <output> <rows> <cols> <fps> <once|loop> <images or a gif...>");
+            System.exit(1);
+        }
+        final LEDAnimationEncoder encoder = new LEDAnimationEncoder(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                Integer.parseInt(args[3]), args[4].equalsIgnoreCase("loop") ? RunType.CONTINUOUS : RunType.ONCE);
+        for (int i = 5; i < args.length; i++) {
+            final Path input = Path.of(args[i]);
+            if (args.length == 6 && input.toString().toLowerCase().endsWith(".gif")) {
+                encoder.addAnimatedImageFile(input);
+            } else {
+                encoder.addImageFile(input);
+            }
+        }
+        encoder.write(Path.of(args[0]));
+        System.out.println("Wrote " + encoder.frameCount() + " frames to " + args[0]);
+    }
+}